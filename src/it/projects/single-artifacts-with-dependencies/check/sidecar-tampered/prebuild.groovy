@@ -0,0 +1,33 @@
+/**
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// Install a dependency whose content was tampered with, keeping the checksum file of the original content.
+File directory = new File( localRepositoryPath, 'net/nicoulaj/maven/plugins/checksum/test/projects/tampered-dependency/1.0' )
+directory.mkdirs()
+new File( directory, 'tampered-dependency-1.0.pom' ).text = '''<?xml version="1.0" encoding="UTF-8"?>
+<project xmlns="http://maven.apache.org/POM/4.0.0">
+  <modelVersion>4.0.0</modelVersion>
+  <groupId>net.nicoulaj.maven.plugins.checksum.test.projects</groupId>
+  <artifactId>tampered-dependency</artifactId>
+  <version>1.0</version>
+</project>
+'''
+File jar = new File( directory, 'tampered-dependency-1.0.jar' )
+jar.text = 'tampered content'
+jar.setLastModified( System.currentTimeMillis() - 60000L )
+new File( directory, 'tampered-dependency-1.0.jar.sha1' ).text = 'c1dab0c0864b6ac9bdd3743a1408d679f1acd823'
+return true
@@ -0,0 +1,80 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link net.nicoulaj.maven.plugins.checksum.cache.DigestCache} looking up several caches in turn.
+ *
+ * <p>A checksum found in a cache is copied to the caches looked up before it, and new checksums are stored in all the
+ * caches. Checksums read from a {@link SidecarDigestCache} are not copied: they were not computed from the files but
+ * taken from the checksum files next to them, and must not be handed later to goals verifying the files as if they
+ * had been.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class ChainedDigestCache
+    implements DigestCache
+{
+    /**
+     * The caches, in lookup order.
+     */
+    protected final List<DigestCache> caches;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.cache.ChainedDigestCache}.
+     *
+     * @param caches the caches, in lookup order.
+     */
+    public ChainedDigestCache( List<DigestCache> caches )
+    {
+        this.caches = new ArrayList<>( caches );
+    }
+
+    /** {@inheritDoc} */
+    public String get( FileIdentity file, String algorithm )
+    {
+        for ( int i = 0; i < caches.size(); i++ )
+        {
+            String digest = caches.get( i ).get( file, algorithm );
+            if ( digest != null )
+            {
+                if ( !( caches.get( i ) instanceof SidecarDigestCache ) )
+                {
+                    for ( int j = 0; j < i; j++ )
+                    {
+                        caches.get( j ).put( file, algorithm, digest );
+                    }
+                }
+                return digest;
+            }
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public void put( FileIdentity file, String algorithm, String digest )
+    {
+        for ( DigestCache cache : caches )
+        {
+            cache.put( file, algorithm, digest );
+        }
+    }
+}
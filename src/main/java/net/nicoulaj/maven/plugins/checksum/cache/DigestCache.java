@@ -0,0 +1,47 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.cache;
+
+/**
+ * A cache of the checksums computed for files, indexed by file identity and algorithm.
+ *
+ * <p>Implementations must be thread safe.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see FileIdentity
+ * @since 1.12
+ */
+public interface DigestCache
+{
+    /**
+     * Get the checksum cached for a file.
+     *
+     * @param file      the identity of the file.
+     * @param algorithm the checksum algorithm.
+     * @return the checksum, or {@code null} if not cached for this exact identity.
+     */
+    String get( FileIdentity file, String algorithm );
+
+    /**
+     * Cache the checksum of a file.
+     *
+     * @param file      the identity of the file, taken before its content was read.
+     * @param algorithm the checksum algorithm.
+     * @param digest    the checksum.
+     */
+    void put( FileIdentity file, String algorithm, String digest );
+}
@@ -0,0 +1,192 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * The identity of the content of a file: its canonical path, size, last modification time and, on Unix file systems,
+ * inode number.
+ *
+ * <p>Two identities are equal if the file was most likely not modified in between. Replacing a file by another one
+ * with the same size and modification time, for example by a rename, is detected by the change of inode.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see DigestCache
+ * @since 1.12
+ */
+public final class FileIdentity
+{
+    /**
+     * The delay in milliseconds after its modification from which the identity of a file can be trusted to stand for
+     * its content.
+     *
+     * <p>Like other tools relying on modification times, a file modified twice within the resolution of the file
+     * system clock without changing size would keep the same identity, so recently modified files must not be
+     * cached.</p>
+     */
+    public static final long RACY_WINDOW = 2000L;
+
+    /**
+     * Whether the {@code unix} attribute view is supported, cleared on the first failure.
+     */
+    private static volatile boolean unixAttributes = true;
+
+    private final String path;
+
+    private final long size;
+
+    private final long lastModified;
+
+    private final long inode;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.cache.FileIdentity}.
+     *
+     * @param path         the canonical path of the file.
+     * @param size         the size of the file.
+     * @param lastModified the last modification time of the file, in milliseconds since the epoch.
+     * @param inode        the inode number of the file, {@code -1} if unknown.
+     */
+    public FileIdentity( String path, long size, long lastModified, long inode )
+    {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.inode = inode;
+    }
+
+    /**
+     * Get the identity of a file from the file system.
+     *
+     * @param file the file.
+     * @return the identity of the file.
+     * @throws java.io.IOException if the file does not exist or its attributes cannot be read.
+     */
+    public static FileIdentity of( File file )
+        throws IOException
+    {
+        Path path = file.toPath().toRealPath();
+        if ( unixAttributes )
+        {
+            try
+            {
+                Map<String, Object> attributes = Files.readAttributes( path, "unix:size,lastModifiedTime,ino" );
+                return new FileIdentity( path.toString(), (Long) attributes.get( "size" ),
+                                         ( (FileTime) attributes.get( "lastModifiedTime" ) ).toMillis(),
+                                         (Long) attributes.get( "ino" ) );
+            }
+            catch ( UnsupportedOperationException | IllegalArgumentException e )
+            {
+                unixAttributes = false;
+            }
+        }
+        BasicFileAttributes attributes = Files.readAttributes( path, BasicFileAttributes.class );
+        return new FileIdentity( path.toString(), attributes.size(), attributes.lastModifiedTime().toMillis(), -1L );
+    }
+
+    /**
+     * Get the canonical path of the file.
+     *
+     * @return the path.
+     */
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Get the size of the file.
+     *
+     * @return the size in bytes.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Get the last modification time of the file.
+     *
+     * @return the time in milliseconds since the epoch.
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * Get the inode number of the file.
+     *
+     * @return the inode number, {@code -1} if unknown.
+     */
+    public long getInode()
+    {
+        return inode;
+    }
+
+    /**
+     * Check whether the file was modified too recently for its identity to stand for its content.
+     *
+     * @return {@code true} if the file was modified less than {@link #RACY_WINDOW} milliseconds ago.
+     */
+    public boolean isRacy()
+    {
+        return lastModified > System.currentTimeMillis() - RACY_WINDOW;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( !( o instanceof FileIdentity ) )
+        {
+            return false;
+        }
+        FileIdentity other = (FileIdentity) o;
+        return size == other.size && lastModified == other.lastModified && inode == other.inode
+            && path.equals( other.path );
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode()
+    {
+        int result = path.hashCode();
+        result = 31 * result + (int) ( size ^ ( size >>> 32 ) );
+        result = 31 * result + (int) ( lastModified ^ ( lastModified >>> 32 ) );
+        result = 31 * result + (int) ( inode ^ ( inode >>> 32 ) );
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+        return path + " (size=" + size + ", lastModified=" + lastModified + ", inode=" + inode + ")";
+    }
+}
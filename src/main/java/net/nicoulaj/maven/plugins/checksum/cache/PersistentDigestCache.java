@@ -0,0 +1,238 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link net.nicoulaj.maven.plugins.checksum.cache.DigestCache} persisted to a file between builds.
+ *
+ * <p>The cache keeps one entry per file path and algorithm, replaced when the file changes. The entries are only
+ * returned if the identity of the file is still the same, so a modified file is always read again.</p>
+ *
+ * <p>Files modified too recently for their identity to be trusted are not cached, see {@link
+ * FileIdentity#isRacy()}.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class PersistentDigestCache
+    implements DigestCache
+{
+    /**
+     * The first line of cache files, identifying their format.
+     */
+    public static final String HEADER = "# checksum-maven-plugin digest cache v1";
+
+    /**
+     * The file the cache is persisted to.
+     */
+    protected final File file;
+
+    /**
+     * The entries, indexed by algorithm and path.
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the entries changed since they were loaded.
+     */
+    private volatile boolean modified;
+
+    /**
+     * Build a new empty instance of {@link net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache}.
+     *
+     * @param file the file the cache is persisted to.
+     * @see #load(java.io.File)
+     */
+    public PersistentDigestCache( File file )
+    {
+        this.file = file;
+    }
+
+    /**
+     * Load a cache from a file.
+     *
+     * <p>If the file does not exist or was written in another format, the cache is empty. Malformed lines are
+     * ignored.</p>
+     *
+     * @param file the file the cache is persisted to.
+     * @return the cache.
+     * @throws java.io.IOException if the file exists but cannot be read.
+     */
+    public static PersistentDigestCache load( File file )
+        throws IOException
+    {
+        PersistentDigestCache cache = new PersistentDigestCache( file );
+        try ( BufferedReader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 ) )
+        {
+            if ( !HEADER.equals( reader.readLine() ) )
+            {
+                return cache;
+            }
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                String[] fields = line.split( "\t", 6 );
+                if ( fields.length != 6 )
+                {
+                    continue;
+                }
+                try
+                {
+                    cache.entries.put( key( fields[0], fields[5] ),
+                                       new Entry( Long.parseLong( fields[1] ), Long.parseLong( fields[2] ),
+                                                  Long.parseLong( fields[3] ), fields[4] ) );
+                }
+                catch ( NumberFormatException e )
+                {
+                    // Ignore the malformed entry.
+                }
+            }
+        }
+        catch ( NoSuchFileException e )
+        {
+            // No cache yet.
+        }
+        return cache;
+    }
+
+    /**
+     * Write the cache to its file, if it changed since it was loaded.
+     *
+     * @throws java.io.IOException if the file cannot be written.
+     */
+    public void save()
+        throws IOException
+    {
+        if ( !modified )
+        {
+            return;
+        }
+        Path target = file.toPath();
+        Path parent = target.toAbsolutePath().getParent();
+        if ( parent != null )
+        {
+            Files.createDirectories( parent );
+        }
+        Path temporary = target.resolveSibling( target.getFileName() + ".tmp" );
+        try ( BufferedWriter writer = Files.newBufferedWriter( temporary, StandardCharsets.UTF_8 ) )
+        {
+            writer.write( HEADER );
+            writer.newLine();
+            for ( Map.Entry<String, Entry> e : entries.entrySet() )
+            {
+                int separator = e.getKey().indexOf( '\n' );
+                Entry entry = e.getValue();
+                writer.write( e.getKey().substring( 0, separator ) );
+                writer.write( '\t' );
+                writer.write( Long.toString( entry.size ) );
+                writer.write( '\t' );
+                writer.write( Long.toString( entry.lastModified ) );
+                writer.write( '\t' );
+                writer.write( Long.toString( entry.inode ) );
+                writer.write( '\t' );
+                writer.write( entry.digest );
+                writer.write( '\t' );
+                writer.write( e.getKey().substring( separator + 1 ) );
+                writer.newLine();
+            }
+        }
+        try
+        {
+            Files.move( temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( temporary, target, StandardCopyOption.REPLACE_EXISTING );
+        }
+        modified = false;
+    }
+
+    /**
+     * Get the file the cache is persisted to.
+     *
+     * @return the file.
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /** {@inheritDoc} */
+    public String get( FileIdentity file, String algorithm )
+    {
+        Entry entry = entries.get( key( algorithm, file.getPath() ) );
+        return entry != null && entry.matches( file ) ? entry.digest : null;
+    }
+
+    /** {@inheritDoc} */
+    public void put( FileIdentity file, String algorithm, String digest )
+    {
+        if ( file.isRacy() || file.getPath().indexOf( '\n' ) >= 0 || file.getPath().indexOf( '\r' ) >= 0 )
+        {
+            return;
+        }
+        entries.put( key( algorithm, file.getPath() ),
+                     new Entry( file.getSize(), file.getLastModified(), file.getInode(), digest ) );
+        modified = true;
+    }
+
+    private static String key( String algorithm, String path )
+    {
+        return algorithm + '\n' + path;
+    }
+
+    /**
+     * A cached checksum, with the identity of the file it was computed for.
+     */
+    private static final class Entry
+    {
+        private final long size;
+
+        private final long lastModified;
+
+        private final long inode;
+
+        private final String digest;
+
+        private Entry( long size, long lastModified, long inode, String digest )
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.inode = inode;
+            this.digest = digest;
+        }
+
+        private boolean matches( FileIdentity file )
+        {
+            return size == file.getSize() && lastModified == file.getLastModified() && inode == file.getInode();
+        }
+    }
+}
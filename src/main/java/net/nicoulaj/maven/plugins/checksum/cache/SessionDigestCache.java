@@ -0,0 +1,92 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.cache;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link net.nicoulaj.maven.plugins.checksum.cache.DigestCache} living as long as the Maven session, shared by all
+ * the executions of the plugin in the build, including across reactor modules built in parallel.
+ *
+ * <p>The instance is stored in the data of the repository session, as session scoped components are not available with
+ * the oldest supported Maven versions. It is keyed by its own class, so that different versions of the plugin in the
+ * same build do not share it.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class SessionDigestCache
+    implements DigestCache
+{
+    /**
+     * The checksums, indexed by file identity and algorithm.
+     */
+    private final ConcurrentMap<FileIdentity, ConcurrentMap<String, String>> digests = new ConcurrentHashMap<>();
+
+    /**
+     * Get the cache of a Maven session, creating it on the first call.
+     *
+     * @param session the repository session of the Maven session.
+     * @return the cache shared by all the executions in the session.
+     */
+    public static SessionDigestCache get( RepositorySystemSession session )
+    {
+        SessionData data = session.getData();
+        Object cache = data.get( SessionDigestCache.class );
+        while ( !( cache instanceof SessionDigestCache ) )
+        {
+            SessionDigestCache created = new SessionDigestCache();
+            if ( data.set( SessionDigestCache.class, cache, created ) )
+            {
+                return created;
+            }
+            cache = data.get( SessionDigestCache.class );
+        }
+        return (SessionDigestCache) cache;
+    }
+
+    /** {@inheritDoc} */
+    public String get( FileIdentity file, String algorithm )
+    {
+        ConcurrentMap<String, String> fileDigests = digests.get( file );
+        return fileDigests != null ? fileDigests.get( algorithm ) : null;
+    }
+
+    /** {@inheritDoc} */
+    public void put( FileIdentity file, String algorithm, String digest )
+    {
+        if ( file.isRacy() )
+        {
+            return;
+        }
+        ConcurrentMap<String, String> fileDigests = digests.get( file );
+        if ( fileDigests == null )
+        {
+            fileDigests = new ConcurrentHashMap<>( 4 );
+            ConcurrentMap<String, String> existing = digests.putIfAbsent( file, fileDigests );
+            if ( existing != null )
+            {
+                fileDigests = existing;
+            }
+        }
+        fileDigests.put( algorithm, digest );
+    }
+}
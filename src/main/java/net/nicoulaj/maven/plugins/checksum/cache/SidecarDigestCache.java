@@ -0,0 +1,231 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.cache;
+
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link net.nicoulaj.maven.plugins.checksum.cache.DigestCache} reading the checksum files stored next to the
+ * artifacts of a local Maven repository, such as {@code .sha1} or {@code .md5} files, instead of reading the artifacts.
+ *
+ * <p>A checksum file is only used if it holds a well-formed hexadecimal checksum of the expected length, and it was
+ * written after the artifact, so that an artifact installed over a downloaded one is read again. Checksums are only
+ * available for the algorithms provided by {@link java.security.MessageDigest}.</p>
+ *
+ * <p>A fraction of the files can be verified anyway: their checksums are then reported missing, and compared to the
+ * checksum files once computed. The mismatches are collected in {@link #getMismatches()}. The files verified are picked
+ * from a hash of their path and size, so that all the lookups of a file agree.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class SidecarDigestCache
+    implements DigestCache
+{
+    /**
+     * The maximum size of the checksum files read.
+     */
+    private static final int MAX_SIDECAR_SIZE = 1024;
+
+    /**
+     * The canonical path of the local repository, ending with a separator.
+     */
+    protected final String repositoryPath;
+
+    /**
+     * The fraction of the files verified against their checksum files, between {@code 0} and {@code 1}.
+     */
+    protected final double verificationRate;
+
+    /**
+     * The length of the hexadecimal checksums of each algorithm, {@code -1} for unsupported algorithms.
+     */
+    private final ConcurrentMap<String, Integer> lengths = new ConcurrentHashMap<>();
+
+    /**
+     * The descriptions of the checksum files that did not match the computed checksums.
+     */
+    private final Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.cache.SidecarDigestCache}.
+     *
+     * @param repository       the base directory of the local repository.
+     * @param verificationRate the fraction of the files verified against their checksum files, between {@code 0} and
+     *                         {@code 1}.
+     * @throws java.io.IOException              if the repository path cannot be resolved.
+     * @throws java.lang.IllegalArgumentException if the verification rate is invalid.
+     */
+    public SidecarDigestCache( File repository, double verificationRate )
+        throws IOException
+    {
+        if ( !( verificationRate >= 0 && verificationRate <= 1 ) )
+        {
+            throw new IllegalArgumentException( "Invalid verification rate " + verificationRate + ", expected a value "
+                                                    + "between 0 and 1." );
+        }
+        this.repositoryPath = repository.getCanonicalPath() + File.separator;
+        this.verificationRate = verificationRate;
+    }
+
+    /** {@inheritDoc} */
+    public String get( FileIdentity file, String algorithm )
+    {
+        return isVerified( file ) ? null : read( file, algorithm );
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Checksums are not stored, but compared to the checksum file if there is one.</p>
+     */
+    public void put( FileIdentity file, String algorithm, String digest )
+    {
+        String expected = read( file, algorithm );
+        if ( expected != null && !expected.equalsIgnoreCase( digest ) )
+        {
+            mismatches.add( "The " + algorithm + " checksum " + digest + " of " + file.getPath()
+                                + " does not match the checksum " + expected + " stored in the local repository." );
+        }
+    }
+
+    /**
+     * Get the descriptions of the checksum files that did not match the computed checksums.
+     *
+     * @return the descriptions of the mismatches.
+     */
+    public List<String> getMismatches()
+    {
+        return new ArrayList<>( mismatches );
+    }
+
+    /**
+     * Check whether a file is verified against its checksum files.
+     *
+     * @param file the identity of the file.
+     * @return {@code true} if its checksums are to be computed.
+     */
+    private boolean isVerified( FileIdentity file )
+    {
+        if ( verificationRate <= 0 )
+        {
+            return false;
+        }
+
+        // Mix the bits of the hash, so that the value is uniform in [0, 1).
+        long hash = file.getPath().hashCode() * 0x9E3779B97F4A7C15L + file.getSize();
+        hash = ( hash ^ ( hash >>> 33 ) ) * 0xFF51AFD7ED558CCDL;
+        hash = ( hash ^ ( hash >>> 33 ) ) * 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return ( hash >>> 11 ) * 0x1.0p-53 < verificationRate;
+    }
+
+    /**
+     * Read the checksum of a file from its checksum file.
+     *
+     * @param file      the identity of the file.
+     * @param algorithm the algorithm.
+     * @return the checksum, or {@code null} if not available.
+     */
+    private String read( FileIdentity file, String algorithm )
+    {
+        int length = getLength( algorithm );
+        if ( length < 0 || !file.getPath().startsWith( repositoryPath ) )
+        {
+            return null;
+        }
+        try
+        {
+            Path sidecar = Paths.get( file.getPath() + DigesterFactory.getInstance().getFileDigester( algorithm )
+                .getFileExtension() );
+            if ( Files.getLastModifiedTime( sidecar ).toMillis() < file.getLastModified() )
+            {
+                return null;
+            }
+            byte[] content = new byte[MAX_SIDECAR_SIZE];
+            int read = 0;
+            try ( InputStream input = Files.newInputStream( sidecar ) )
+            {
+                for ( int n; read < content.length && ( n = input.read( content, read, content.length - read ) ) > 0; )
+                {
+                    read += n;
+                }
+            }
+
+            // The checksum may be followed by the file name, as written by the sha1sum command.
+            String checksum = new String( content, 0, read, StandardCharsets.US_ASCII ).trim().split( "\\s", 2 )[0];
+            return isHex( checksum, length ) ? checksum.toLowerCase( Locale.ROOT ) : null;
+        }
+        catch ( IOException | NoSuchAlgorithmException e )
+        {
+            // No usable checksum file.
+            return null;
+        }
+    }
+
+    private int getLength( String algorithm )
+    {
+        Integer length = lengths.get( algorithm );
+        if ( length == null )
+        {
+            try
+            {
+                int digestLength = MessageDigest.getInstance( algorithm ).getDigestLength();
+                length = digestLength > 0 ? digestLength * 2 : -1;
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                length = -1;
+            }
+            lengths.put( algorithm, length );
+        }
+        return length;
+    }
+
+    private static boolean isHex( String value, int length )
+    {
+        if ( value.length() != length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            if ( Character.digit( value.charAt( i ), 16 ) < 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,6 +16,11 @@
  */
 package net.nicoulaj.maven.plugins.checksum.digest;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.security.NoSuchAlgorithmException;
 import java.util.Locale;
 
 /**
@@ -33,6 +38,11 @@ public abstract class AbstractFileDigester
      */
     protected final String algorithm;
 
+    /**
+     * The digests pooled for each thread.
+     */
+    private final ThreadLocal<StreamingDigest> digests = new ThreadLocal<>();
+
     /**
      * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.digest.AbstractFileDigester}.
      *
@@ -62,4 +72,43 @@ public abstract class AbstractFileDigester
     {
         return "." + algorithm.toLowerCase(Locale.ROOT).replaceAll( "[\\W]", "" );
     }
+
+    /** {@inheritDoc} */
+    public StreamingDigest getDigest()
+        throws NoSuchAlgorithmException
+    {
+        StreamingDigest digest = digests.get();
+        if ( digest == null )
+        {
+            digest = newDigest();
+            digests.set( digest );
+        }
+        else
+        {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    /** {@inheritDoc} */
+    public String calculate( File file )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        StreamingDigest digest = getDigest();
+        try
+        {
+            FileStreamer.DEFAULT.stream( file, digest );
+        }
+        catch ( FileNotFoundException | NoSuchFileException e )
+        {
+            throw new DigesterException( "Unable to read " + file.getPath() + ": " + e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new DigesterException(
+                "Unable to calculate the " + getAlgorithm() + " hashcode for " + file.getPath() + ": "
+                    + e.getMessage() );
+        }
+        return digest.getValue();
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.digest;
+
+import java.util.Arrays;
+
+/**
+ * The raw value of a checksum, with its algorithm.
+ *
+ * <p>Checksums are kept in binary form through the pipeline, and only formatted when written: hexadecimal for message
+ * digests, unsigned decimal for the 32 bits {@code CRC32} and {@code Cksum} checksums. A binary checksum takes a
+ * fraction of the memory of its text form, which matters when the checksums of millions of files are held until a
+ * summary is written.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public final class BinaryDigest
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The algorithm.
+     */
+    private final String algorithm;
+
+    /**
+     * The raw value, big-endian for the decimal checksums.
+     */
+    private final byte[] value;
+
+    /**
+     * Whether the value is formatted as an unsigned decimal number.
+     */
+    private final boolean decimal;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest}.
+     *
+     * <p>The value is not copied, and must not be modified afterwards.</p>
+     *
+     * @param algorithm the algorithm.
+     * @param value     the raw value, big-endian for the decimal checksums.
+     * @param decimal   whether the value is formatted as an unsigned decimal number, at most 8 bytes long.
+     */
+    public BinaryDigest( String algorithm, byte[] value, boolean decimal )
+    {
+        if ( decimal && value.length > 8 )
+        {
+            throw new IllegalArgumentException( "Decimal checksums are at most 8 bytes long." );
+        }
+        this.algorithm = algorithm;
+        this.value = value;
+        this.decimal = decimal;
+    }
+
+    /**
+     * Build the binary checksum of a 32 bits checksum.
+     *
+     * @param algorithm the algorithm.
+     * @param value     the checksum, as an unsigned 32 bits number.
+     * @return the binary checksum, formatted as a decimal number.
+     */
+    public static BinaryDigest ofUnsignedInt( String algorithm, long value )
+    {
+        return new BinaryDigest( algorithm, new byte[]{ (byte) ( value >>> 24 ), (byte) ( value >>> 16 ),
+            (byte) ( value >>> 8 ), (byte) value }, true );
+    }
+
+    /**
+     * Parse a checksum formatted by {@link #toString()}.
+     *
+     * @param algorithm the algorithm.
+     * @param text      the formatted checksum.
+     * @return the binary checksum, {@code null} if the text is not a valid checksum for the algorithm.
+     */
+    public static BinaryDigest parse( String algorithm, String text )
+    {
+        if ( isDecimal( algorithm ) )
+        {
+            try
+            {
+                long value = Long.parseLong( text );
+                return value >= 0 && value <= 0xFFFFFFFFL ? ofUnsignedInt( algorithm, value ) : null;
+            }
+            catch ( NumberFormatException e )
+            {
+                return null;
+            }
+        }
+        int length = text.length();
+        if ( length == 0 || ( length & 1 ) != 0 )
+        {
+            return null;
+        }
+        byte[] value = new byte[length / 2];
+        for ( int i = 0; i < length; i += 2 )
+        {
+            int high = Character.digit( text.charAt( i ), 16 );
+            int low = Character.digit( text.charAt( i + 1 ), 16 );
+            if ( high < 0 || low < 0 )
+            {
+                return null;
+            }
+            value[i / 2] = (byte) ( ( high << 4 ) | low );
+        }
+        return new BinaryDigest( algorithm, value, false );
+    }
+
+    /**
+     * Check whether the checksums of an algorithm are formatted as decimal numbers.
+     *
+     * @param algorithm the algorithm.
+     * @return {@code true} for {@code CRC32} and {@code Cksum}.
+     */
+    public static boolean isDecimal( String algorithm )
+    {
+        return CRC32FileDigester.ALGORITHM.equals( algorithm ) || CksumFileDigester.ALGORITHM.equals( algorithm );
+    }
+
+    /**
+     * Get the algorithm.
+     *
+     * @return the algorithm.
+     */
+    public String getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    /**
+     * Get the raw value. The array is not copied, and must not be modified.
+     *
+     * @return the raw value, big-endian for the decimal checksums.
+     */
+    public byte[] getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Check whether the value is formatted as an unsigned decimal number.
+     *
+     * @return {@code true} for decimal checksums, {@code false} for hexadecimal ones.
+     */
+    public boolean isDecimal()
+    {
+        return decimal;
+    }
+
+    /**
+     * Format the checksum as written to the output files.
+     *
+     * @return the checksum, in lower case hexadecimal or unsigned decimal.
+     */
+    @Override
+    public String toString()
+    {
+        return format( value, 0, value.length, decimal );
+    }
+
+    /**
+     * Format a raw checksum.
+     *
+     * @param value   the buffer holding the raw value.
+     * @param offset  the offset of the value in the buffer.
+     * @param length  the length of the value.
+     * @param decimal whether the value is formatted as an unsigned decimal number, at most 8 bytes long.
+     * @return the checksum, in lower case hexadecimal or unsigned decimal.
+     */
+    public static String format( byte[] value, int offset, int length, boolean decimal )
+    {
+        if ( decimal )
+        {
+            long number = 0;
+            for ( int i = 0; i < length; i++ )
+            {
+                number = number << 8 | ( value[offset + i] & 0xFF );
+            }
+            return Long.toUnsignedString( number );
+        }
+        char[] chars = new char[length * 2];
+        for ( int i = 0; i < length; i++ )
+        {
+            chars[2 * i] = HEX_DIGITS[( value[offset + i] >> 4 ) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[value[offset + i] & 0xF];
+        }
+        return new String( chars );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( !( o instanceof BinaryDigest ) )
+        {
+            return false;
+        }
+        BinaryDigest other = (BinaryDigest) o;
+        return algorithm.equals( other.algorithm ) && decimal == other.decimal && Arrays.equals( value, other.value );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * algorithm.hashCode() + Arrays.hashCode( value );
+    }
+}
@@ -16,12 +16,8 @@
  */
 package net.nicoulaj.maven.plugins.checksum.digest;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
-import java.util.zip.CheckedInputStream;
 
 /**
  * Implementation of {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester} for the CRC32 algorithm.
@@ -48,34 +44,35 @@ public class CRC32FileDigester
     }
 
     /** {@inheritDoc} */
-    public String calculate( File file )
-        throws DigesterException
+    public StreamingDigest newDigest()
     {
-        CheckedInputStream cis;
-        try
+        final CRC32 crc = new CRC32();
+        return new StreamingDigest()
         {
-            cis = new CheckedInputStream( new FileInputStream( file ), new CRC32() );
-        }
-        catch ( FileNotFoundException e )
-        {
-            throw new DigesterException( "Unable to read " + file.getPath() + ": " + e.getMessage() );
-        }
+            public void update( byte[] buffer, int offset, int length )
+            {
+                crc.update( buffer, offset, length );
+            }
 
-        byte[] buf = new byte[STREAMING_BUFFER_SIZE];
-        try
-        {
-            while ( cis.read( buf ) >= 0 )
+            public void update( ByteBuffer buffer )
             {
-                continue;
+                crc.update( buffer );
             }
-        }
-        catch ( IOException e )
-        {
-            throw new DigesterException(
-                "Unable to calculate the " + getAlgorithm() + " hashcode for " + file.getPath() + ": "
-                    + e.getMessage() );
-        }
 
-        return Long.toString( cis.getChecksum().getValue() );
+            public String getValue()
+            {
+                return Long.toString( crc.getValue() );
+            }
+
+            public BinaryDigest getBinaryValue()
+            {
+                return BinaryDigest.ofUnsignedInt( ALGORITHM, crc.getValue() );
+            }
+
+            public void reset()
+            {
+                crc.reset();
+            }
+        };
     }
 }
@@ -21,14 +21,18 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.Security;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Singleton class used to get instances of {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester}.
  *
  * <p>Each {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester} object is a singleton itself.</p>
  *
+ * <p>The factory is thread safe and does not lock: the digesters are kept in a concurrent map, and the algorithms
+ * found to be unsupported are remembered so that they are not looked up again.</p>
+ *
  * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
  * @see FileDigester
  * @since 1.0
@@ -37,14 +41,15 @@ import java.util.Map;
 public class DigesterFactory
 {
     /**
-     * The instance of {@link net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory}.
+     * The map (algorithm, digester).
      */
-    private static DigesterFactory instance;
+    protected final ConcurrentMap<String, FileDigester> digesters =
+        new ConcurrentHashMap<>( Constants.SUPPORTED_ALGORITHMS.length );
 
     /**
-     * The map (algorithm, digester).
+     * The algorithms for which no digester could be found.
      */
-    protected Map<String, FileDigester> digesters = new HashMap<>( Constants.SUPPORTED_ALGORITHMS.length );
+    protected final Set<String> unsupportedAlgorithms = ConcurrentHashMap.newKeySet();
 
     /**
      * Build a new {@link net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory}.
@@ -60,13 +65,9 @@ public class DigesterFactory
      *
      * @return the only instance of {@link net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory}.
      */
-    public static synchronized DigesterFactory getInstance()
+    public static DigesterFactory getInstance()
     {
-        if ( instance == null )
-        {
-            instance = new DigesterFactory();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
     /**
@@ -77,52 +78,79 @@ public class DigesterFactory
      * @throws java.security.NoSuchAlgorithmException if the checksum algorithm is not supported or invalid.
      * @see FileDigester
      */
-    public synchronized FileDigester getFileDigester( String algorithm )
+    public FileDigester getFileDigester( String algorithm )
         throws NoSuchAlgorithmException
     {
         FileDigester digester = digesters.get( algorithm );
+        if ( digester != null )
+        {
+            return digester;
+        }
 
-        if ( digester == null )
+        if ( unsupportedAlgorithms.contains( algorithm ) )
         {
-            // Algorithms with custom digesters
-            if ( CRC32FileDigester.ALGORITHM.equals( algorithm ) )
-            {
-                digester = new CRC32FileDigester();
-            }
+            throw new NoSuchAlgorithmException( algorithm + " MessageDigest not available" );
+        }
 
-            else if ( CksumFileDigester.ALGORITHM.equals( algorithm ) )
-            {
-                digester = new CksumFileDigester();
-            }
+        try
+        {
+            digester = createFileDigester( algorithm );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            unsupportedAlgorithms.add( algorithm );
+            throw e;
+        }
 
-            // Default case: try to use Java Security providers.
-            else
-            {
-                // Try with the current providers.
-                try
-                {
-                    digester = new MessageDigestFileDigester( algorithm );
-                }
-                catch ( NoSuchAlgorithmException e )
-                {
-                    // If the algorithm is not supported by default providers, try with Bouncy Castle.
-                    if ( Security.getProvider( BouncyCastleProvider.PROVIDER_NAME ) == null )
-                    {
-                        Security.addProvider( new BouncyCastleProvider() );
-                        digester = new MessageDigestFileDigester( algorithm );
-                    }
+        // Another thread may have created a digester for the same algorithm meanwhile, keep only one.
+        FileDigester existing = digesters.putIfAbsent( algorithm, digester );
+        return existing != null ? existing : digester;
+    }
 
-                    // If Bouncy Castle was already used, fail.
-                    else
-                    {
-                        throw e;
-                    }
-                }
-            }
+    /**
+     * Create a new {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester} for the given checksum algorithm.
+     *
+     * @param algorithm the target checksum algorithm.
+     * @return a new instance of {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester}.
+     * @throws java.security.NoSuchAlgorithmException if the checksum algorithm is not supported or invalid.
+     */
+    private static FileDigester createFileDigester( String algorithm )
+        throws NoSuchAlgorithmException
+    {
+        // Algorithms with custom digesters
+        if ( CRC32FileDigester.ALGORITHM.equals( algorithm ) )
+        {
+            return new CRC32FileDigester();
+        }
+
+        if ( CksumFileDigester.ALGORITHM.equals( algorithm ) )
+        {
+            return new CksumFileDigester();
+        }
 
-            digesters.put( algorithm, digester );
+        // Default case: try to use Java Security providers.
+        try
+        {
+            return new MessageDigestFileDigester( algorithm );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // If the algorithm is not supported by default providers, try with Bouncy Castle. The provider may have
+            // been registered by another thread since the first attempt, so always try again.
+            if ( Security.getProvider( BouncyCastleProvider.PROVIDER_NAME ) == null )
+            {
+                Security.addProvider( new BouncyCastleProvider() );
+            }
+            return new MessageDigestFileDigester( algorithm );
         }
+    }
 
-        return digester;
+    /**
+     * Holder of the instance of {@link net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory}, initialized
+     * lazily by the class loader.
+     */
+    private static final class InstanceHolder
+    {
+        private static final DigesterFactory INSTANCE = new DigesterFactory();
     }
 }
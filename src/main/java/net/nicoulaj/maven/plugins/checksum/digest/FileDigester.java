@@ -57,4 +57,28 @@ public interface FileDigester
      */
     String calculate( File file )
         throws DigesterException, NoSuchAlgorithmException;
+
+    /**
+     * Create a new digest to which the content of a file can be streamed.
+     *
+     * @return a new digest for the algorithm of this digester.
+     * @throws java.security.NoSuchAlgorithmException in case the given is not supported.
+     * @see net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester
+     * @since 1.12
+     */
+    StreamingDigest newDigest()
+        throws NoSuchAlgorithmException;
+
+    /**
+     * Get the digest pooled for the current thread, reset to its initial state.
+     *
+     * <p>The same instance is returned by each call from a given thread, so it must not be used for more than one file
+     * at a time. Use {@link #newDigest()} to get an independent instance.</p>
+     *
+     * @return the digest of the current thread for the algorithm of this digester.
+     * @throws java.security.NoSuchAlgorithmException in case the given is not supported.
+     * @since 1.12
+     */
+    StreamingDigest getDigest()
+        throws NoSuchAlgorithmException;
 }
@@ -0,0 +1,162 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.digest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the content of files to {@link net.nicoulaj.maven.plugins.checksum.digest.StreamingDigest}s using NIO.
+ *
+ * <p>Files smaller than the mapping threshold are read from a {@link java.nio.channels.FileChannel} into a direct
+ * buffer, bigger files are memory-mapped by windows of {@link #MAPPING_WINDOW_SIZE} bytes. In both cases the buffer is
+ * passed as is to the digests, without copying it to a heap array.</p>
+ *
+ * <p>The direct buffer is allocated once per thread and reused for all the files read by that thread, unless given by
+ * the caller.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see MultiFileDigester
+ * @since 1.12
+ */
+public class FileStreamer
+{
+    /**
+     * The default size from which files are memory-mapped.
+     */
+    public static final long DEFAULT_MAPPING_THRESHOLD = 16L * 1024 * 1024;
+
+    /**
+     * The size of the windows used to map big files.
+     */
+    public static final long MAPPING_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The instance using default settings.
+     */
+    public static final FileStreamer DEFAULT = new FileStreamer( DEFAULT_MAPPING_THRESHOLD );
+
+    /**
+     * The direct buffers pooled for each thread, shared by all instances.
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<ByteBuffer>()
+    {
+        @Override
+        protected ByteBuffer initialValue()
+        {
+            return ByteBuffer.allocateDirect( FileDigester.STREAMING_BUFFER_SIZE );
+        }
+    };
+
+    /**
+     * The size from which files are memory-mapped, a negative value disables memory mapping.
+     */
+    protected final long mappingThreshold;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.digest.FileStreamer}.
+     *
+     * @param mappingThreshold the size from which files are memory-mapped, a negative value disables memory mapping.
+     */
+    public FileStreamer( long mappingThreshold )
+    {
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    /**
+     * Get the size from which files are memory-mapped.
+     *
+     * @return the size in bytes, negative if memory mapping is disabled.
+     */
+    public long getMappingThreshold()
+    {
+        return mappingThreshold;
+    }
+
+    /**
+     * Stream the content of a file to some digests.
+     *
+     * @param file    the file to read.
+     * @param digests the digests to update.
+     * @throws java.io.IOException if there was a problem reading the file.
+     */
+    public void stream( File file, StreamingDigest... digests )
+        throws IOException
+    {
+        stream( file, BUFFERS.get(), digests );
+    }
+
+    /**
+     * Stream the content of a file to some digests, reading it through a given buffer if it is not memory-mapped.
+     *
+     * @param file    the file to read.
+     * @param buffer  the buffer, preferably direct, not used by any other thread meanwhile.
+     * @param digests the digests to update.
+     * @throws java.io.IOException if there was a problem reading the file.
+     * @since 1.12
+     */
+    public void stream( File file, ByteBuffer buffer, StreamingDigest... digests )
+        throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            long size = channel.size();
+            if ( mappingThreshold >= 0 && size >= mappingThreshold )
+            {
+                for ( long position = 0; position < size; position += MAPPING_WINDOW_SIZE )
+                {
+                    long length = Math.min( MAPPING_WINDOW_SIZE, size - position );
+                    update( channel.map( FileChannel.MapMode.READ_ONLY, position, length ), digests );
+                }
+            }
+            else
+            {
+                ( (Buffer) buffer ).clear();
+                while ( channel.read( buffer ) >= 0 )
+                {
+                    ( (Buffer) buffer ).flip();
+                    update( buffer, digests );
+                    ( (Buffer) buffer ).clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Feed the remaining content of a buffer to each digest.
+     *
+     * <p>The {@link java.nio.Buffer} casts keep the bytecode compatible with Java 8, where {@link java.nio.ByteBuffer}
+     * does not override the position/limit methods.</p>
+     *
+     * @param buffer  the buffer.
+     * @param digests the digests to update.
+     */
+    private static void update( ByteBuffer buffer, StreamingDigest... digests )
+    {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        for ( StreamingDigest digest : digests )
+        {
+            ( (Buffer) buffer ).limit( limit ).position( position );
+            digest.update( buffer );
+        }
+    }
+}
@@ -16,11 +16,7 @@
  */
 package net.nicoulaj.maven.plugins.checksum.digest;
 
-import org.bouncycastle.util.encoders.Hex;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -49,36 +45,36 @@ public class MessageDigestFileDigester
     }
 
     /** {@inheritDoc} */
-    public String calculate( File file )
-        throws DigesterException
+    public StreamingDigest newDigest()
+        throws NoSuchAlgorithmException
     {
-        String result;
-
-        try( FileInputStream fis = new FileInputStream( file ) )
+        final MessageDigest messageDigest = MessageDigest.getInstance( algorithm );
+        return new StreamingDigest()
         {
-            MessageDigest messageDigest = MessageDigest.getInstance( algorithm );
+            public void update( byte[] buffer, int offset, int length )
+            {
+                messageDigest.update( buffer, offset, length );
+            }
 
-            // Stream the file contents to the MessageDigest.
-            byte[] buffer = new byte[STREAMING_BUFFER_SIZE];
-            int size = fis.read( buffer, 0, STREAMING_BUFFER_SIZE );
-            while ( size >= 0 )
+            public void update( ByteBuffer buffer )
             {
-                messageDigest.update( buffer, 0, size );
-                size = fis.read( buffer, 0, STREAMING_BUFFER_SIZE );
+                messageDigest.update( buffer );
             }
 
-            result = new String( Hex.encode( messageDigest.digest() ) );
-        }
-        catch ( IOException e )
-        {
-            throw new DigesterException(
-                "Unable to calculate the " + getAlgorithm() + " hashcode for " + file.getPath() + ": "
-                    + e.getMessage() );
-        }
-        catch ( Exception e )
-        {
-            throw new DigesterException( "Unable not read " + file.getPath() + ": " + e.getMessage() );
-        }
-        return result;
+            public String getValue()
+            {
+                return getBinaryValue().toString();
+            }
+
+            public BinaryDigest getBinaryValue()
+            {
+                return new BinaryDigest( algorithm, messageDigest.digest(), false );
+            }
+
+            public void reset()
+            {
+                messageDigest.reset();
+            }
+        };
     }
 }
@@ -0,0 +1,302 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.digest;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Computes the checksums of a file for several algorithms at once.
+ *
+ * <p>The file is read only once, each chunk being fed to the {@link
+ * net.nicoulaj.maven.plugins.checksum.digest.StreamingDigest} of every algorithm. The digests are the ones pooled by
+ * each digester for the current thread, or for threads reading a single file each, such as virtual threads, the ones
+ * of a pool {@link #shared(int) shared} by all the threads.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see FileDigester
+ * @since 1.12
+ */
+public class MultiFileDigester
+{
+    /**
+     * The digesters used, one per algorithm.
+     */
+    protected final List<FileDigester> digesters;
+
+    /**
+     * The streamer used to read the files.
+     */
+    protected final FileStreamer streamer;
+
+    /**
+     * The buffers and digests shared by all the threads, {@code null} to use the ones pooled for each thread.
+     */
+    private final BlockingQueue<Workspace> workspaces;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester}.
+     *
+     * @param digesters the digesters to use, one per algorithm.
+     */
+    public MultiFileDigester( List<FileDigester> digesters )
+    {
+        this( digesters, FileStreamer.DEFAULT );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester}.
+     *
+     * <p>If several digesters are given for the same algorithm, only the last one is used.</p>
+     *
+     * @param digesters the digesters to use, one per algorithm.
+     * @param streamer  the streamer used to read the files.
+     */
+    public MultiFileDigester( List<FileDigester> digesters, FileStreamer streamer )
+    {
+        Map<String, FileDigester> byAlgorithm = new LinkedHashMap<>();
+        for ( FileDigester digester : digesters )
+        {
+            byAlgorithm.put( digester.getAlgorithm(), digester );
+        }
+        this.digesters = Collections.unmodifiableList( new ArrayList<>( byAlgorithm.values() ) );
+        this.streamer = streamer;
+        this.workspaces = null;
+    }
+
+    private MultiFileDigester( MultiFileDigester digester, int poolSize )
+    {
+        this.digesters = digester.digesters;
+        this.streamer = digester.streamer;
+        this.workspaces = new ArrayBlockingQueue<>( Math.max( poolSize, 1 ) );
+    }
+
+    /**
+     * Get a digester for the same algorithms, sharing its buffers and digests between all the threads instead of
+     * pooling them for each thread, so that threads reading a single file each do not allocate them for every file.
+     *
+     * @param poolSize the maximum number of buffers and digests kept, usually the number of files read at once.
+     * @return the digester.
+     */
+    public MultiFileDigester shared( int poolSize )
+    {
+        return new MultiFileDigester( this, poolSize );
+    }
+
+    /**
+     * Get the digesters used.
+     *
+     * @return the digesters, one per algorithm.
+     */
+    public List<FileDigester> getDigesters()
+    {
+        return digesters;
+    }
+
+    /**
+     * Calculate the checksums of a file for all the algorithms.
+     *
+     * @param file the file to compute the checksums for.
+     * @return the checksums, indexed by algorithm, in the order of the digesters.
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException if there was a problem reading the file.
+     * @throws java.security.NoSuchAlgorithmException in case one of the algorithms is not supported.
+     */
+    public Map<String, String> calculate( File file )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        return toHashcodes( digest( file, digesters ) );
+    }
+
+    /**
+     * Calculate the checksums of a file for some of the algorithms.
+     *
+     * @param file       the file to compute the checksums for.
+     * @param algorithms the algorithms to compute, among the ones of the digesters.
+     * @return the checksums, indexed by algorithm, in the order of the digesters.
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException if there was a problem reading the file.
+     * @throws java.security.NoSuchAlgorithmException in case one of the algorithms is not supported.
+     */
+    public Map<String, String> calculate( File file, Collection<String> algorithms )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        return toHashcodes( digest( file, algorithms ) );
+    }
+
+    /**
+     * Calculate the binary checksums of a file for all the algorithms.
+     *
+     * @param file the file to compute the checksums for.
+     * @return the checksums, in the order of the digesters.
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException if there was a problem reading the file.
+     * @throws java.security.NoSuchAlgorithmException in case one of the algorithms is not supported.
+     * @see #calculate(File)
+     */
+    public List<BinaryDigest> digest( File file )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        return digest( file, digesters );
+    }
+
+    /**
+     * Calculate the binary checksums of a file for some of the algorithms.
+     *
+     * @param file       the file to compute the checksums for.
+     * @param algorithms the algorithms to compute, among the ones of the digesters.
+     * @return the checksums, in the order of the digesters.
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException if there was a problem reading the file.
+     * @throws java.security.NoSuchAlgorithmException in case one of the algorithms is not supported.
+     * @see #calculate(File, Collection)
+     */
+    public List<BinaryDigest> digest( File file, Collection<String> algorithms )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        List<FileDigester> selected = new ArrayList<>( algorithms.size() );
+        for ( FileDigester digester : digesters )
+        {
+            if ( algorithms.contains( digester.getAlgorithm() ) )
+            {
+                selected.add( digester );
+            }
+        }
+        return digest( file, selected );
+    }
+
+    /**
+     * Format binary checksums.
+     *
+     * @param digests the checksums.
+     * @return the formatted checksums, indexed by algorithm, in the same order.
+     */
+    public static Map<String, String> toHashcodes( List<BinaryDigest> digests )
+    {
+        Map<String, String> hashcodes = new LinkedHashMap<>();
+        for ( BinaryDigest digest : digests )
+        {
+            hashcodes.put( digest.getAlgorithm(), digest.toString() );
+        }
+        return hashcodes;
+    }
+
+    private List<BinaryDigest> digest( File file, List<FileDigester> digesters )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        if ( workspaces == null )
+        {
+            StreamingDigest[] digests = new StreamingDigest[digesters.size()];
+            for ( int i = 0; i < digests.length; i++ )
+            {
+                digests[i] = digesters.get( i ).getDigest();
+            }
+            return digest( file, null, digests );
+        }
+
+        Workspace workspace = workspaces.poll();
+        if ( workspace == null )
+        {
+            workspace = new Workspace();
+        }
+        try
+        {
+            StreamingDigest[] digests = new StreamingDigest[digesters.size()];
+            for ( int i = 0; i < digests.length; i++ )
+            {
+                digests[i] = workspace.getDigest( digesters.get( i ) );
+            }
+            return digest( file, workspace.buffer, digests );
+        }
+        finally
+        {
+            // Dropped if the pool is full.
+            workspaces.offer( workspace );
+        }
+    }
+
+    private List<BinaryDigest> digest( File file, ByteBuffer buffer, StreamingDigest[] digests )
+        throws DigesterException
+    {
+        try
+        {
+            if ( buffer != null )
+            {
+                streamer.stream( file, buffer, digests );
+            }
+            else
+            {
+                streamer.stream( file, digests );
+            }
+        }
+        catch ( FileNotFoundException | NoSuchFileException e )
+        {
+            throw new DigesterException( "Unable to read " + file.getPath() + ": " + e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new DigesterException( "Unable to calculate the hashcodes for " + file.getPath() + ": " + e.getMessage() );
+        }
+
+        List<BinaryDigest> values = new ArrayList<>( digests.length );
+        for ( StreamingDigest digest : digests )
+        {
+            values.add( digest.getBinaryValue() );
+        }
+        return values;
+    }
+
+    /**
+     * A buffer and a digest per algorithm, used to read one file at a time.
+     */
+    private final class Workspace
+    {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect( FileDigester.STREAMING_BUFFER_SIZE );
+
+        private final StreamingDigest[] digests = new StreamingDigest[digesters.size()];
+
+        /**
+         * Get the digest of a digester, reset to its initial state.
+         *
+         * @param digester the digester, one of the digesters used.
+         * @return the digest.
+         * @throws java.security.NoSuchAlgorithmException in case the algorithm is not supported.
+         */
+        StreamingDigest getDigest( FileDigester digester )
+            throws NoSuchAlgorithmException
+        {
+            int index = digesters.indexOf( digester );
+            if ( digests[index] == null )
+            {
+                digests[index] = digester.newDigest();
+            }
+            else
+            {
+                digests[index].reset();
+            }
+            return digests[index];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.digest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The running state of a checksum computation, to which the content of a file is streamed.
+ *
+ * <p>Instances are created by {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester#newDigest()} or pooled by
+ * {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester#getDigest()}, and are not thread safe.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see FileDigester
+ * @since 1.12
+ */
+public interface StreamingDigest
+{
+    /**
+     * Update the digest with a chunk of the file content.
+     *
+     * @param buffer the buffer holding the data.
+     * @param offset the offset of the data in the buffer.
+     * @param length the length of the data.
+     */
+    void update( byte[] buffer, int offset, int length );
+
+    /**
+     * Update the digest with the remaining content of a buffer.
+     *
+     * <p>After the call, the position of the buffer is its limit.</p>
+     *
+     * @param buffer the buffer holding the data, possibly direct or memory-mapped.
+     */
+    void update( ByteBuffer buffer );
+
+    /**
+     * Complete the computation and get the resulting checksum, formatted as returned by {@link
+     * net.nicoulaj.maven.plugins.checksum.digest.FileDigester#calculate(java.io.File)}.
+     *
+     * <p>The state of the digest is unspecified after this call, until it is {@link #reset()}.</p>
+     *
+     * @return the checksum.
+     */
+    String getValue();
+
+    /**
+     * Complete the computation and get the resulting checksum in binary form, which is cheaper to keep than its
+     * formatted value.
+     *
+     * <p>The state of the digest is unspecified after this call, until it is {@link #reset()}.</p>
+     *
+     * @return the checksum, formatted by its {@link net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest#toString()}
+     * method as by {@link #getValue()}.
+     * @since 1.12
+     */
+    BinaryDigest getBinaryValue();
+
+    /**
+     * Reset the digest to its initial state, so that it can be reused for another file.
+     */
+    void reset();
+}
@@ -0,0 +1,205 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.digest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Selects the algorithms to verify among the ones for which checksums are available.
+ *
+ * <p>The policy is one of:</p>
+ * <ul>
+ * <li>{@code all}: verify all the algorithms,</li>
+ * <li>{@code strongest}: verify only the most collision resistant algorithm,</li>
+ * <li>{@code fastest}: verify only the cheapest algorithm to compute. The non cryptographic checksums ({@code CRC32}
+ * and {@code Cksum}) do not detect deliberate modifications, so they are only chosen if there is no other
+ * algorithm,</li>
+ * <li>a comma separated list of algorithms: verify the ones of the list that are available.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public final class VerificationPolicy
+{
+    /**
+     * The policy verifying all the algorithms.
+     */
+    public static final String ALL = "all";
+
+    /**
+     * The policy verifying only the strongest algorithm.
+     */
+    public static final String STRONGEST = "strongest";
+
+    /**
+     * The policy verifying only the fastest algorithm.
+     */
+    public static final String FASTEST = "fastest";
+
+    /**
+     * The non cryptographic checksums.
+     */
+    private static final List<String> NON_CRYPTOGRAPHIC = Arrays.asList( "CRC32", "Cksum" );
+
+    /**
+     * The algorithms, from the strongest to the weakest: unbroken digests by decreasing size, then the digests with
+     * known weaknesses, then the non cryptographic checksums.
+     */
+    private static final List<String> BY_STRENGTH = Arrays.asList(
+        "SHA3-512", "SHA-512", "BLAKE2B-512", "SKEIN-512-512", "SKEIN-1024-1024", "SKEIN-1024-512", "KECCAK-512",
+        "WHIRLPOOL", "GOST3411-2012-512", "SHA3-384", "SHA-384", "BLAKE2B-384", "SKEIN-512-384", "SKEIN-1024-384",
+        "KECCAK-384", "RIPEMD320", "KECCAK-288", "SHA3-256", "SHA-256", "SHA-512/256", "BLAKE2B-256", "SKEIN-512-256",
+        "SKEIN-256-256", "KECCAK-256", "SM3", "GOST3411-2012-256", "RIPEMD256", "SHA3-224", "SHA-224", "SHA-512/224",
+        "SKEIN-512-224", "SKEIN-256-224", "KECCAK-224", "TIGER", "RIPEMD160", "BLAKE2B-160", "SKEIN-512-160",
+        "SKEIN-256-160", "GOST3411", "SHA-1", "SHA", "RIPEMD128", "SKEIN-512-128", "SKEIN-256-128", "MD5", "MD4",
+        "MD2", "CRC32", "Cksum" );
+
+    /**
+     * The algorithms, from the fastest to the slowest on the JVM.
+     */
+    private static final List<String> BY_SPEED = Arrays.asList(
+        "Cksum", "CRC32", "MD4", "MD5", "SHA-1", "SHA", "BLAKE2B-160", "BLAKE2B-256", "BLAKE2B-384", "BLAKE2B-512",
+        "SHA-512/224", "SHA-512/256", "SHA-384", "SHA-512", "SKEIN-512-128", "SKEIN-512-160", "SKEIN-512-224",
+        "SKEIN-512-256", "SKEIN-512-384", "SKEIN-512-512", "SKEIN-256-128", "SKEIN-256-160", "SKEIN-256-224",
+        "SKEIN-256-256", "SKEIN-1024-384", "SKEIN-1024-512", "SKEIN-1024-1024", "SHA-224", "SHA-256", "RIPEMD128",
+        "RIPEMD256", "RIPEMD160", "RIPEMD320", "TIGER", "SHA3-224", "KECCAK-224", "SHA3-256", "KECCAK-256",
+        "KECCAK-288", "SHA3-384", "KECCAK-384", "SHA3-512", "KECCAK-512", "SM3", "WHIRLPOOL", "GOST3411-2012-256",
+        "GOST3411-2012-512", "GOST3411", "MD2" );
+
+    /**
+     * The policy name, or {@code null} for an explicit list of algorithms.
+     */
+    private final String name;
+
+    /**
+     * The algorithms of an explicit list.
+     */
+    private final List<String> algorithms;
+
+    private VerificationPolicy( String name, List<String> algorithms )
+    {
+        this.name = name;
+        this.algorithms = algorithms;
+    }
+
+    /**
+     * Parse a verification policy.
+     *
+     * @param policy {@code all}, {@code strongest}, {@code fastest}, or a comma separated list of algorithms.
+     * @return the verification policy.
+     * @throws java.lang.IllegalArgumentException if the policy is empty.
+     */
+    public static VerificationPolicy parse( String policy )
+    {
+        String trimmed = policy == null ? "" : policy.trim();
+        String lowerCase = trimmed.toLowerCase( Locale.ROOT );
+        if ( ALL.equals( lowerCase ) || STRONGEST.equals( lowerCase ) || FASTEST.equals( lowerCase ) )
+        {
+            return new VerificationPolicy( lowerCase, Collections.<String>emptyList() );
+        }
+
+        List<String> algorithms = new ArrayList<>();
+        for ( String algorithm : trimmed.split( "," ) )
+        {
+            if ( !algorithm.trim().isEmpty() )
+            {
+                algorithms.add( algorithm.trim() );
+            }
+        }
+        if ( algorithms.isEmpty() )
+        {
+            throw new IllegalArgumentException( "Invalid verification policy '" + policy + "'." );
+        }
+        return new VerificationPolicy( null, Collections.unmodifiableList( algorithms ) );
+    }
+
+    /**
+     * Select the algorithms to verify.
+     *
+     * @param available the algorithms for which checksums are available.
+     * @return the algorithms to verify, in the order of the available ones, empty if none of them matches the policy.
+     */
+    public List<String> select( Collection<String> available )
+    {
+        List<String> selected = new ArrayList<>();
+        if ( name == null )
+        {
+            for ( String algorithm : available )
+            {
+                if ( algorithms.contains( algorithm ) )
+                {
+                    selected.add( algorithm );
+                }
+            }
+        }
+        else if ( ALL.equals( name ) || available.isEmpty() )
+        {
+            selected.addAll( available );
+        }
+        else if ( STRONGEST.equals( name ) )
+        {
+            selected.add( Collections.min( available, byRank( BY_STRENGTH ) ) );
+        }
+        else
+        {
+            List<String> candidates = new ArrayList<>( available );
+            if ( !NON_CRYPTOGRAPHIC.containsAll( candidates ) )
+            {
+                candidates.removeAll( NON_CRYPTOGRAPHIC );
+            }
+            selected.add( Collections.min( candidates, byRank( BY_SPEED ) ) );
+        }
+        return selected;
+    }
+
+    /**
+     * Order algorithms by their rank in a list, the unknown ones last.
+     *
+     * @param ranking the ranking.
+     * @return the comparator.
+     */
+    private static Comparator<String> byRank( final List<String> ranking )
+    {
+        return new Comparator<String>()
+        {
+            public int compare( String a, String b )
+            {
+                return Integer.compare( rank( a ), rank( b ) );
+            }
+
+            private int rank( String algorithm )
+            {
+                int rank = ranking.indexOf( algorithm );
+                return rank < 0 ? ranking.size() : rank;
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+        return name != null ? name : String.join( ",", algorithms );
+    }
+}
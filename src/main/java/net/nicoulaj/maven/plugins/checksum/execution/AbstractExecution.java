@@ -16,9 +16,13 @@
  */
 package net.nicoulaj.maven.plugins.checksum.execution;
 
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.digest.FileStreamer;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -38,6 +42,13 @@ public abstract class AbstractExecution
      */
     protected List<ChecksumFile> files;
 
+    /**
+     * The source of the files used for the execution, {@code null} to use {@link #files}.
+     *
+     * @since 1.12
+     */
+    protected Iterator<ChecksumFile> fileSource;
+
     /**
      * Part of relative path to exclude from file path
      */
@@ -68,6 +79,26 @@ public abstract class AbstractExecution
      */
     protected boolean failIfNoTargets = true;
 
+    /**
+     * The size from which files are memory-mapped.
+     */
+    protected long mappingThreshold = FileStreamer.DEFAULT_MAPPING_THRESHOLD;
+
+    /**
+     * The number of threads used to compute the checksums.
+     */
+    protected int threads = 1;
+
+    /**
+     * Whether each file is computed on its own virtual thread.
+     */
+    protected boolean virtualThreads;
+
+    /**
+     * The cache of the checksums already computed.
+     */
+    protected DigestCache digestCache;
+
     /**
      * {@inheritDoc}
      *
@@ -88,6 +119,18 @@ public abstract class AbstractExecution
         this.files = files;
     }
 
+    /** {@inheritDoc} */
+    public Iterator<ChecksumFile> getFileSource()
+    {
+        return fileSource != null ? fileSource : getFiles().iterator();
+    }
+
+    /** {@inheritDoc} */
+    public void setFileSource( Iterator<ChecksumFile> fileSource )
+    {
+        this.fileSource = fileSource;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -225,6 +268,75 @@ public abstract class AbstractExecution
         this.failIfNoTargets = failIfNoTargets;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public long getMappingThreshold()
+    {
+        return mappingThreshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setMappingThreshold( long mappingThreshold )
+    {
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setThreads( int threads )
+    {
+        this.threads = threads;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setVirtualThreads( boolean virtualThreads )
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DigestCache getDigestCache()
+    {
+        return digestCache;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setDigestCache( DigestCache digestCache )
+    {
+        this.digestCache = digestCache;
+    }
+
+    /**
+     * Create the engine computing the checksums of the files with the settings of this execution.
+     *
+     * @param digester the digester used to compute the checksums.
+     * @return the engine.
+     */
+    protected ParallelDigester createParallelDigester( MultiFileDigester digester )
+    {
+        ParallelDigester parallelDigester = new ParallelDigester( digester, threads, virtualThreads );
+        parallelDigester.setCache( digestCache );
+        return parallelDigester;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -233,7 +345,8 @@ public abstract class AbstractExecution
     public void checkParameters()
         throws ExecutionException
     {
-        if ( isFailIfNoFiles() && ( files == null || files.isEmpty() ) )
+        // A file source is not drained: this only waits for its first file to be found.
+        if ( isFailIfNoFiles() && ( fileSource != null ? !fileSource.hasNext() : files == null || files.isEmpty() ) )
         {
             throw new ExecutionException( "No file to process." );
         }
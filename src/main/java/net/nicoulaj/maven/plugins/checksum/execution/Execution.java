@@ -16,9 +16,11 @@
  */
 package net.nicoulaj.maven.plugins.checksum.execution;
 
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -45,6 +47,27 @@ public interface Execution
      */
     void setFiles( List<ChecksumFile> files );
 
+    /**
+     * Get the files to be processed by the execution, in the order they are processed.
+     *
+     * @return the source set with {@link #setFileSource(Iterator)}, or else an iterator over {@link #getFiles()}.
+     * @since 1.12
+     */
+    Iterator<ChecksumFile> getFileSource();
+
+    /**
+     * Set a source handing out the files to be processed by the execution, instead of the {@link #getFiles() list of
+     * files}.
+     *
+     * <p>The execution takes the files from the source as it goes, so they can be searched while the first ones are
+     * processed and do not need to be kept all in memory. The source can block until the next file is available; it
+     * is iterated only once and is not closed by the execution.</p>
+     *
+     * @param fileSource the source, {@code null} to process the list of files.
+     * @since 1.12
+     */
+    void setFileSource( Iterator<ChecksumFile> fileSource );
+
 	/**
 	 * Get the part of relative path that will be removed.
 	 *
@@ -177,6 +200,76 @@ public interface Execution
      */
     void setFailIfNoTargets(boolean failIfNoTargets);
 
+    /**
+     * Get the size from which files are memory-mapped instead of being read through a buffer.
+     *
+     * @return the size in bytes, negative if memory mapping is disabled.
+     * @since 1.12
+     */
+    long getMappingThreshold();
+
+    /**
+     * Set the size from which files are memory-mapped instead of being read through a buffer.
+     *
+     * @param mappingThreshold the size in bytes, negative to disable memory mapping.
+     * @since 1.12
+     */
+    void setMappingThreshold( long mappingThreshold );
+
+    /**
+     * Get the number of threads used to compute the checksums.
+     *
+     * @return the number of threads, {@code 1} if files are processed sequentially.
+     * @since 1.12
+     */
+    int getThreads();
+
+    /**
+     * Set the number of threads used to compute the checksums.
+     *
+     * <p>Whatever the number of threads, the targets are written from the thread running the execution, in the order
+     * of the files.</p>
+     *
+     * @param threads the number of threads, {@code 1} to process files sequentially.
+     * @since 1.12
+     */
+    void setThreads( int threads );
+
+    /**
+     * Whether each file is computed on its own virtual thread.
+     *
+     * @return {@code true} if virtual threads are used, in which case {@link #getThreads()} is the maximum number of
+     * files computed at once.
+     * @since 1.12
+     */
+    boolean isVirtualThreads();
+
+    /**
+     * Set whether each file is computed on its own virtual thread, which requires Java 21 or newer.
+     *
+     * @param virtualThreads {@code true} to use virtual threads, in which case {@link #getThreads()} is the maximum
+     *                       number of files computed at once.
+     * @since 1.12
+     * @see net.nicoulaj.maven.plugins.checksum.execution.VirtualThreads#isAvailable()
+     */
+    void setVirtualThreads( boolean virtualThreads );
+
+    /**
+     * Get the cache of the checksums already computed.
+     *
+     * @return the cache, {@code null} if not used.
+     * @since 1.12
+     */
+    DigestCache getDigestCache();
+
+    /**
+     * Set the cache of the checksums already computed, so that only the files which changed are read.
+     *
+     * @param digestCache the cache, {@code null} to compute all the checksums.
+     * @since 1.12
+     */
+    void setDigestCache( DigestCache digestCache );
+
     /**
      * Check that an execution can be run with the {@link #run()} method.
      *
@@ -16,9 +16,11 @@
  */
 package net.nicoulaj.maven.plugins.checksum.execution;
 
-import net.nicoulaj.maven.plugins.checksum.digest.DigesterException;
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
 import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
 import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.FileStreamer;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTargetCloseException;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTargetInitializationException;
@@ -26,6 +28,11 @@ import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTargetWrite
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An implementation of {@link net.nicoulaj.maven.plugins.checksum.execution.Execution} that throws exceptions when it
@@ -50,6 +57,34 @@ public class FailOnErrorExecution
         // Check parameters are initialized.
         checkParameters();
 
+        // Process files, then close the targets initialized, even on errors.
+        List<ExecutionTarget> initialized = new ArrayList<>();
+        ExecutionException closeError;
+        try
+        {
+            run( initialized );
+        }
+        finally
+        {
+            closeError = close( initialized );
+        }
+
+        // Only report an error closing the targets if it is the first one.
+        if ( closeError != null )
+        {
+            throw closeError;
+        }
+    }
+
+    /**
+     * Initialize the targets and process the files.
+     *
+     * @param initialized the list to which the targets are added once initialized.
+     * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException if any.
+     */
+    private void run( List<ExecutionTarget> initialized )
+        throws ExecutionException
+    {
         // Initialize targets.
         for ( ExecutionTarget target : getTargets() )
         {
@@ -61,25 +96,40 @@ public class FailOnErrorExecution
             {
                 throw new ExecutionException( e.getMessage() );
             }
+            initialized.add( target );
         }
 
-        // Process files.
-        for ( ChecksumFile file : getFiles() )
+        // Get a digester computing all the algorithms in one pass.
+        Map<String, FileDigester> digesters = new LinkedHashMap<>();
+        for ( String algorithm : getAlgorithms() )
         {
-            for ( String algorithm : getAlgorithms() )
+            try
             {
-                try
-                {
-                    // Calculate the hash for the file/algo
-                    FileDigester digester = DigesterFactory.getInstance().getFileDigester( algorithm );
-                    String hash = digester.calculate( file.getFile() );
+                digesters.put( algorithm, DigesterFactory.getInstance().getFileDigester( algorithm ) );
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                throw new ExecutionException( "Unsupported algorithm " + algorithm + "." );
+            }
+        }
+        MultiFileDigester digester = new MultiFileDigester( new ArrayList<>( digesters.values() ),
+                                                           new FileStreamer( mappingThreshold ) );
 
-                    // Write it to each target defined
+        // Process files, stopping at the first error.
+        final Set<String> algorithms = digesters.keySet();
+        createParallelDigester( digester ).run( getFileSource(), new ParallelDigester.Callback()
+        {
+            public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                throws ExecutionException
+            {
+                // Write them to each target defined
+                for ( Map.Entry<String, String> hash : hashes.entrySet() )
+                {
                     for ( ExecutionTarget target : getTargets() )
                     {
                         try
                         {
-                            target.write( hash, file, algorithm );
+                            target.write( hash.getValue(), file, hash.getKey() );
                         }
                         catch ( ExecutionTargetWriteException e )
                         {
@@ -87,20 +137,52 @@ public class FailOnErrorExecution
                         }
                     }
                 }
-                catch ( NoSuchAlgorithmException e )
+            }
+
+            public void onDigests( ChecksumFile file, List<BinaryDigest> digests )
+                throws ExecutionException
+            {
+                // Hand them to each target defined without formatting them, the targets format them if needed
+                for ( BinaryDigest digest : digests )
                 {
-                    throw new ExecutionException( "Unsupported algorithm " + algorithm + "." );
+                    for ( ExecutionTarget target : getTargets() )
+                    {
+                        try
+                        {
+                            target.write( digest, file );
+                        }
+                        catch ( ExecutionTargetWriteException e )
+                        {
+                            throw new ExecutionException( e.getMessage() );
+                        }
+                    }
                 }
-                catch ( DigesterException e )
+            }
+
+            public void onError( ChecksumFile file, Exception error )
+                throws ExecutionException
+            {
+                if ( error instanceof NoSuchAlgorithmException )
                 {
-                    throw new ExecutionException(
-                        "Unable to calculate " + algorithm + " hash for " + file.getFile().getName() + ": " + e.getMessage() );
+                    throw new ExecutionException( "Unsupported algorithm: " + error.getMessage() );
                 }
+                throw new ExecutionException(
+                    "Unable to calculate " + algorithms + " hashes for " + file.getFile().getName() + ": "
+                        + error.getMessage() );
             }
-        }
+        } );
+    }
 
-        // Close targets.
-        for ( ExecutionTarget target : getTargets() )
+    /**
+     * Close targets, going on with the next ones on errors.
+     *
+     * @param targets the targets.
+     * @return the first error, {@code null} if all the targets were closed.
+     */
+    private ExecutionException close( List<ExecutionTarget> targets )
+    {
+        ExecutionException error = null;
+        for ( ExecutionTarget target : targets )
         {
             try
             {
@@ -108,8 +190,12 @@ public class FailOnErrorExecution
             }
             catch ( ExecutionTargetCloseException e )
             {
-                throw new ExecutionException( e.getMessage() );
+                if ( error == null )
+                {
+                    error = new ExecutionException( e.getMessage() );
+                }
             }
         }
+        return error;
     }
 }
@@ -16,15 +16,22 @@
  */
 package net.nicoulaj.maven.plugins.checksum.execution;
 
-import net.nicoulaj.maven.plugins.checksum.digest.DigesterException;
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
 import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
 import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.FileStreamer;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget;
 import net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTargetWriteException;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 import org.apache.maven.plugin.logging.Log;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * An implementation of {@link net.nicoulaj.maven.plugins.checksum.execution.Execution} that tries to finish as much as
@@ -91,52 +98,100 @@ public class NeverFailExecution
             }
         }
 
-        // Process files
-        for ( ChecksumFile file : files )
+        // Get a digester computing all the supported algorithms in one pass.
+        Map<String, FileDigester> digesters = new LinkedHashMap<>();
+        for ( String algorithm : getAlgorithms() )
         {
-            for ( String algorithm : getAlgorithms() )
+            try
             {
-                try
-                {
-                    // Calculate the hash for the file/algo
-                    FileDigester digester = DigesterFactory.getInstance().getFileDigester( algorithm );
-                    String hash = digester.calculate( file.getFile() );
+                digesters.put( algorithm, DigesterFactory.getInstance().getFileDigester( algorithm ) );
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                logger.warn( "Unsupported algorithm " + algorithm + "." );
+            }
+        }
+        MultiFileDigester digester = new MultiFileDigester( new ArrayList<>( digesters.values() ),
+                                                           new FileStreamer( mappingThreshold ) );
 
-                    // Write it to each target defined
-                    for ( ExecutionTarget target : getTargets() )
+        // Process files, going on with the next ones on errors.
+        final Set<String> algorithms = digesters.keySet();
+        final List<String> errors = new ArrayList<>();
+        try
+        {
+            createParallelDigester( digester ).run( getFileSource(), new ParallelDigester.Callback()
+            {
+                public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                {
+                    // Write them to each target defined
+                    for ( Map.Entry<String, String> hash : hashes.entrySet() )
                     {
-                        try
+                        for ( ExecutionTarget target : getTargets() )
                         {
-                            target.write( hash, file, algorithm );
-                        }
-                        catch ( ExecutionTargetWriteException e )
-                        {
-                            logger.warn( e.getMessage() );
+                            try
+                            {
+                                target.write( hash.getValue(), file, hash.getKey() );
+                            }
+                            catch ( ExecutionTargetWriteException e )
+                            {
+                                logger.warn( e.getMessage() );
+                            }
                         }
                     }
                 }
-                catch ( NoSuchAlgorithmException e )
+
+                public void onDigests( ChecksumFile file, List<BinaryDigest> digests )
                 {
-                    logger.warn( "Unsupported algorithm " + algorithm + "." );
+                    // Hand them to each target defined without formatting them, the targets format them if needed
+                    for ( BinaryDigest digest : digests )
+                    {
+                        for ( ExecutionTarget target : getTargets() )
+                        {
+                            try
+                            {
+                                target.write( digest, file );
+                            }
+                            catch ( ExecutionTargetWriteException e )
+                            {
+                                logger.warn( e.getMessage() );
+                            }
+                        }
+                    }
                 }
-                catch ( DigesterException e )
+
+                public void onError( ChecksumFile file, Exception error )
                 {
-                    logger.warn(
-                        "Unable to calculate " + algorithm + " hash for " + file.getFile().getName() + ": " + e.getMessage() );
+                    String message = error instanceof NoSuchAlgorithmException
+                        ? "Unsupported algorithm: " + error.getMessage()
+                        : "Unable to calculate " + algorithms + " hashes for " + file.getFile().getName() + ": "
+                            + error.getMessage();
+                    logger.warn( message );
+                    errors.add( message );
                 }
+            } );
+            if ( errors.size() > 1 )
+            {
+                logger.warn( "Unable to calculate the hashes of " + errors.size() + " files." );
             }
         }
-
-        // Close targets
-        for ( ExecutionTarget target : getTargets() )
+        catch ( ExecutionException e )
         {
-            try
-            {
-                target.close( subPath );
-            }
-            catch ( Exception e )
+            // Never thrown, the callback does not fail.
+            logger.error( e.getMessage() );
+        }
+        finally
+        {
+            // Close targets, even on unexpected errors.
+            for ( ExecutionTarget target : getTargets() )
             {
-                logger.warn( e.getMessage() );
+                try
+                {
+                    target.close( subPath );
+                }
+                catch ( Exception e )
+                {
+                    logger.warn( e.getMessage() );
+                }
             }
         }
     }
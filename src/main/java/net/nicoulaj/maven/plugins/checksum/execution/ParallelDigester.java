@@ -0,0 +1,596 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.execution;
+
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterException;
+import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Computes the checksums of a list of files on several threads, and hands the results back in the order of the files.
+ *
+ * <p>The checksums are computed on a {@link java.util.concurrent.ForkJoinPool}, or on virtual threads for I/O bound
+ * workloads such as network file systems. In both cases, the {@link Callback} is always
+ * invoked on the calling thread, in the order of the files, so the targets written from it do not need to be thread
+ * safe and produce the same output as a sequential run. At most a few files per thread are computed ahead of the one
+ * being handed back, which bounds the memory used by pending results.</p>
+ *
+ * <p>Paths leading to the same file, such as hard links or symbolic links to a file also in the list, are read only
+ * once when they were found by scanning file sets, and so are the same paths listed several times: the checksums
+ * computed for the first path are handed back for the others. Files with the same content but distinct on disk are
+ * still all read, as only reading them whole tells whether they are identical.</p>
+ *
+ * <p>If the callback throws an exception, the files not computed yet are cancelled and the exception is propagated.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester
+ * @since 1.12
+ */
+public class ParallelDigester
+{
+    /**
+     * The number of files computed ahead per thread.
+     */
+    private static final int FILES_AHEAD_PER_THREAD = 4;
+
+    /**
+     * The number of most recent files remembered to find other paths leading to them, which bounds the memory used
+     * whatever the number of files.
+     */
+    private static final int SAME_FILES_WINDOW = 16384;
+
+    /**
+     * The number of seconds to wait for the computations still running when a run stops.
+     */
+    private static final long TERMINATION_TIMEOUT = 60L;
+
+    /**
+     * The locks held while computing checksums missing from a cache, indexed by file path, shared by all instances so
+     * that executions running in parallel, such as reactor modules built with {@code -T}, read each file only once.
+     */
+    private static final ConcurrentMap<String, ReentrantLock> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the results of the computation of each file.
+     */
+    public interface Callback
+    {
+        /**
+         * Handle the checksums computed for a file.
+         *
+         * @param file   the file.
+         * @param hashes the checksums, indexed by algorithm.
+         * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException to stop the computation.
+         */
+        void onHashes( ChecksumFile file, Map<String, String> hashes )
+            throws ExecutionException;
+
+        /**
+         * Handle the binary checksums computed for a file. The default implementation formats them and calls {@link
+         * #onHashes(ChecksumFile, Map)}, callbacks keeping the checksums should override it to avoid formatting them.
+         *
+         * @param file    the file.
+         * @param digests the checksums, in the order of the digesters.
+         * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException to stop the computation.
+         * @since 1.12
+         */
+        default void onDigests( ChecksumFile file, List<BinaryDigest> digests )
+            throws ExecutionException
+        {
+            onHashes( file, MultiFileDigester.toHashcodes( digests ) );
+        }
+
+        /**
+         * Handle an error while computing the checksums of a file.
+         *
+         * @param file  the file.
+         * @param error the error, either a {@link net.nicoulaj.maven.plugins.checksum.digest.DigesterException} or a
+         *              {@link java.security.NoSuchAlgorithmException}.
+         * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException to stop the computation.
+         */
+        void onError( ChecksumFile file, Exception error )
+            throws ExecutionException;
+    }
+
+    /**
+     * The digester used to compute the checksums.
+     */
+    protected final MultiFileDigester digester;
+
+    /**
+     * The number of threads used, or the maximum number of files computed at once on virtual threads.
+     */
+    protected final int threads;
+
+    /**
+     * Whether each file is computed on its own virtual thread.
+     */
+    protected final boolean virtualThreads;
+
+    /**
+     * The cache of the checksums already computed, {@code null} if not used.
+     */
+    protected DigestCache cache;
+
+    /**
+     * The computations of the most recent files, indexed by the key read when the file was scanned, or else by its
+     * absolute path.
+     */
+    private final Map<Object, FutureTask<Result>> sameFiles = Collections.synchronizedMap(
+        new LinkedHashMap<Object, FutureTask<Result>>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Object, FutureTask<Result>> eldest )
+            {
+                return size() > SAME_FILES_WINDOW;
+            }
+        } );
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester}.
+     *
+     * @param digester the digester used to compute the checksums.
+     * @param threads  the number of threads used, {@code 1} or less to compute the checksums on the calling thread.
+     */
+    public ParallelDigester( MultiFileDigester digester, int threads )
+    {
+        this( digester, threads, false );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester}.
+     *
+     * @param digester       the digester used to compute the checksums.
+     * @param threads        the number of threads used, or the maximum number of files computed at once if using
+     *                       virtual threads, {@code 1} or less to compute the checksums on the calling thread.
+     * @param virtualThreads whether each file is computed on its own virtual thread, which requires Java 21 or newer.
+     * @see net.nicoulaj.maven.plugins.checksum.execution.VirtualThreads#isAvailable()
+     */
+    public ParallelDigester( MultiFileDigester digester, int threads, boolean virtualThreads )
+    {
+        // Virtual threads read a single file each, so the buffers and digests pooled per thread would not be reused.
+        this.digester = virtualThreads && threads > 1 ? digester.shared( threads ) : digester;
+        this.threads = threads;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Get the cache of the checksums already computed.
+     *
+     * @return the cache, {@code null} if not used.
+     */
+    public DigestCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * Set the cache of the checksums already computed. Only the checksums missing from the cache are computed, and
+     * then added to it.
+     *
+     * @param cache the cache, {@code null} to compute all the checksums.
+     */
+    public void setCache( DigestCache cache )
+    {
+        this.cache = cache;
+    }
+
+    /**
+     * Compute the checksums of some files.
+     *
+     * @param files    the files.
+     * @param callback the callback receiving the results, in the order of the files.
+     * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException if thrown by the callback.
+     */
+    public void run( Iterable<ChecksumFile> files, Callback callback )
+        throws ExecutionException
+    {
+        run( files.iterator(), callback );
+    }
+
+    /**
+     * Compute the checksums of the files handed out by a source.
+     *
+     * <p>The files are taken from the source as the computations progress, at most a few files per thread ahead of
+     * the results handed to the callback, so the source can still be searching the next files.</p>
+     *
+     * @param files    the source of the files, which may block until the next file is available.
+     * @param callback the callback receiving the results, in the order of the files.
+     * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException if thrown by the callback.
+     * @since 1.12
+     */
+    public void run( Iterator<ChecksumFile> files, Callback callback )
+        throws ExecutionException
+    {
+        if ( threads <= 1 )
+        {
+            while ( files.hasNext() )
+            {
+                compute( files.next() ).handle( callback );
+            }
+            return;
+        }
+
+        ExecutorService executor = virtualThreads ? VirtualThreads.newExecutor() : new ForkJoinPool( threads );
+        int maxPending = virtualThreads ? threads : threads * FILES_AHEAD_PER_THREAD;
+        Deque<Future<Result>> pending = new ArrayDeque<>();
+        try
+        {
+            while ( !pending.isEmpty() || files.hasNext() )
+            {
+                while ( pending.size() < maxPending && files.hasNext() )
+                {
+                    final ChecksumFile file = files.next();
+                    pending.add( executor.submit( new Callable<Result>()
+                    {
+                        public Result call()
+                        {
+                            return compute( file );
+                        }
+                    } ) );
+                }
+                await( pending.poll() ).handle( callback );
+            }
+        }
+        finally
+        {
+            for ( Future<Result> task : pending )
+            {
+                task.cancel( false );
+            }
+            executor.shutdownNow();
+            awaitTermination( executor );
+        }
+    }
+
+    /**
+     * Wait for the computations still running to stop, so that none of them writes to the cache or holds a lock on a
+     * file once the run is over. Computations blocked for longer than {@link #TERMINATION_TIMEOUT} seconds, for
+     * example on an unresponsive network file system, are left behind rather than hanging the build.
+     *
+     * @param executor the executor, already shut down.
+     */
+    private static void awaitTermination( ExecutorService executor )
+    {
+        try
+        {
+            executor.awaitTermination( TERMINATION_TIMEOUT, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait for the computation of a file to complete.
+     *
+     * @param task the task computing the file.
+     * @return the result of the computation.
+     * @throws net.nicoulaj.maven.plugins.checksum.execution.ExecutionException if the thread was interrupted.
+     */
+    private static Result await( Future<Result> task )
+        throws ExecutionException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException( "Interrupted while computing the checksums." );
+        }
+        catch ( java.util.concurrent.ExecutionException e )
+        {
+            throw rethrow( e );
+        }
+    }
+
+    /**
+     * Propagate the failure of a computation. As {@link #computeFile(ChecksumFile)} captures the checked exceptions,
+     * it is an unexpected runtime failure.
+     *
+     * @param e the failure.
+     * @return never returns, declared so that callers can throw it.
+     */
+    private static RuntimeException rethrow( java.util.concurrent.ExecutionException e )
+    {
+        Throwable cause = e.getCause();
+        if ( cause instanceof Error )
+        {
+            throw (Error) cause;
+        }
+        throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException( cause );
+    }
+
+    /**
+     * Compute the checksums of a file, reusing the result of another path leading to the same file if any.
+     *
+     * @param file the file.
+     * @return the result of the computation.
+     */
+    private Result compute( final ChecksumFile file )
+    {
+        Object key = getFileKey( file );
+        FutureTask<Result> task = new FutureTask<>( new Callable<Result>()
+        {
+            public Result call()
+            {
+                return computeFile( file );
+            }
+        } );
+        FutureTask<Result> first = sameFiles.putIfAbsent( key, task );
+        if ( first == null )
+        {
+            task.run();
+            return join( task );
+        }
+        Result result = join( first );
+        if ( result == null || result.error != null )
+        {
+            // Read this path too, so that a failure is reported with it.
+            return computeFile( file );
+        }
+        return new Result( file, result.digests, result.hashes, null );
+    }
+
+    /**
+     * Get the key identifying a file, without accessing the file system: the files not scanned, such as artifacts,
+     * are not worth an extra read of their attributes, as only the same path can lead to the same file.
+     *
+     * @param file the file.
+     * @return the key read when the file was scanned, or else its absolute path.
+     */
+    private static Object getFileKey( ChecksumFile file )
+    {
+        Object key = file.getFileKey();
+        return key != null ? key : file.getFile().getAbsolutePath();
+    }
+
+    /**
+     * Wait for the computation of a file, run by this thread or another one.
+     *
+     * @param task the computation.
+     * @return the result of the computation, {@code null} if interrupted.
+     */
+    private static Result join( FutureTask<Result> task )
+    {
+        try
+        {
+            return task.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch ( java.util.concurrent.ExecutionException e )
+        {
+            throw rethrow( e );
+        }
+    }
+
+    /**
+     * Compute the checksums of a file, capturing the errors.
+     *
+     * @param file the file.
+     * @return the result of the computation.
+     */
+    private Result computeFile( ChecksumFile file )
+    {
+        try
+        {
+            return cache != null ? computeCached( file )
+                                 : new Result( file, digester.digest( file.getFile() ), null, null );
+        }
+        catch ( DigesterException | NoSuchAlgorithmException e )
+        {
+            return new Result( file, null, null, e );
+        }
+    }
+
+    /**
+     * Get the checksums of a file from the cache, computing only the missing ones.
+     *
+     * @param checksumFile the file.
+     * @return the result of the computation.
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException if there was a problem reading the file.
+     * @throws java.security.NoSuchAlgorithmException in case one of the algorithms is not supported.
+     */
+    private Result computeCached( ChecksumFile checksumFile )
+        throws DigesterException, NoSuchAlgorithmException
+    {
+        File file = checksumFile.getFile();
+        // Take the identity before reading the content, so a concurrent modification is never cached as unchanged,
+        // reusing the attributes read when the file was scanned if it was.
+        FileIdentity identity = checksumFile.getIdentity();
+        try
+        {
+            if ( identity == null )
+            {
+                identity = FileIdentity.of( file );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new DigesterException( "Unable to read " + file.getPath() + ": " + e.getMessage() );
+        }
+
+        BinaryDigest[] digests = new BinaryDigest[digester.getDigesters().size()];
+        String[] texts = new String[digests.length];
+        List<String> missing = getCached( identity, digests, texts );
+        if ( missing.isEmpty() )
+        {
+            return toResult( checksumFile, digests, texts );
+        }
+
+        // Wait for any other thread computing the same file, then look up the cache again.
+        ReentrantLock lock = new ReentrantLock();
+        lock.lock();
+        try
+        {
+            ReentrantLock other;
+            while ( ( other = IN_FLIGHT.putIfAbsent( identity.getPath(), lock ) ) != null )
+            {
+                other.lock();
+                other.unlock();
+            }
+            try
+            {
+                missing = getCached( identity, digests, texts );
+                if ( !missing.isEmpty() )
+                {
+                    Iterator<BinaryDigest> computed = digester.digest( file, missing ).iterator();
+                    for ( int i = 0; i < digests.length; i++ )
+                    {
+                        if ( digests[i] == null && texts[i] == null )
+                        {
+                            digests[i] = computed.next();
+                            cache.put( identity, digests[i].getAlgorithm(), digests[i].toString() );
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                IN_FLIGHT.remove( identity.getPath(), lock );
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        return toResult( checksumFile, digests, texts );
+    }
+
+    /**
+     * Get the checksums of a file available from the cache.
+     *
+     * @param identity the identity of the file.
+     * @param digests  the array to fill with the checksums, in the order of the digesters, {@code null} for the
+     *                 missing ones and the ones cached in another format.
+     * @param texts    the array to fill with the checksums cached in another format than the one of their algorithm,
+     *                 which are handed as they are.
+     * @return the algorithms missing from the cache.
+     */
+    private List<String> getCached( FileIdentity identity, BinaryDigest[] digests, String[] texts )
+    {
+        List<String> missing = new ArrayList<>();
+        List<FileDigester> digesters = digester.getDigesters();
+        for ( int i = 0; i < digests.length; i++ )
+        {
+            String algorithm = digesters.get( i ).getAlgorithm();
+            String hash = cache.get( identity, algorithm );
+            digests[i] = hash != null ? BinaryDigest.parse( algorithm, hash ) : null;
+            texts[i] = digests[i] == null || !digests[i].toString().equals( hash ) ? hash : null;
+            if ( hash == null )
+            {
+                missing.add( algorithm );
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Build the result of a file, handed in binary form unless a checksum was cached in another format.
+     */
+    private Result toResult( ChecksumFile file, BinaryDigest[] digests, String[] texts )
+    {
+        for ( String text : texts )
+        {
+            if ( text != null )
+            {
+                Map<String, String> hashes = new LinkedHashMap<>();
+                for ( int i = 0; i < digests.length; i++ )
+                {
+                    hashes.put( digester.getDigesters().get( i ).getAlgorithm(),
+                                texts[i] != null ? texts[i] : digests[i].toString() );
+                }
+                return new Result( file, null, hashes, null );
+            }
+        }
+        return new Result( file, Arrays.asList( digests ), null, null );
+    }
+
+    /**
+     * The result of the computation of the checksums of a file.
+     */
+    private static final class Result
+    {
+        private final ChecksumFile file;
+
+        private final List<BinaryDigest> digests;
+
+        private final Map<String, String> hashes;
+
+        private final Exception error;
+
+        private Result( ChecksumFile file, List<BinaryDigest> digests, Map<String, String> hashes, Exception error )
+        {
+            this.file = file;
+            this.digests = digests;
+            this.hashes = hashes;
+            this.error = error;
+        }
+
+        private void handle( Callback callback )
+            throws ExecutionException
+        {
+            if ( error != null )
+            {
+                callback.onError( file, error );
+            }
+            else if ( hashes != null )
+            {
+                callback.onHashes( file, hashes );
+            }
+            else
+            {
+                callback.onDigests( file, digests );
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.execution;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual threads of Java 21 and newer, from code compiled for Java 8.
+ *
+ * <p>The executor factory is looked up by reflection and tried once, so the plugin still runs on older JVMs, where
+ * virtual threads are reported as unavailable. This includes Java 19 and 20, where the factory exists but fails unless
+ * preview features are enabled.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public final class VirtualThreads
+{
+    /**
+     * The {@code Executors.newVirtualThreadPerTaskExecutor()} method, {@code null} if not available or not usable.
+     */
+    private static final Method NEW_EXECUTOR = findNewExecutor();
+
+    private VirtualThreads()
+    {
+    }
+
+    /**
+     * Check whether virtual threads are supported by the running JVM.
+     *
+     * @return {@code true} if running on Java 21 or newer, or on Java 19 or 20 with preview features enabled.
+     */
+    public static boolean isAvailable()
+    {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Create an executor running each task on a new virtual thread.
+     *
+     * @return the new executor.
+     * @throws java.lang.UnsupportedOperationException if virtual threads are not supported by the running JVM.
+     */
+    public static ExecutorService newExecutor()
+    {
+        if ( NEW_EXECUTOR == null )
+        {
+            throw new UnsupportedOperationException( "Virtual threads require Java 21 or newer." );
+        }
+        try
+        {
+            return (ExecutorService) NEW_EXECUTOR.invoke( null );
+        }
+        catch ( IllegalAccessException | InvocationTargetException e )
+        {
+            throw new UnsupportedOperationException( "Unable to create virtual threads: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Look up the executor factory, and check it can be used by creating an executor.
+     *
+     * @return the factory, {@code null} if missing or failing.
+     */
+    private static Method findNewExecutor()
+    {
+        try
+        {
+            Method newExecutor = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            ( (ExecutorService) newExecutor.invoke( null ) ).shutdown();
+            return newExecutor;
+        }
+        catch ( NoSuchMethodException | IllegalAccessException | InvocationTargetException
+            | UnsupportedOperationException e )
+        {
+            return null;
+        }
+    }
+}
@@ -22,17 +22,24 @@ package net.nicoulaj.maven.plugins.checksum.execution.target;
 
 
 import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
-import java.util.*;
+import java.util.Map;
+import java.util.SortedSet;
 
 /**
  * An {@link net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget} that writes digests to a CSV file.
  *
+ * <p>The digests are sorted within a memory limit, spilling to temporary files if needed, and the summary is streamed
+ * to the file.</p>
+ *
  * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
  * @since 1.0
  * @version $Id: $Id
@@ -55,20 +62,52 @@ public class CsvSummaryFileTarget
      */
     public static final String CSV_COMMENT_MARKER = "#";
 
+    /**
+     * The header of the optional column holding the size of the files, in bytes.
+     *
+     * @since 1.12
+     */
+    public static final String CSV_SIZE_COLUMN = "Size";
+
+    /**
+     * The header of the optional column holding the last modification time of the files, in milliseconds since the
+     * epoch.
+     *
+     * @since 1.12
+     */
+    public static final String CSV_LAST_MODIFIED_COLUMN = "LastModified";
+
     /**
      * Encoding to use for generated files.
      */
     protected final String encoding;
 
     /**
-     * The association file =&gt; (algorithm,hashcode).
+     * The digests written, sorted when the target is closed.
      */
-    protected Map<ChecksumFile, Map<String, String>> filesHashcodes;
+    SummarySorter sorter;
 
     /**
-     * The set of algorithms encountered.
+     * The estimated memory, in bytes, from which the digests are spilled to temporary files.
+     *
+     * @since 1.12
      */
-    protected SortedSet<String> algorithms;
+    protected long memoryLimit = SummarySorter.DEFAULT_MEMORY_LIMIT;
+
+    /**
+     * The directory in which the temporary files are created, {@code null} for the default temporary directory of the
+     * system.
+     *
+     * @since 1.12
+     */
+    protected File temporaryDirectory;
+
+    /**
+     * The results shared with the other summary targets, {@code null} if not shared.
+     *
+     * @since 1.12
+     */
+    protected SharedSummary sharedSummary;
 
     /**
      * The target file where the summary is written.
@@ -82,6 +121,20 @@ public class CsvSummaryFileTarget
      */
     protected final Iterable<? extends ArtifactListener> artifactListeners;
 
+    /**
+     * Indicates whether the size of the files is written.
+     *
+     * @since 1.12
+     */
+    protected final boolean includeSize;
+
+    /**
+     * Indicates whether the last modification time of the files is written.
+     *
+     * @since 1.12
+     */
+    protected final boolean includeLastModified;
+
     /**
      * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget}.
      *
@@ -90,36 +143,100 @@ public class CsvSummaryFileTarget
      * @param artifactListeners listeners which are notified every time a CSV file is created
      */
     public CsvSummaryFileTarget(File summaryFile, String encoding, Iterable<? extends ArtifactListener> artifactListeners)
+    {
+        this( summaryFile, encoding, artifactListeners, false, false );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget}.
+     *
+     * @param summaryFile         the file to which the summary should be written.
+     * @param encoding            the encoding to use for generated files.
+     * @param artifactListeners   listeners which are notified every time a CSV file is created
+     * @param includeSize         whether a column with the size of the files is written.
+     * @param includeLastModified whether a column with the last modification time of the files is written.
+     * @since 1.12
+     */
+    public CsvSummaryFileTarget( File summaryFile, String encoding,
+                                 Iterable<? extends ArtifactListener> artifactListeners, boolean includeSize,
+                                 boolean includeLastModified )
     {
         this.summaryFile = summaryFile;
         this.encoding = encoding;
         this.artifactListeners = artifactListeners;
+        this.includeSize = includeSize;
+        this.includeLastModified = includeLastModified;
+    }
+
+    /**
+     * Set the estimated memory from which the digests are spilled to temporary files.
+     *
+     * @param memoryLimit the limit, in bytes.
+     * @since 1.12
+     */
+    public void setMemoryLimit( long memoryLimit )
+    {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Set the directory in which the temporary files are created when the digests are spilled.
+     *
+     * @param temporaryDirectory the directory, {@code null} for the default temporary directory of the system.
+     * @since 1.12
+     */
+    public void setTemporaryDirectory( File temporaryDirectory )
+    {
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    /**
+     * Share the results with other summary targets, so they are kept and sorted once for all of them.
+     *
+     * @param sharedSummary the shared results, {@code null} to keep them for this target only.
+     * @since 1.12
+     */
+    public void setSharedSummary( SharedSummary sharedSummary )
+    {
+        this.sharedSummary = sharedSummary;
     }
 
     /** {@inheritDoc} */
     @Override
     public void init()
     {
-        filesHashcodes = new HashMap<>();
-        algorithms = new TreeSet<>();
+        sorter = sharedSummary != null ? sharedSummary.attach( memoryLimit, temporaryDirectory, includeSize, includeLastModified )
+                                       : new SummarySorter( memoryLimit, temporaryDirectory, includeSize, includeLastModified );
     }
 
     /** {@inheritDoc} */
     @Override
     public void write( String digest, ChecksumFile file, String algorithm )
+        throws ExecutionTargetWriteException
     {
-        // Initialize an entry for the file if needed.
-        if ( !filesHashcodes.containsKey( file ) )
+        try
         {
-            filesHashcodes.put( file, new HashMap<String, String>() );
+            sorter.add( file, algorithm, digest );
         }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetWriteException( "Failed writing to temporary summary file: " + e.getMessage() );
+        }
+    }
 
-        // Store the algorithm => hashcode mapping for this file.
-        Map<String, String> fileHashcodes = filesHashcodes.get( file );
-        fileHashcodes.put( algorithm, digest );
-
-        // Store the algorithm.
-        algorithms.add( algorithm );
+    /** {@inheritDoc} */
+    @Override
+    public void write( BinaryDigest digest, ChecksumFile file )
+        throws ExecutionTargetWriteException
+    {
+        try
+        {
+            sorter.add( file, digest );
+        }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetWriteException( "Failed writing to temporary summary file: " + e.getMessage() );
+        }
     }
 
     /** {@inheritDoc} */
@@ -134,59 +251,91 @@ public class CsvSummaryFileTarget
         }
         catch ( IOException e )
         {
-            throw new ExecutionTargetCloseException( "Could not create summary file parent directory", e );
+            throw discard( new ExecutionTargetCloseException( "Could not create summary file parent directory", e ) );
         }
 
-        StringBuilder sb = new StringBuilder();
-
-        // Write the CSV file header.
-        sb.append( CSV_COMMENT_MARKER ).append( "File" );
-        for ( String algorithm : algorithms )
+        // Write the file sorted by relative path (per globing argument).
+        SortedSet<String> algorithms = sorter.getAlgorithms();
+        try ( SummarySorter sorter = this.sorter;
+              SummarySorter.Rows rows = sorter.sort( subPath );
+              Writer writer = new BufferedWriter( new OutputStreamWriter( Files.newOutputStream( summaryFile.toPath() ),
+                                                                          encoding ) ) )
         {
-            sb.append( CSV_COLUMN_SEPARATOR ).append( algorithm );
-        }
-
-        // Write in sorted order (per globing argument)
-        @SuppressWarnings("unchecked")
-        Map.Entry<ChecksumFile, Map<String, String>>[] entries = filesHashcodes.entrySet().toArray((Map.Entry<ChecksumFile, Map<String, String>>[]) new Map.Entry[0] );
-        Arrays.sort(entries, new Comparator<Map.Entry<ChecksumFile, Map<String, String>>>() {
-            @Override
-            public int compare(Map.Entry<ChecksumFile, Map<String, String>> o1, Map.Entry<ChecksumFile, Map<String, String>> o2) {
-                ChecksumFile f1 = o1.getKey();
-                ChecksumFile f2 = o2.getKey();
-                return f1.getRelativePath(f1, subPath).compareTo(f2.getRelativePath(f2, subPath));
+            // Write the CSV file header.
+            writer.append( CSV_COMMENT_MARKER ).append( "File" );
+            if ( includeSize )
+            {
+                writer.append( CSV_COLUMN_SEPARATOR ).append( CSV_SIZE_COLUMN );
+            }
+            if ( includeLastModified )
+            {
+                writer.append( CSV_COLUMN_SEPARATOR ).append( CSV_LAST_MODIFIED_COLUMN );
             }
-        });
-
-        // Write a line for each file.
-        for ( Map.Entry<ChecksumFile, Map<String, String>> entry : entries )
-        {
-            ChecksumFile file = entry.getKey();
-            sb.append( LINE_SEPARATOR ).append( file.getRelativePath(file, subPath) );
-            Map<String, String> fileHashcodes = entry.getValue();
             for ( String algorithm : algorithms )
             {
-                sb.append( CSV_COLUMN_SEPARATOR );
-                if ( fileHashcodes.containsKey( algorithm ) )
+                writer.append( CSV_COLUMN_SEPARATOR ).append( algorithm );
+            }
+
+            // Write a line for each file.
+            for ( SummarySorter.Row row = rows.next(); row != null; row = rows.next() )
+            {
+                writer.append( LINE_SEPARATOR ).append( row.getRelativePath() );
+                if ( includeSize )
+                {
+                    writer.append( CSV_COLUMN_SEPARATOR ).append( String.valueOf( row.getSize() ) );
+                }
+                if ( includeLastModified )
+                {
+                    writer.append( CSV_COLUMN_SEPARATOR ).append( String.valueOf( row.getLastModified() ) );
+                }
+                Map<String, String> hashcodes = row.getHashcodes();
+                for ( String algorithm : algorithms )
                 {
-                    sb.append( fileHashcodes.get( algorithm ) );
+                    writer.append( CSV_COLUMN_SEPARATOR );
+                    String hashcode = hashcodes.get( algorithm );
+                    if ( hashcode != null )
+                    {
+                        writer.append( hashcode );
+                    }
                 }
             }
+
+            writer.append( LINE_SEPARATOR );
+        }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
+        }
+        finally
+        {
+            sorter = null;
         }
 
-        sb.append( LINE_SEPARATOR );
+        for (ArtifactListener artifactListener : artifactListeners) {
+            artifactListener.artifactCreated(summaryFile, "csv", null,null);
+        }
+    }
 
-        // Write the result to the summary file.
+    /**
+     * Close the sorter without writing the summary, after a failure.
+     *
+     * @param failure the failure, to which the errors closing the sorter are added.
+     * @return the failure.
+     */
+    private ExecutionTargetCloseException discard( ExecutionTargetCloseException failure )
+    {
         try
         {
-            Files.write(summaryFile.toPath(), sb.toString().getBytes(encoding), StandardOpenOption.CREATE);
-            for (ArtifactListener artifactListener : artifactListeners) {
-                artifactListener.artifactCreated(summaryFile, "csv", null,null);
-            }
+            sorter.close();
         }
         catch ( IOException e )
         {
-            throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
+            failure.addSuppressed( e );
+        }
+        finally
+        {
+            sorter = null;
         }
+        return failure;
     }
 }
@@ -20,6 +20,7 @@
 
 package net.nicoulaj.maven.plugins.checksum.execution.target;
 
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 
 /**
@@ -53,6 +54,23 @@ public interface ExecutionTarget
     void write( String digest, ChecksumFile file, String algorithm )
         throws ExecutionTargetWriteException;
 
+    /**
+     * Write the binary hashcode calculated for the given file to the target.
+     *
+     * <p>The default implementation formats the digest and calls {@link #write(String, ChecksumFile, String)}, targets
+     * keeping the hashcodes until they are closed should override it to avoid holding their formatted value.</p>
+     *
+     * @param digest the digest to write, with the algorithm used to calculate it.
+     * @param file   the file for which the digest was calculated.
+     * @throws net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTargetWriteException if an error occured while writing to the target.
+     * @since 1.12
+     */
+    default void write( BinaryDigest digest, ChecksumFile file )
+        throws ExecutionTargetWriteException
+    {
+        write( digest.toString(), file, digest.getAlgorithm() );
+    }
+
     /**
      * Close the target.
      *
@@ -0,0 +1,68 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.execution.target;
+
+import java.io.File;
+
+/**
+ * The results shared by several summary targets of the same execution.
+ *
+ * <p>The targets sharing a summary keep the checksums of each file once, sort them once by relative path, and each
+ * write its summary from the same sorted rows, instead of holding and sorting a copy each. The size and last
+ * modification time of the files are recorded if any of the targets writes them.</p>
+ *
+ * <p>The targets must be initialized before the first checksum is written, and closed with the same sub path, as
+ * the executions do.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see CsvSummaryFileTarget#setSharedSummary(SharedSummary)
+ * @see XmlSummaryFileTarget#setSharedSummary(SharedSummary)
+ * @see ShasumSummaryFileTarget#setSharedSummary(SharedSummary)
+ * @since 1.12
+ */
+public final class SharedSummary
+{
+    /**
+     * The sorter of the current execution, {@code null} until a target is initialized.
+     */
+    private SummarySorter sorter;
+
+    /**
+     * Get the sorter for a target being initialized, creating it for the first target of an execution.
+     *
+     * @param memoryLimit        the estimated memory, in bytes, from which rows are spilled to temporary files, only
+     *                           used by the first target.
+     * @param temporaryDirectory the directory in which the temporary files are created, {@code null} for the default
+     *                           temporary directory of the system, only used by the first target.
+     * @param recordSize         whether the target writes the size of the files.
+     * @param recordLastModified whether the target writes the last modification time of the files.
+     * @return the sorter, to be closed by the target.
+     */
+    SummarySorter attach( long memoryLimit, File temporaryDirectory, boolean recordSize, boolean recordLastModified )
+    {
+        if ( sorter == null || sorter.isClosed() )
+        {
+            sorter = new SummarySorter( memoryLimit, temporaryDirectory, recordSize, recordLastModified );
+        }
+        else
+        {
+            sorter.retain();
+            sorter.require( recordSize, recordLastModified );
+        }
+        return sorter;
+    }
+}
@@ -21,13 +21,16 @@
 package net.nicoulaj.maven.plugins.checksum.execution.target;
 
 import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
-import java.util.*;
+import java.util.SortedSet;
 
 /**
  * An {@link net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget} that writes digests to a {@code shasum} file
@@ -59,14 +62,31 @@ public class ShasumSummaryFileTarget
     public static final String SHASUM_BINARY_FILE = "*";
 
     /**
-     * The association file =&gt; (algorithm,hashcode).
+     * The digests written, sorted when the target is closed.
      */
-    protected Map<ChecksumFile, Map<String, String>> filesHashcodes;
+    SummarySorter sorter;
 
     /**
-     * The set of algorithms encountered.
+     * The estimated memory, in bytes, from which the digests are spilled to temporary files.
+     *
+     * @since 1.12
+     */
+    protected long memoryLimit = SummarySorter.DEFAULT_MEMORY_LIMIT;
+
+    /**
+     * The directory in which the temporary files are created, {@code null} for the default temporary directory of the
+     * system.
+     *
+     * @since 1.12
+     */
+    protected File temporaryDirectory;
+
+    /**
+     * The results shared with the other summary targets, {@code null} if not shared.
+     *
+     * @since 1.12
      */
-    protected SortedSet<String> algorithms;
+    protected SharedSummary sharedSummary;
 
     /**
      * The target file where the summary is written.
@@ -99,30 +119,75 @@ public class ShasumSummaryFileTarget
         this.artifactListeners = artifactListeners;
     }
 
+    /**
+     * Set the estimated memory from which the digests are spilled to temporary files.
+     *
+     * @param memoryLimit the limit, in bytes.
+     * @since 1.12
+     */
+    public void setMemoryLimit( long memoryLimit )
+    {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Set the directory in which the temporary files are created when the digests are spilled.
+     *
+     * @param temporaryDirectory the directory, {@code null} for the default temporary directory of the system.
+     * @since 1.12
+     */
+    public void setTemporaryDirectory( File temporaryDirectory )
+    {
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    /**
+     * Share the results with other summary targets, so they are kept and sorted once for all of them.
+     *
+     * @param sharedSummary the shared results, {@code null} to keep them for this target only.
+     * @since 1.12
+     */
+    public void setSharedSummary( SharedSummary sharedSummary )
+    {
+        this.sharedSummary = sharedSummary;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void init()
     {
-        filesHashcodes = new HashMap<>();
-        algorithms = new TreeSet<>();
-   }
+        sorter = sharedSummary != null ? sharedSummary.attach( memoryLimit, temporaryDirectory, false, false )
+                                       : new SummarySorter( memoryLimit, temporaryDirectory, false, false );
+    }
 
     /** {@inheritDoc} */
     @Override
     public void write( String digest, ChecksumFile file, String algorithm )
+        throws ExecutionTargetWriteException
     {
-        // Initialize an entry for the file if needed.
-        if ( !filesHashcodes.containsKey( file ) )
+        try
         {
-            filesHashcodes.put( file, new HashMap<String, String>() );
+            sorter.add( file, algorithm, digest );
         }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetWriteException( "Failed writing to temporary summary file: " + e.getMessage() );
+        }
+    }
 
-        // Store the algorithm => hashcode mapping for this file.
-        Map<String, String> fileHashcodes = filesHashcodes.get( file );
-        fileHashcodes.put( algorithm, digest );
-
-        // Store the algorithm.
-        algorithms.add( algorithm );
+    /** {@inheritDoc} */
+    @Override
+    public void write( BinaryDigest digest, ChecksumFile file )
+        throws ExecutionTargetWriteException
+    {
+        try
+        {
+            sorter.add( file, digest );
+        }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetWriteException( "Failed writing to temporary summary file: " + e.getMessage() );
+        }
     }
 
     /** {@inheritDoc} */
@@ -137,54 +202,71 @@ public class ShasumSummaryFileTarget
         }
         catch ( IOException e )
         {
-            throw new ExecutionTargetCloseException( "Could not create summary file parent directory", e );
+            throw discard( new ExecutionTargetCloseException( "Could not create summary file parent directory", e ) );
         }
 
-        StringBuilder sb = new StringBuilder();
-
+        SortedSet<String> algorithms = sorter.getAlgorithms();
         if (algorithms.size() != 1)
-            throw new ExecutionTargetCloseException("Must use only one type of hash");
+        {
+            throw discard( new ExecutionTargetCloseException( "Must use only one type of hash" ) );
+        }
 
         // shasum entires are traditionally written in sorted order (per globing argument)
-        @SuppressWarnings("unchecked")
-        Map.Entry<ChecksumFile, Map<String, String>>[] entries = filesHashcodes.entrySet().toArray((Map.Entry<ChecksumFile, Map<String, String>>[]) new Map.Entry[0] );
-        Arrays.sort(entries, new Comparator<Map.Entry<ChecksumFile, Map<String, String>>>() {
-            @Override
-            public int compare(Map.Entry<ChecksumFile, Map<String, String>> o1, Map.Entry<ChecksumFile, Map<String, String>> o2) {
-                ChecksumFile f1 = o1.getKey();
-                ChecksumFile f2 = o2.getKey();
-                return f1.getRelativePath(f1, subPath).compareTo(f2.getRelativePath(f2, subPath));
-            }
-        });
-
-        // Write a line for each file.
-        for ( Map.Entry<ChecksumFile, Map<String, String>> entry : entries )
+        try ( SummarySorter sorter = this.sorter;
+              SummarySorter.Rows rows = sorter.sort( subPath );
+              Writer writer = new BufferedWriter( new OutputStreamWriter( Files.newOutputStream( summaryFile.toPath() ),
+                                                                          encoding ) ) )
         {
-            ChecksumFile file = entry.getKey();
-            Map<String, String> fileHashcodes = entry.getValue();
-            for ( String algorithm : algorithms )
+            // Write a line for each file.
+            for ( SummarySorter.Row row = rows.next(); row != null; row = rows.next() )
             {
-                if ( fileHashcodes.containsKey( algorithm ) )
+                for ( String algorithm : algorithms )
                 {
-                    sb.append( fileHashcodes.get( algorithm ) );
+                    String hashcode = row.getHashcodes().get( algorithm );
+                    if ( hashcode != null )
+                    {
+                        writer.append( hashcode );
+                    }
                 }
+                writer.append( SHASUM_FIELD_SEPARATOR )
+                      .append( row.getRelativePath() )
+                      .append( LINE_SEPARATOR );
             }
-            sb.append(SHASUM_FIELD_SEPARATOR)
-                    .append( file.getRelativePath(entry.getKey(), subPath))
-                    .append( LINE_SEPARATOR );
+        }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
+        }
+        finally
+        {
+            sorter = null;
         }
 
-        // Write the result to the summary file.
+        for (ArtifactListener artifactListener : artifactListeners) {
+            artifactListener.artifactCreated(summaryFile, "sum", null, null);
+        }
+    }
+
+    /**
+     * Close the sorter without writing the summary, after a failure.
+     *
+     * @param failure the failure, to which the errors closing the sorter are added.
+     * @return the failure.
+     */
+    private ExecutionTargetCloseException discard( ExecutionTargetCloseException failure )
+    {
         try
         {
-            Files.write(summaryFile.toPath(), sb.toString().getBytes(encoding), StandardOpenOption.CREATE);
-            for (ArtifactListener artifactListener : artifactListeners) {
-                artifactListener.artifactCreated(summaryFile, "sum", null, null);
-            }
-       }
+            sorter.close();
+        }
         catch ( IOException e )
         {
-            throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
+            failure.addSuppressed( e );
+        }
+        finally
+        {
+            sorter = null;
         }
+        return failure;
     }
 }
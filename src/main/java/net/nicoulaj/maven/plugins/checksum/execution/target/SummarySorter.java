@@ -0,0 +1,935 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.execution.target;
+
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Sorts the checksums written to a summary target by relative path, within a memory limit.
+ *
+ * <p>The checksums are kept in memory until their estimated size exceeds the limit. They are then appended to a
+ * temporary file, in the order they were written, since the relative paths used as sort keys are only known when the
+ * target is closed. When sorting, the temporary file is read back in chunks fitting the limit, each chunk is sorted
+ * and written to a run file, and the runs are merged, at most {@link #MAX_MERGED_RUNS} at a time, so the memory used
+ * does not depend on the number of files.</p>
+ *
+ * <p>The checksums are kept in binary form, and only formatted when the sorted rows are read, so a row costs a
+ * fraction of the memory and temporary file space of the formatted checksums.</p>
+ *
+ * <p>The checksums of a file are expected to be added one after the other, as the executions do: once spilled, the
+ * checksums added later for the same file make a separate row.</p>
+ *
+ * <p>A sorter can be shared by several targets through a {@link SharedSummary}: each target adds the same checksums,
+ * which are only kept once, the rows are sorted once, and each target reads them from the same sorted result. The
+ * temporary files are deleted when the last target closes the sorter.</p>
+ *
+ * <p>The temporary files are kept in a directory created for the sorter, within the build directory when given one,
+ * and are deleted with it when the sorter is closed.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+final class SummarySorter
+    implements Closeable
+{
+    /**
+     * The default memory limit, in bytes.
+     */
+    static final long DEFAULT_MEMORY_LIMIT = 64L * 1024 * 1024;
+
+    /**
+     * The maximum number of runs merged at once, bounding the number of open files and their buffers.
+     */
+    static final int MAX_MERGED_RUNS = 64;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The estimated memory used by a row besides its strings, in bytes.
+     */
+    private static final int ROW_OVERHEAD = 128;
+
+    /**
+     * The estimated memory used by a checksum besides its value, in bytes.
+     */
+    private static final int HASHCODE_OVERHEAD = 24;
+
+    /**
+     * The format of a checksum held as raw hexadecimal bytes.
+     */
+    private static final byte HEXADECIMAL = 0;
+
+    /**
+     * The format of a checksum held as a raw unsigned decimal number.
+     */
+    private static final byte DECIMAL = 1;
+
+    /**
+     * The format of a checksum that is not a valid hexadecimal or decimal value, held as UTF-8 text.
+     */
+    private static final byte TEXT = 2;
+
+    /**
+     * Orders the rows by relative path.
+     */
+    private static final Comparator<Row> BY_RELATIVE_PATH = new Comparator<Row>()
+    {
+        @Override
+        public int compare( Row o1, Row o2 )
+        {
+            return o1.relativePath.compareTo( o2.relativePath );
+        }
+    };
+
+    /**
+     * The marker starting each row in the temporary files.
+     */
+    private static final int ROW_MARKER = 1;
+
+    private final long memoryLimit;
+
+    /**
+     * The directory in which the temporary directory of the sorter is created, {@code null} for the default one of
+     * the system.
+     */
+    private final Path temporaryParent;
+
+    /**
+     * The directory holding the temporary files of the sorter, created with the first of them.
+     */
+    private Path temporaryDirectory;
+
+    private boolean recordSize;
+
+    private boolean recordLastModified;
+
+    /**
+     * The number of targets using the sorter, the temporary files being deleted when it drops to zero.
+     */
+    private int users = 1;
+
+    /**
+     * Whether a checksum was added.
+     */
+    private boolean added;
+
+    /**
+     * Whether the rows were sorted.
+     */
+    private boolean sorted;
+
+    /**
+     * The sub path the rows were sorted with.
+     */
+    private String sortedSubPath;
+
+    /**
+     * The sorted rows, if they were not spilled.
+     */
+    private Row[] sortedRows;
+
+    /**
+     * The sorted runs, if the rows were spilled.
+     */
+    private List<Path> sortedRuns;
+
+    /**
+     * The algorithms encountered, the rows referencing them by index.
+     */
+    private final List<String> algorithms = new ArrayList<>();
+
+    /**
+     * The rows not spilled yet, by file.
+     */
+    private Map<ChecksumFile, Row> rows = new IdentityHashMap<>();
+
+    private final List<Row> pending = new ArrayList<>();
+
+    private long pendingMemory;
+
+    /**
+     * The temporary file holding the spilled rows, in the order they were written, {@code null} if none.
+     */
+    private Path spillFile;
+
+    private DataOutputStream spill;
+
+    private final List<Path> temporaryFiles = new ArrayList<>();
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.target.SummarySorter}.
+     *
+     * @param memoryLimit        the estimated memory, in bytes, from which rows are spilled to temporary files.
+     * @param recordSize         whether the size of the files is recorded.
+     * @param recordLastModified whether the last modification time of the files is recorded.
+     */
+    SummarySorter( long memoryLimit, boolean recordSize, boolean recordLastModified )
+    {
+        this( memoryLimit, null, recordSize, recordLastModified );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.target.SummarySorter}.
+     *
+     * @param memoryLimit        the estimated memory, in bytes, from which rows are spilled to temporary files.
+     * @param temporaryDirectory the directory in which a directory holding the temporary files is created, {@code
+     *                           null} for the default temporary directory of the system.
+     * @param recordSize         whether the size of the files is recorded.
+     * @param recordLastModified whether the last modification time of the files is recorded.
+     */
+    SummarySorter( long memoryLimit, File temporaryDirectory, boolean recordSize, boolean recordLastModified )
+    {
+        this.memoryLimit = Math.max( memoryLimit, 1 );
+        this.temporaryParent = temporaryDirectory != null ? temporaryDirectory.toPath() : null;
+        this.recordSize = recordSize;
+        this.recordLastModified = recordLastModified;
+    }
+
+    /**
+     * Register one more target using the sorter, which must close it too.
+     */
+    void retain()
+    {
+        if ( users <= 0 )
+        {
+            throw new IllegalStateException( "The sorter is closed." );
+        }
+        users++;
+    }
+
+    /**
+     * Check whether all the targets using the sorter closed it.
+     *
+     * @return {@code true} if the sorter is closed.
+     */
+    boolean isClosed()
+    {
+        return users <= 0;
+    }
+
+    /**
+     * Record the size or the last modification time of the files, if not already. Must be called before the first
+     * checksum is added.
+     *
+     * @param size         whether the size of the files is recorded.
+     * @param lastModified whether the last modification time of the files is recorded.
+     */
+    void require( boolean size, boolean lastModified )
+    {
+        if ( added && ( size && !recordSize || lastModified && !recordLastModified ) )
+        {
+            throw new IllegalStateException( "Checksums were already added." );
+        }
+        recordSize |= size;
+        recordLastModified |= lastModified;
+    }
+
+    /**
+     * Add the checksum of a file. A checksum identical to the one already added for the same file, by another target
+     * sharing the sorter, is ignored.
+     *
+     * @param file   the file.
+     * @param digest the checksum.
+     * @throws java.io.IOException if the rows cannot be spilled.
+     */
+    void add( ChecksumFile file, BinaryDigest digest )
+        throws IOException
+    {
+        add( file, digest.getAlgorithm(), digest.getValue(), digest.isDecimal() ? DECIMAL : HEXADECIMAL );
+    }
+
+    /**
+     * Add the formatted checksum of a file. The checksum is held in binary form if it is formatted as the
+     * {@link net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest} of its algorithm would be, as text otherwise.
+     *
+     * @param file      the file.
+     * @param algorithm the algorithm.
+     * @param hashcode  the checksum.
+     * @throws java.io.IOException if the rows cannot be spilled.
+     */
+    void add( ChecksumFile file, String algorithm, String hashcode )
+        throws IOException
+    {
+        BinaryDigest digest = BinaryDigest.parse( algorithm, hashcode );
+        if ( digest != null && digest.toString().equals( hashcode ) )
+        {
+            add( file, digest );
+        }
+        else
+        {
+            add( file, algorithm, hashcode.getBytes( StandardCharsets.UTF_8 ), TEXT );
+        }
+    }
+
+    private void add( ChecksumFile file, String algorithm, byte[] value, byte format )
+        throws IOException
+    {
+        if ( sorted )
+        {
+            throw new IllegalStateException( "The rows were already sorted." );
+        }
+        added = true;
+        Row row = rows.get( file );
+        if ( row == null )
+        {
+            // Only spill between files, so that the checksums of a file stay on the same row.
+            if ( pendingMemory > memoryLimit )
+            {
+                spill();
+            }
+            row = new Row( file, recordSize ? file.getSize() : -1, recordLastModified ? file.getLastModified() : -1 );
+            rows.put( file, row );
+            pending.add( row );
+            pendingMemory += ROW_OVERHEAD + 2L * file.getFile().getPath().length();
+        }
+        int index = algorithms.indexOf( algorithm );
+        if ( index < 0 )
+        {
+            index = algorithms.size();
+            algorithms.add( algorithm );
+        }
+        else if ( row.isSet( index, value, format ) )
+        {
+            return;
+        }
+        row.set( index, value, format );
+        pendingMemory += HASHCODE_OVERHEAD + value.length;
+    }
+
+    /**
+     * Get the algorithms encountered.
+     *
+     * @return the algorithms, sorted.
+     */
+    SortedSet<String> getAlgorithms()
+    {
+        return new TreeSet<>( algorithms );
+    }
+
+    /**
+     * Sort the rows by relative path.
+     *
+     * <p>No row can be added afterwards. The rows are only sorted by the first call, the next ones reading the same
+     * sorted result, which requires them to use the same sub path.</p>
+     *
+     * @param subPath the part of the relative paths to exclude, as for
+     *                {@link net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile#getRelativePath(ChecksumFile, String)}.
+     * @return the sorted rows.
+     * @throws java.io.IOException if the temporary files cannot be read or written.
+     */
+    Rows sort( String subPath )
+        throws IOException
+    {
+        if ( !sorted )
+        {
+            sortOnce( subPath );
+            sorted = true;
+            sortedSubPath = subPath;
+        }
+        else if ( subPath == null ? sortedSubPath != null : !subPath.equals( sortedSubPath ) )
+        {
+            throw new IllegalStateException( "The rows were already sorted for another sub path." );
+        }
+        return sortedRows != null ? new ListRows( sortedRows ) : new MergedRows( sortedRuns );
+    }
+
+    private void sortOnce( String subPath )
+        throws IOException
+    {
+        if ( spill == null )
+        {
+            sortedRows = sortChunk( pending, subPath );
+            pending.clear();
+            rows = null;
+            return;
+        }
+
+        spill();
+        spill.close();
+        spill = null;
+        List<Path> runs = writeRuns( subPath );
+        while ( runs.size() > MAX_MERGED_RUNS )
+        {
+            List<Path> merged = new ArrayList<>();
+            for ( int i = 0; i < runs.size(); i += MAX_MERGED_RUNS )
+            {
+                List<Path> group = runs.subList( i, Math.min( i + MAX_MERGED_RUNS, runs.size() ) );
+                if ( group.size() == 1 )
+                {
+                    merged.add( group.get( 0 ) );
+                    continue;
+                }
+                Path run = createTemporaryFile();
+                try ( MergedRows rows = new MergedRows( group );
+                      DataOutputStream output = openOutput( run ) )
+                {
+                    for ( Row row = rows.next(); row != null; row = rows.next() )
+                    {
+                        writeRow( output, row, true );
+                    }
+                }
+                for ( Path path : group )
+                {
+                    delete( path );
+                }
+                merged.add( run );
+            }
+            runs = merged;
+        }
+        sortedRuns = runs;
+    }
+
+    /**
+     * Delete the temporary files.
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if ( --users > 0 )
+        {
+            return;
+        }
+        sortedRows = null;
+        try
+        {
+            if ( spill != null )
+            {
+                spill.close();
+                spill = null;
+            }
+        }
+        finally
+        {
+            deleteTemporaryFiles();
+        }
+    }
+
+    /**
+     * Delete the temporary files and their directory, going on with the next ones if one cannot be deleted.
+     *
+     * @throws java.io.IOException the first failure to delete a file.
+     */
+    private void deleteTemporaryFiles()
+        throws IOException
+    {
+        IOException failure = null;
+        for ( Path path : new ArrayList<>( temporaryFiles ) )
+        {
+            try
+            {
+                delete( path );
+            }
+            catch ( IOException e )
+            {
+                failure = failure != null ? failure : e;
+            }
+        }
+        if ( temporaryDirectory != null && failure == null )
+        {
+            try
+            {
+                Files.deleteIfExists( temporaryDirectory );
+                temporaryDirectory = null;
+            }
+            catch ( IOException e )
+            {
+                failure = e;
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void spill()
+        throws IOException
+    {
+        if ( spill == null )
+        {
+            spillFile = createTemporaryFile();
+            spill = openOutput( spillFile );
+        }
+        for ( Row row : pending )
+        {
+            writeRow( spill, row, false );
+        }
+        pending.clear();
+        rows.clear();
+        pendingMemory = 0;
+    }
+
+    /**
+     * Read back the spilled rows in chunks fitting the memory limit, and write each chunk sorted to a run file.
+     */
+    private List<Path> writeRuns( String subPath )
+        throws IOException
+    {
+        List<Path> runs = new ArrayList<>();
+        try ( DataInputStream input = openInput( spillFile ) )
+        {
+            List<Row> chunk = new ArrayList<>();
+            long memory = 0;
+            Row row;
+            while ( ( row = readRow( input, false ) ) != null )
+            {
+                chunk.add( row );
+                memory += ROW_OVERHEAD + 4L * row.file.getFile().getPath().length();
+                for ( byte[] value : row.values )
+                {
+                    memory += value != null ? HASHCODE_OVERHEAD + value.length : 0;
+                }
+                if ( memory > memoryLimit )
+                {
+                    runs.add( writeRun( sortChunk( chunk, subPath ) ) );
+                    chunk.clear();
+                    memory = 0;
+                }
+            }
+            if ( !chunk.isEmpty() || runs.isEmpty() )
+            {
+                runs.add( writeRun( sortChunk( chunk, subPath ) ) );
+            }
+        }
+        delete( spillFile );
+        spillFile = null;
+        return runs;
+    }
+
+    private Path writeRun( Row[] rows )
+        throws IOException
+    {
+        Path run = createTemporaryFile();
+        try ( DataOutputStream output = openOutput( run ) )
+        {
+            for ( Row row : rows )
+            {
+                writeRow( output, row, true );
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Compute the relative path of each row once, and sort the rows by relative path on all the available cores.
+     */
+    private static Row[] sortChunk( List<Row> chunk, String subPath )
+    {
+        Row[] sorted = chunk.toArray( new Row[0] );
+        for ( Row row : sorted )
+        {
+            row.relativePath = row.file.getRelativePath( row.file, subPath );
+        }
+        Arrays.parallelSort( sorted, BY_RELATIVE_PATH );
+        return sorted;
+    }
+
+    private void writeRow( DataOutputStream output, Row row, boolean withRelativePath )
+        throws IOException
+    {
+        output.writeByte( ROW_MARKER );
+        if ( withRelativePath )
+        {
+            writeString( output, row.relativePath );
+        }
+        writeString( output, row.file.getBasePath() );
+        writeString( output, row.file.getFile().getPath() );
+        output.writeLong( row.size );
+        output.writeLong( row.lastModified );
+        output.writeShort( row.count() );
+        for ( int i = 0; i < row.values.length; i++ )
+        {
+            if ( row.values[i] != null )
+            {
+                output.writeShort( i );
+                output.writeByte( row.formats[i] );
+                output.writeShort( row.values[i].length );
+                output.write( row.values[i] );
+            }
+        }
+    }
+
+    private Row readRow( DataInputStream input, boolean withRelativePath )
+        throws IOException
+    {
+        int marker = input.read();
+        if ( marker < 0 )
+        {
+            return null;
+        }
+        if ( marker != ROW_MARKER )
+        {
+            throw new IOException( "Corrupted temporary summary file." );
+        }
+        String relativePath = withRelativePath ? readString( input ) : null;
+        String basePath = readString( input );
+        String path = readString( input );
+        Row row = new Row( new ChecksumFile( basePath, new File( path ), null, null ), input.readLong(),
+                                    input.readLong() );
+        row.relativePath = relativePath;
+        int count = input.readShort();
+        for ( int i = 0; i < count; i++ )
+        {
+            int index = input.readShort();
+            byte format = input.readByte();
+            byte[] value = new byte[input.readUnsignedShort()];
+            input.readFully( value );
+            row.set( index, value, format );
+        }
+        return row;
+    }
+
+    /**
+     * Write a string, {@code null} being written as a length of {@code -1}.
+     */
+    private static void writeString( DataOutputStream output, String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            output.writeInt( -1 );
+            return;
+        }
+        byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+        output.writeInt( bytes.length );
+        output.write( bytes );
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     */
+    private static String readString( DataInputStream input )
+        throws IOException
+    {
+        int length = input.readInt();
+        if ( length < 0 )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    private Path createTemporaryFile()
+        throws IOException
+    {
+        if ( temporaryDirectory == null )
+        {
+            if ( temporaryParent != null )
+            {
+                Files.createDirectories( temporaryParent );
+                temporaryDirectory = Files.createTempDirectory( temporaryParent, "checksum-summary" );
+            }
+            else
+            {
+                temporaryDirectory = Files.createTempDirectory( "checksum-summary" );
+            }
+        }
+        Path path = Files.createTempFile( temporaryDirectory, "run", ".tmp" );
+        temporaryFiles.add( path );
+        return path;
+    }
+
+    private void delete( Path path )
+        throws IOException
+    {
+        Files.deleteIfExists( path );
+        temporaryFiles.remove( path );
+    }
+
+    private static DataOutputStream openOutput( Path path )
+        throws IOException
+    {
+        return new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( path ), BUFFER_SIZE ) );
+    }
+
+    private static DataInputStream openInput( Path path )
+        throws IOException
+    {
+        return new DataInputStream( new BufferedInputStream( Files.newInputStream( path ), BUFFER_SIZE ) );
+    }
+
+    /**
+     * The checksums of a file.
+     */
+    final class Row
+    {
+        private final ChecksumFile file;
+
+        private final long size;
+
+        private final long lastModified;
+
+        /**
+         * The raw checksums, indexed like the algorithms, {@code null} for the missing ones.
+         */
+        private byte[][] values = new byte[0][];
+
+        /**
+         * The formats of the checksums, indexed like the algorithms.
+         */
+        private byte[] formats = new byte[0];
+
+        private String relativePath;
+
+        private Row( ChecksumFile file, long size, long lastModified )
+        {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Get the file. Files read back from temporary files only have their base path and path.
+         *
+         * @return the file.
+         */
+        ChecksumFile getFile()
+        {
+            return file;
+        }
+
+        /**
+         * Get the relative path of the file.
+         *
+         * @return the relative path, as given by
+         * {@link net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile#getRelativePath(ChecksumFile, String)}.
+         */
+        String getRelativePath()
+        {
+            return relativePath;
+        }
+
+        /**
+         * Get the size of the file when its checksums were added.
+         *
+         * @return the size in bytes, {@code -1} if not recorded.
+         */
+        long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * Get the last modification time of the file when its checksums were added.
+         *
+         * @return the time in milliseconds since the epoch, {@code -1} if not recorded.
+         */
+        long getLastModified()
+        {
+            return lastModified;
+        }
+
+        /**
+         * Get the checksums of the file, formatted.
+         *
+         * @return the checksums, by algorithm, in the order the algorithms were first encountered.
+         */
+        Map<String, String> getHashcodes()
+        {
+            Map<String, String> hashcodes = new LinkedHashMap<>();
+            for ( int i = 0; i < values.length; i++ )
+            {
+                if ( values[i] != null )
+                {
+                    hashcodes.put( algorithms.get( i ), formats[i] == TEXT
+                        ? new String( values[i], StandardCharsets.UTF_8 )
+                        : BinaryDigest.format( values[i], 0, values[i].length, formats[i] == DECIMAL ) );
+                }
+            }
+            return hashcodes;
+        }
+
+        private boolean isSet( int index, byte[] value, byte format )
+        {
+            return index < values.length && formats[index] == format && Arrays.equals( values[index], value );
+        }
+
+        private void set( int index, byte[] value, byte format )
+        {
+            if ( index >= values.length )
+            {
+                values = Arrays.copyOf( values, index + 1 );
+                formats = Arrays.copyOf( formats, index + 1 );
+            }
+            values[index] = value;
+            formats[index] = format;
+        }
+
+        private int count()
+        {
+            int count = 0;
+            for ( byte[] value : values )
+            {
+                if ( value != null )
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Sorted rows, read one at a time.
+     */
+    interface Rows
+        extends Closeable
+    {
+        /**
+         * Get the next row.
+         *
+         * @return the row, {@code null} if there are no more rows.
+         * @throws java.io.IOException if the row cannot be read.
+         */
+        Row next()
+            throws IOException;
+    }
+
+    private static final class ListRows
+        implements Rows
+    {
+        private final Row[] rows;
+
+        private int index;
+
+        private ListRows( Row[] rows )
+        {
+            this.rows = rows;
+        }
+
+        @Override
+        public Row next()
+        {
+            return index < rows.length ? rows[index++] : null;
+        }
+
+        @Override
+        public void close()
+        {
+            // Nothing to release.
+        }
+    }
+
+    /**
+     * Merges sorted runs, the rows with the same relative path being returned in the order of the runs.
+     */
+    private final class MergedRows
+        implements Rows
+    {
+        private final List<DataInputStream> inputs = new ArrayList<>();
+
+        private final PriorityQueue<Head> heads;
+
+        private MergedRows( List<Path> runs )
+            throws IOException
+        {
+            heads = new PriorityQueue<>( Math.max( runs.size(), 1 ), new Comparator<Head>()
+            {
+                @Override
+                public int compare( Head o1, Head o2 )
+                {
+                    int result = o1.row.relativePath.compareTo( o2.row.relativePath );
+                    return result != 0 ? result : Integer.compare( o1.run, o2.run );
+                }
+            } );
+            try
+            {
+                for ( int i = 0; i < runs.size(); i++ )
+                {
+                    DataInputStream input = openInput( runs.get( i ) );
+                    inputs.add( input );
+                    Row row = readRow( input, true );
+                    if ( row != null )
+                    {
+                        heads.add( new Head( i, row ) );
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public Row next()
+            throws IOException
+        {
+            Head head = heads.poll();
+            if ( head == null )
+            {
+                return null;
+            }
+            Row row = head.row;
+            Row following = readRow( inputs.get( head.run ), true );
+            if ( following != null )
+            {
+                heads.add( new Head( head.run, following ) );
+            }
+            return row;
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            for ( DataInputStream input : inputs )
+            {
+                input.close();
+            }
+        }
+    }
+
+    private static final class Head
+    {
+        private final int run;
+
+        private final Row row;
+
+        private Head( int run, Row row )
+        {
+            this.run = run;
+            this.row = row;
+        }
+    }
+}
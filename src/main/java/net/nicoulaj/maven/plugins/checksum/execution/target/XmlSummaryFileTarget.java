@@ -22,20 +22,23 @@ package net.nicoulaj.maven.plugins.checksum.execution.target;
 
 
 import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
 import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
 import org.apache.maven.shared.utils.StringUtils;
-import org.apache.maven.shared.utils.xml.PrettyPrintXMLWriter;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
 import java.nio.file.Files;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * An {@link net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget} that writes digests to an XML file.
  *
+ * <p>The digests are sorted within a memory limit, spilling to temporary files if needed, and the summary is streamed
+ * to the file with a StAX writer, one row at a time as they come out of the sort.</p>
+ *
  * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
  * @since 1.0
  * @version $Id: $Id
@@ -48,15 +51,42 @@ public class XmlSummaryFileTarget
      */
     public static final int XML_INDENTATION_SIZE = 2;
 
+    /**
+     * The size of the buffer used to write the output file.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     /**
      * Encoding to use for generated files.
      */
     protected final String encoding;
 
     /**
-     * The association file =&gt; (algorithm,hashcode).
+     * The digests written, sorted when the target is closed.
+     */
+    SummarySorter sorter;
+
+    /**
+     * The estimated memory, in bytes, from which the digests are spilled to temporary files.
+     *
+     * @since 1.12
+     */
+    protected long memoryLimit = SummarySorter.DEFAULT_MEMORY_LIMIT;
+
+    /**
+     * The directory in which the temporary files are created, {@code null} for the default temporary directory of the
+     * system.
+     *
+     * @since 1.12
+     */
+    protected File temporaryDirectory;
+
+    /**
+     * The results shared with the other summary targets, {@code null} if not shared.
+     *
+     * @since 1.12
      */
-    protected Map<ChecksumFile, Map<String, String>> filesHashcodes;
+    protected SharedSummary sharedSummary;
 
     /**
      * The target file where the summary is written.
@@ -70,6 +100,20 @@ public class XmlSummaryFileTarget
      */
     protected final Iterable<? extends ArtifactListener> artifactListeners;
 
+    /**
+     * Indicates whether the size of the files is written.
+     *
+     * @since 1.12
+     */
+    protected final boolean includeSize;
+
+    /**
+     * Indicates whether the last modification time of the files is written.
+     *
+     * @since 1.12
+     */
+    protected final boolean includeLastModified;
+
     /**
      * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.target.XmlSummaryFileTarget}.
      *
@@ -78,10 +122,63 @@ public class XmlSummaryFileTarget
      * @param artifactListeners listeners which are notified every time a CSV file is created
      */
     public XmlSummaryFileTarget(File summaryFile, String encoding, Iterable<? extends ArtifactListener> artifactListeners)
+    {
+        this( summaryFile, encoding, artifactListeners, false, false );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.execution.target.XmlSummaryFileTarget}.
+     *
+     * @param summaryFile         the file to which the summary should be written.
+     * @param encoding            the encoding to use for generated files.
+     * @param artifactListeners   listeners which are notified every time a XML file is created
+     * @param includeSize         whether a {@code size} attribute with the size of the files is written.
+     * @param includeLastModified whether a {@code lastModified} attribute with the last modification time of the
+     *                            files, in milliseconds since the epoch, is written.
+     * @since 1.12
+     */
+    public XmlSummaryFileTarget( File summaryFile, String encoding,
+                                 Iterable<? extends ArtifactListener> artifactListeners, boolean includeSize,
+                                 boolean includeLastModified )
     {
         this.summaryFile = summaryFile;
         this.encoding = encoding;
         this.artifactListeners = artifactListeners;
+        this.includeSize = includeSize;
+        this.includeLastModified = includeLastModified;
+    }
+
+    /**
+     * Set the estimated memory from which the digests are spilled to temporary files.
+     *
+     * @param memoryLimit the limit, in bytes.
+     * @since 1.12
+     */
+    public void setMemoryLimit( long memoryLimit )
+    {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Set the directory in which the temporary files are created when the digests are spilled.
+     *
+     * @param temporaryDirectory the directory, {@code null} for the default temporary directory of the system.
+     * @since 1.12
+     */
+    public void setTemporaryDirectory( File temporaryDirectory )
+    {
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    /**
+     * Share the results with other summary targets, so they are kept and sorted once for all of them.
+     *
+     * @param sharedSummary the shared results, {@code null} to keep them for this target only.
+     * @since 1.12
+     */
+    public void setSharedSummary( SharedSummary sharedSummary )
+    {
+        this.sharedSummary = sharedSummary;
     }
 
     /**
@@ -89,21 +186,36 @@ public class XmlSummaryFileTarget
      */
     public void init()
     {
-        filesHashcodes = new HashMap<>();
+        sorter = sharedSummary != null ? sharedSummary.attach( memoryLimit, temporaryDirectory, includeSize, includeLastModified )
+                                       : new SummarySorter( memoryLimit, temporaryDirectory, includeSize, includeLastModified );
     }
 
     /** {@inheritDoc} */
     public void write( String digest, ChecksumFile file, String algorithm )
+        throws ExecutionTargetWriteException
     {
-        // Initialize an entry for the file if needed.
-        if ( !filesHashcodes.containsKey( file ) )
+        try
+        {
+            sorter.add( file, algorithm, digest );
+        }
+        catch ( IOException e )
         {
-            filesHashcodes.put( file, new HashMap<String, String>() );
+            throw new ExecutionTargetWriteException( "Failed writing to temporary summary file: " + e.getMessage() );
         }
+    }
 
-        // Store the algorithm => hashcode mapping for this file.
-        Map<String, String> fileHashcodes = filesHashcodes.get( file );
-        fileHashcodes.put( algorithm, digest );
+    /** {@inheritDoc} */
+    public void write( BinaryDigest digest, ChecksumFile file )
+        throws ExecutionTargetWriteException
+    {
+        try
+        {
+            sorter.add( file, digest );
+        }
+        catch ( IOException e )
+        {
+            throw new ExecutionTargetWriteException( "Failed writing to temporary summary file: " + e.getMessage() );
+        }
     }
 
     /** {@inheritDoc} */
@@ -117,71 +229,105 @@ public class XmlSummaryFileTarget
         }
         catch ( IOException e )
         {
-            throw new ExecutionTargetCloseException( "Could not create summary file parent directory", e );
+            throw discard( new ExecutionTargetCloseException( "Could not create summary file parent directory", e ) );
         }
 
-        // Open the target file.
-        Writer outputStream;
-        try
+        // Output hashcodes formatted in XML, sorted by relative path (per globing argument), streaming each row from
+        // the sorter to the file.
+        try ( SummarySorter sorter = this.sorter;
+              SummarySorter.Rows rows = sorter.sort( subPath );
+              Writer outputStream = new BufferedWriter(
+                  new OutputStreamWriter( Files.newOutputStream( summaryFile.toPath() ), encoding ), BUFFER_SIZE ) )
         {
-            outputStream = new OutputStreamWriter( new FileOutputStream( summaryFile ), encoding );
+            XMLStreamWriter xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter( outputStream );
+            try
+            {
+                writeRows( xmlWriter, rows );
+                xmlWriter.writeEndDocument();
+                xmlWriter.flush();
+            }
+            finally
+            {
+                xmlWriter.close();
+            }
         }
-        catch ( FileNotFoundException | UnsupportedEncodingException e )
+        catch ( IOException | XMLStreamException e )
         {
             throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
         }
+        finally
+        {
+            sorter = null;
+        }
 
-        // Write in sorted order (per globing argument)
-        @SuppressWarnings("unchecked")
-        Map.Entry<ChecksumFile, Map<String, String>>[] entries = filesHashcodes.entrySet().toArray((Map.Entry<ChecksumFile, Map<String, String>>[]) new Map.Entry[0] );
-        Arrays.sort(entries, new Comparator<Map.Entry<ChecksumFile, Map<String, String>>>() {
-            @Override
-            public int compare(Map.Entry<ChecksumFile, Map<String, String>> o1, Map.Entry<ChecksumFile, Map<String, String>> o2) {
-                ChecksumFile f1 = o1.getKey();
-                ChecksumFile f2 = o2.getKey();
-                return f1.getRelativePath(f1, subPath).compareTo(f2.getRelativePath(f2, subPath));
-            }
-        });
+        for (ArtifactListener artifactListener : artifactListeners) {
+            artifactListener.artifactCreated(summaryFile, "xml", null,null);
+        }
+    }
 
-        // Output hashcodes formatted in XML.
-        try
+    /**
+     * Write the sorted rows, indented by {@link #XML_INDENTATION_SIZE} spaces per level.
+     */
+    private void writeRows( XMLStreamWriter xmlWriter, SummarySorter.Rows rows )
+        throws IOException, XMLStreamException
+    {
+        final String fileIndent = System.lineSeparator() + StringUtils.repeat( " ", XML_INDENTATION_SIZE );
+        final String hashcodeIndent = fileIndent + StringUtils.repeat( " ", XML_INDENTATION_SIZE );
+        SummarySorter.Row row = rows.next();
+        if ( row == null )
         {
-            PrettyPrintXMLWriter xmlWriter =
-                new PrettyPrintXMLWriter( outputStream, StringUtils.repeat( " ", XML_INDENTATION_SIZE ) );
-            xmlWriter.startElement( "files" );
-            for ( Map.Entry<ChecksumFile, Map<String, String>> entry : entries )
-            {
-                ChecksumFile file = entry.getKey();
-                xmlWriter.startElement( "file" );
-                xmlWriter.addAttribute( "name", file.getRelativePath(file, subPath) );
-                Map<String, String> fileHashcodes = entry.getValue();
-                for ( String algorithm : fileHashcodes.keySet() )
-                {
-                    xmlWriter.startElement( "hashcode" );
-                    xmlWriter.addAttribute( "algorithm", algorithm );
-                    xmlWriter.writeText( fileHashcodes.get( algorithm ) );
-                    xmlWriter.endElement();
-                }
-                xmlWriter.endElement();
-            }
-            xmlWriter.endElement();
+            xmlWriter.writeEmptyElement( "files" );
+            return;
         }
-        catch ( IOException e )
+        xmlWriter.writeStartElement( "files" );
+        for ( ; row != null; row = rows.next() )
         {
-            throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
+            xmlWriter.writeCharacters( fileIndent );
+            xmlWriter.writeStartElement( "file" );
+            xmlWriter.writeAttribute( "name", row.getRelativePath() );
+            if ( includeSize )
+            {
+                xmlWriter.writeAttribute( "size", String.valueOf( row.getSize() ) );
+            }
+            if ( includeLastModified )
+            {
+                xmlWriter.writeAttribute( "lastModified", String.valueOf( row.getLastModified() ) );
+            }
+            for ( Map.Entry<String, String> hashcode : row.getHashcodes().entrySet() )
+            {
+                xmlWriter.writeCharacters( hashcodeIndent );
+                xmlWriter.writeStartElement( "hashcode" );
+                xmlWriter.writeAttribute( "algorithm", hashcode.getKey() );
+                xmlWriter.writeCharacters( hashcode.getValue() );
+                xmlWriter.writeEndElement();
+            }
+            xmlWriter.writeCharacters( fileIndent );
+            xmlWriter.writeEndElement();
         }
+        xmlWriter.writeCharacters( System.lineSeparator() );
+        xmlWriter.writeEndElement();
+    }
 
-        // Close the target file.
+    /**
+     * Close the sorter without writing the summary, after a failure.
+     *
+     * @param failure the failure, to which the errors closing the sorter are added.
+     * @return the failure.
+     */
+    private ExecutionTargetCloseException discard( ExecutionTargetCloseException failure )
+    {
         try
         {
-            outputStream.close();
-            for (ArtifactListener artifactListener : artifactListeners) {
-                artifactListener.artifactCreated(summaryFile, "xml", null,null);
-            }
+            sorter.close();
         }
         catch ( IOException e )
         {
-            throw new ExecutionTargetCloseException( "Failed writing to output summary file", e );
+            failure.addSuppressed( e );
+        }
+        finally
+        {
+            sorter = null;
         }
+        return failure;
     }
 }
@@ -19,11 +19,18 @@ package net.nicoulaj.maven.plugins.checksum.mojo;
 import net.nicoulaj.maven.plugins.checksum.Constants;
 import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactAttacher;
 import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.cache.ChainedDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.SessionDigestCache;
+import net.nicoulaj.maven.plugins.checksum.digest.FileStreamer;
 import net.nicoulaj.maven.plugins.checksum.execution.Execution;
 import net.nicoulaj.maven.plugins.checksum.execution.ExecutionException;
 import net.nicoulaj.maven.plugins.checksum.execution.FailOnErrorExecution;
 import net.nicoulaj.maven.plugins.checksum.execution.NeverFailExecution;
+import net.nicoulaj.maven.plugins.checksum.execution.VirtualThreads;
 import net.nicoulaj.maven.plugins.checksum.execution.target.*;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -33,9 +40,13 @@ import org.apache.maven.project.MavenProjectHelper;
 import org.apache.maven.shared.utils.StringUtils;
 import org.apache.maven.shared.utils.io.FileUtils;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -71,6 +82,14 @@ abstract class AbstractChecksumMojo
     @Parameter( property = "project", required = true, readonly = true )
     protected MavenProject project;
 
+    /**
+     * The Maven session.
+     *
+     * @since 1.12
+     */
+    @Parameter( defaultValue = "${session}", required = true, readonly = true )
+    protected MavenSession session;
+
     /**
      * The Maven Project Helper.
      *
@@ -155,6 +174,119 @@ abstract class AbstractChecksumMojo
     @Parameter( defaultValue = "" )
     protected String relativeSubPath = "";
 
+    /**
+     * Indicates whether the CSV and XML summaries will include the size of the files.
+     *
+     * <p>
+     * The size lets {@code checksum:check} reject a modified file without reading it.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.includeFileSize", defaultValue = "false" )
+    protected boolean includeFileSize;
+
+    /**
+     * Indicates whether the CSV and XML summaries will include the last modification time of the files, in
+     * milliseconds since the epoch.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.includeLastModified", defaultValue = "false" )
+    protected boolean includeLastModified;
+
+    /**
+     * The size in bytes from which files are memory-mapped instead of being read through a buffer.
+     *
+     * <p>
+     * Mapping avoids copying the content of big files through the Java heap. Use a negative value to disable memory
+     * mapping entirely, for example on file systems where it is not supported.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.mappingThreshold", defaultValue = "16777216" )
+    protected long mappingThreshold = FileStreamer.DEFAULT_MAPPING_THRESHOLD;
+
+    /**
+     * The estimated memory in bytes used by each summary file to sort the checksums.
+     *
+     * <p>
+     * Beyond this limit, the checksums are spilled to temporary files and merged when the summary is written, so that
+     * summaries of millions of files can be written with a bounded heap.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.summaryMemoryLimit", defaultValue = "67108864" )
+    protected long summaryMemoryLimit = 64L * 1024 * 1024;
+
+    /**
+     * The number of threads used to compute the checksums.
+     *
+     * <p>
+     * Use {@code 0} or a negative value for the number of processors available to the JVM, which takes container CPU
+     * limits into account, and {@code 1} to process files sequentially. Whatever the number of threads, the output
+     * files list the files in the same order.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.threads", defaultValue = "0" )
+    protected int threads;
+
+    /**
+     * Indicates whether each file should be read on its own virtual thread.
+     *
+     * <p>
+     * This suits file systems where the latency of each read dominates, such as NFS or FUSE mounts: many files can be
+     * read at once without tying up platform threads. The number of files read at once is bounded by
+     * {@code maxConcurrentFiles}. Virtual threads require Java 21 or newer; on older JVMs, the {@code threads}
+     * parameter is used instead.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.virtualThreads", defaultValue = "false" )
+    protected boolean virtualThreads;
+
+    /**
+     * The maximum number of files read at once when using virtual threads.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.maxConcurrentFiles", defaultValue = "256" )
+    protected int maxConcurrentFiles = 256;
+
+    /**
+     * Indicates whether the checksums should be cached between builds, so that only the files which changed since the
+     * previous build are read.
+     *
+     * <p>
+     * A file is considered unchanged if its canonical path, size, last modification time and, on Unix file systems,
+     * inode number are the same.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.cache", defaultValue = "false" )
+    protected boolean cache;
+
+    /**
+     * The file where the cached checksums are stored.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.cacheFile", defaultValue = "${project.build.directory}/checksum-maven-plugin.cache" )
+    protected File cacheFile;
+
+    /**
+     * Indicates whether the checksums should be shared with the other executions of the plugin in the same build, so
+     * that a file used by several modules, such as a common dependency, is read only once.
+     *
+     * <p>Disabled by default: the shared checksums are kept in memory until the end of the build, for all the files
+     * processed, and each file is looked up by its real path, size and last modification time, at the cost of reading
+     * its attributes once more.</p>
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.sessionCache", defaultValue = "false" )
+    protected boolean sessionCache;
+
     /**
      * Constructor.
      *
@@ -176,10 +308,19 @@ abstract class AbstractChecksumMojo
         // Prepare an execution.
         Execution execution = ( failOnError ) ? new FailOnErrorExecution() : new NeverFailExecution( getLog() );
         execution.setAlgorithms( algorithms );
-        execution.setFiles( getFilesToProcess() );
         execution.setFailIfNoFiles(isFailIfNoFiles());
         execution.setFailIfNoAlgorithms(failIfNoAlgorithms);
         execution.setFailIfNoTargets(failIfNoTargets);
+        execution.setMappingThreshold( mappingThreshold );
+        if ( isVirtualThreads() )
+        {
+            execution.setVirtualThreads( true );
+            execution.setThreads( maxConcurrentFiles );
+        }
+        else
+        {
+            execution.setThreads( getThreadCount() );
+        }
         if ( !quiet )
         {
             execution.addTarget( new MavenLogTarget( getLog() ) );
@@ -200,25 +341,44 @@ abstract class AbstractChecksumMojo
             }
             execution.addTarget( new OneHashPerFileTarget( encoding, outputDirectory, createArtifactListeners(), isAppendFilename()) );
         }
+        // The summary targets keep and sort the results once for all of them.
+        SharedSummary sharedSummary = new SharedSummary();
         if ( isCsvSummary() )
         {
-            execution.addTarget( new CsvSummaryFileTarget(
+            CsvSummaryFileTarget target = new CsvSummaryFileTarget(
                 FileUtils.resolveFile( new File( project.getBuild().getDirectory() ), getCsvSummaryFile() ),
-                encoding, createArtifactListeners()) );
+                encoding, createArtifactListeners(), includeFileSize, includeLastModified );
+            target.setMemoryLimit( summaryMemoryLimit );
+            target.setTemporaryDirectory( new File( project.getBuild().getDirectory() ) );
+            target.setSharedSummary( sharedSummary );
+            execution.addTarget( target );
         }
         if ( isXmlSummary() )
         {
-            execution.addTarget( new XmlSummaryFileTarget(
+            XmlSummaryFileTarget target = new XmlSummaryFileTarget(
                 FileUtils.resolveFile( new File( project.getBuild().getDirectory() ), getXmlSummaryFile() ),
-                encoding, createArtifactListeners()) );
+                encoding, createArtifactListeners(), includeFileSize, includeLastModified );
+            target.setMemoryLimit( summaryMemoryLimit );
+            target.setTemporaryDirectory( new File( project.getBuild().getDirectory() ) );
+            target.setSharedSummary( sharedSummary );
+            execution.addTarget( target );
         }
         if ( isShasumSummary() )
         {
-            execution.addTarget( new ShasumSummaryFileTarget(
-                FileUtils.resolveFile( new File( project.getBuild().getDirectory() ), getShasumSummaryFile() ), encoding, createArtifactListeners()) );
+            ShasumSummaryFileTarget target = new ShasumSummaryFileTarget(
+                FileUtils.resolveFile( new File( project.getBuild().getDirectory() ), getShasumSummaryFile() ), encoding, createArtifactListeners());
+            target.setMemoryLimit( summaryMemoryLimit );
+            target.setTemporaryDirectory( new File( project.getBuild().getDirectory() ) );
+            target.setSharedSummary( sharedSummary );
+            execution.addTarget( target );
         }
 
-        // Run the execution.
+        PersistentDigestCache digestCache = cache ? loadDigestCache() : null;
+        execution.setDigestCache( getDigestCache( digestCache ) );
+
+        // Run the execution, processing the files as they are found.
+        Iterator<ChecksumFile> fileSource = getFileSource();
+        execution.setFileSource( fileSource );
         try
         {
             execution.run();
@@ -228,6 +388,119 @@ abstract class AbstractChecksumMojo
             getLog().error( e.getMessage() );
             throw new MojoFailureException( e.getMessage() );
         }
+        finally
+        {
+            if ( fileSource instanceof Closeable )
+            {
+                try
+                {
+                    ( (Closeable) fileSource ).close();
+                }
+                catch ( IOException e )
+                {
+                    getLog().warn( "Failed closing the source of the files: " + e.getMessage() );
+                }
+            }
+            if ( digestCache != null )
+            {
+                saveDigestCache( digestCache );
+            }
+        }
+    }
+
+    /**
+     * Get the cache of the checksums to use for the execution.
+     *
+     * @param persistentCache the cache persisted between builds, {@code null} if not used.
+     * @return the cache, {@code null} if no cache is used.
+     */
+    protected DigestCache getDigestCache( PersistentDigestCache persistentCache )
+    {
+        List<DigestCache> caches = new ArrayList<>( 2 );
+        if ( sessionCache && session != null )
+        {
+            caches.add( SessionDigestCache.get( session.getRepositorySession() ) );
+        }
+        addDigestCaches( caches );
+        if ( persistentCache != null )
+        {
+            caches.add( persistentCache );
+        }
+        if ( caches.isEmpty() )
+        {
+            return null;
+        }
+        return caches.size() == 1 ? caches.get( 0 ) : new ChainedDigestCache( caches );
+    }
+
+    /**
+     * Add the caches specific to the goal, looked up after the session cache and before the cache persisted between
+     * builds.
+     *
+     * @param caches the caches to add to.
+     */
+    protected void addDigestCaches( List<DigestCache> caches )
+    {
+    }
+
+    /**
+     * Load the cache of the checksums computed by previous builds.
+     *
+     * @return the cache, empty if it cannot be read.
+     */
+    private PersistentDigestCache loadDigestCache()
+    {
+        try
+        {
+            return PersistentDigestCache.load( cacheFile );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Unable to read the checksums cache " + cacheFile.getPath() + ": " + e.getMessage() );
+            return new PersistentDigestCache( cacheFile );
+        }
+    }
+
+    /**
+     * Save the cache of the checksums for the next builds.
+     *
+     * @param digestCache the cache.
+     */
+    private void saveDigestCache( PersistentDigestCache digestCache )
+    {
+        try
+        {
+            digestCache.save();
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Unable to write the checksums cache " + cacheFile.getPath() + ": " + e.getMessage() );
+        }
+    }
+
+    /**
+     * Get the effective number of threads used to compute the checksums.
+     *
+     * @return the configured number of threads, or the number of available processors if not set.
+     */
+    protected int getThreadCount()
+    {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Check whether files should be read on virtual threads, warning if they are requested but not supported.
+     *
+     * @return {@code true} if virtual threads are requested and supported by the running JVM.
+     */
+    protected boolean isVirtualThreads()
+    {
+        if ( virtualThreads && !VirtualThreads.isAvailable() )
+        {
+            getLog().warn( "Virtual threads require Java 21 or newer, using " + getThreadCount() + " threads instead." );
+            return false;
+        }
+        return virtualThreads;
     }
 
     private Iterable<? extends ArtifactListener> createArtifactListeners() {
@@ -244,6 +517,17 @@ abstract class AbstractChecksumMojo
      */
     protected abstract List<ChecksumFile> getFilesToProcess();
 
+    /**
+     * Get the source of the files from which digests should be generated, which can hand them out as they are found.
+     *
+     * @return the files that should be processed, closed once the execution is done if {@link java.io.Closeable}.
+     * @since 1.12
+     */
+    protected Iterator<ChecksumFile> getFileSource()
+    {
+        return getFilesToProcess().iterator();
+    }
+
     /**
      * <p>isIndividualFiles.</p>
      *
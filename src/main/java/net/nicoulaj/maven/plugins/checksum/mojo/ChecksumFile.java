@@ -16,6 +16,8 @@
  */
 package net.nicoulaj.maven.plugins.checksum.mojo;
 
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+
 import java.io.File;
 
 /**
@@ -35,6 +37,37 @@ public class ChecksumFile
 
     protected final String classifier;
 
+    /**
+     * The directory of the file in its {@link PathTable}, {@code null} if the file was given as a {@link java.io.File}.
+     */
+    protected final PathTable.Directory directory;
+
+    /**
+     * The name of the file in its directory, {@code null} if the file was given as a {@link java.io.File}.
+     */
+    protected final String name;
+
+    /**
+     * The size of the file when it was scanned, {@code -1} if not scanned.
+     */
+    protected final long size;
+
+    /**
+     * The last modification time of the file when it was scanned, {@code -1} if not scanned.
+     */
+    protected final long lastModified;
+
+    /**
+     * The inode of the file when it was scanned, {@code -1} if not scanned or not available.
+     */
+    protected final long inode;
+
+    /**
+     * The key identifying the file on its file system when it was scanned, {@code null} if not scanned or not
+     * available.
+     */
+    protected final Object fileKey;
+
 	/**
 	 * <p>Constructor for ChecksumFile.</p>
 	 *
@@ -49,8 +82,54 @@ public class ChecksumFile
         this.file = file;
         this.extension = extension;
         this.classifier = classifier;
+        this.directory = null;
+        this.name = null;
+        this.size = -1L;
+        this.lastModified = -1L;
+        this.inode = -1L;
+        this.fileKey = null;
 	}
 
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile} for a file of a {@link
+     * PathTable}, which only holds its directory and its name.
+     *
+     * @param directory the directory of the file, its base directory being the one of the table.
+     * @param name      the name of the file.
+     * @since 1.12
+     */
+    public ChecksumFile( PathTable.Directory directory, String name )
+    {
+        this( directory, name, -1L, -1L, -1L, null );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile} for a file of a {@link
+     * PathTable}, with the attributes read while scanning it.
+     *
+     * @param directory    the directory of the file, its base directory being the one of the table.
+     * @param name         the name of the file.
+     * @param size         the size of the file, {@code -1} if not scanned.
+     * @param lastModified the last modification time of the file, in milliseconds since the epoch.
+     * @param inode        the inode of the file, {@code -1} if not available.
+     * @param fileKey      the key identifying the file on its file system, {@code null} if not available.
+     * @see java.nio.file.attribute.BasicFileAttributes#fileKey()
+     */
+    ChecksumFile( PathTable.Directory directory, String name, long size, long lastModified, long inode,
+                  Object fileKey )
+    {
+        this.basePath = directory.getBasePath();
+        this.file = null;
+        this.extension = null;
+        this.classifier = null;
+        this.directory = directory;
+        this.name = name;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.inode = inode;
+        this.fileKey = fileKey;
+    }
+
 	/**
 	 * <p>Getter for the field <code>basePath</code>.</p>
 	 *
@@ -68,7 +147,69 @@ public class ChecksumFile
      */
     public File getFile()
     {
-        return file;
+        return file != null ? file : new File( directory.getFile(), name );
+    }
+
+    /**
+     * Get the size of the file, as read when it was scanned if it was.
+     *
+     * @return the size in bytes, {@code 0} if the file does not exist.
+     * @since 1.12
+     */
+    public long getSize()
+    {
+        return size >= 0 ? size : getFile().length();
+    }
+
+    /**
+     * Get the last modification time of the file, as read when it was scanned if it was.
+     *
+     * @return the time in milliseconds since the epoch, {@code 0} if the file does not exist.
+     * @since 1.12
+     */
+    public long getLastModified()
+    {
+        return size >= 0 ? lastModified : getFile().lastModified();
+    }
+
+    /**
+     * Get the identity of the file from the attributes read when it was scanned, without reading them again.
+     *
+     * @return the identity, {@code null} if the file was not scanned or its real path is unknown.
+     * @since 1.12
+     */
+    public FileIdentity getIdentity()
+    {
+        if ( size < 0 || directory.getRealPath() == null )
+        {
+            return null;
+        }
+        return new FileIdentity( directory.getRealPath() + name, size, lastModified, inode );
+    }
+
+    /**
+     * Get the key identifying the file on its file system, as read when it was scanned.
+     *
+     * <p>Two paths with the same key, such as hard links, lead to the same file.</p>
+     *
+     * @return the key, {@code null} if the file was not scanned or the file system does not provide one.
+     * @see java.nio.file.attribute.BasicFileAttributes#fileKey()
+     * @since 1.12
+     */
+    public Object getFileKey()
+    {
+        return fileKey;
+    }
+
+    /**
+     * Get the directory of the file in its {@link PathTable}.
+     *
+     * @return the directory, {@code null} if the file was given as a {@link java.io.File}.
+     * @since 1.12
+     */
+    public PathTable.Directory getDirectory()
+    {
+        return directory;
     }
 
     /**
@@ -100,6 +241,11 @@ public class ChecksumFile
 	 */
 	public String getRelativePath(ChecksumFile file, String subPath)
 	{
+		if ( file.directory != null )
+		{
+			return getTableRelativePath( file, subPath );
+		}
+
 		String filePath = file.getFile().getName();
 
 		if ( subPath != null ) {
@@ -124,4 +270,22 @@ public class ChecksumFile
 
 		return filePath;
 	}
+
+    /**
+     * Get the relative path of a file of a {@link PathTable}, as {@link #getRelativePath(ChecksumFile, String)} does,
+     * but from the relative path of its directory instead of its absolute path.
+     */
+    private static String getTableRelativePath( ChecksumFile file, String subPath )
+    {
+        if ( subPath == null || file.basePath.isEmpty() )
+        {
+            return file.name;
+        }
+        String filePath = file.directory.getRelativePath() + file.name;
+        if ( !subPath.isEmpty() )
+        {
+            filePath = filePath.replace( subPath.endsWith( File.separator ) ? subPath : subPath + File.separator, "" );
+        }
+        return filePath;
+    }
 }
@@ -16,12 +16,22 @@
  */
 package net.nicoulaj.maven.plugins.checksum.mojo;
 
-import net.nicoulaj.maven.plugins.checksum.digest.DigesterException;
+import net.nicoulaj.maven.plugins.checksum.Constants;
+import net.nicoulaj.maven.plugins.checksum.cache.ChainedDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.SessionDigestCache;
 import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
 import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.VerificationPolicy;
 import net.nicoulaj.maven.plugins.checksum.execution.ExecutionException;
-import net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget;
+import net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester;
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader;
+import net.nicoulaj.maven.plugins.checksum.summary.VerificationSchedule;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -31,10 +41,9 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.utils.io.FileUtils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
@@ -73,6 +82,14 @@ public class DependenciesCheckMojo extends AbstractMojo
   @Parameter(property = "csvSummaryFile", defaultValue = "dependencies-checksums.csv")
   protected String csvSummaryFile;
 
+  /**
+   * The encoding of the summary file.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "encoding", defaultValue = "${project.build.sourceEncoding}")
+  protected String encoding = Constants.DEFAULT_ENCODING;
+
     /**
      * The dependency scopes to include.
      *
@@ -112,6 +129,111 @@ public class DependenciesCheckMojo extends AbstractMojo
   @Parameter(property = "transitive", defaultValue = "false")
   protected boolean transitive;
 
+  /**
+   * The Maven session.
+   *
+   * @since 1.12
+   */
+  @Parameter(defaultValue = "${session}", required = true, readonly = true)
+  protected MavenSession session;
+
+  /**
+   * Indicates whether the checksums should be shared with the other executions of the plugin in the same build, so
+   * that a file used by several modules, such as a common dependency, is read only once.
+   *
+   * <p>Disabled by default: a checksum shared by another execution was not computed from the bytes checked here, but
+   * looked up by the path, size and last modification time of the file, so enabling it trades the guarantee that the
+   * dependencies are read for speed.</p>
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.sessionCache", defaultValue = "false")
+  protected boolean sessionCache;
+
+  /**
+   * Indicates whether the checksums of the dependencies should be cached between builds, so that only the
+   * dependencies which changed since the previous build are read again. The cached checksums are still compared to
+   * the summary file, so changes to the summary file are always taken into account.
+   *
+   * <p>A file is considered unchanged if its canonical path, size, last modification time and, on Unix file systems,
+   * inode number are the same.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.cache", defaultValue = "false")
+  protected boolean cache;
+
+  /**
+   * The file where the cached checksums are stored.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.cacheFile", defaultValue = "${project.build.directory}/checksum-maven-plugin.cache")
+  protected File cacheFile;
+
+  /**
+   * The number of threads used to compute the checksums of the dependencies.
+   *
+   * <p>Use {@code 0} or a negative value for the number of processors available to the JVM, and {@code 1} to check
+   * the dependencies sequentially.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.threads", defaultValue = "0")
+  protected int threads;
+
+  /**
+   * The algorithms verified among the columns of the summary file.
+   *
+   * <p>Allowed values are {@code all} to verify all the columns, {@code strongest} to verify only the most collision
+   * resistant algorithm, {@code fastest} to verify only the cheapest one (non cryptographic checksums such as CRC32
+   * are only used if there is no other column), or a comma separated list of algorithms, such as
+   * {@code SHA-256,SHA-512}.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.verificationPolicy", defaultValue = VerificationPolicy.ALL)
+  protected String verificationPolicy = VerificationPolicy.ALL;
+
+  /**
+   * The fraction of the dependencies verified by each build.
+   *
+   * <p>The dependencies are split into {@code ceil(1 / sampleRate)} groups, and each build verifies the next group,
+   * so that all of them are verified after that number of builds. The presence of the dependencies in the summary
+   * file and their size are still checked on every build. Use {@code 1} to verify all the dependencies on every
+   * build.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.sampleRate", defaultValue = "1")
+  protected double sampleRate = 1;
+
+  /**
+   * The number of builds between two verifications of all the dependencies when only a sample is verified, {@code 0}
+   * to only verify them on the first build.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.fullVerificationInterval", defaultValue = "0")
+  protected int fullVerificationInterval;
+
+  /**
+   * Indicates whether all the dependencies should be verified, even if only a sample is verified by default.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.fullVerification", defaultValue = "false")
+  protected boolean fullVerification;
+
+  /**
+   * The file where the progress of the sampled verification is kept between builds.
+   *
+   * @since 1.12
+   */
+  @Parameter(property = "checksum.verificationStateFile",
+             defaultValue = "${project.build.directory}/checksum-maven-plugin.check-state")
+  protected File verificationStateFile;
+
   /**
    * Flag used to suppress execution.
    */
@@ -124,6 +246,11 @@ public class DependenciesCheckMojo extends AbstractMojo
   @Parameter(property = "checksum.pom.skip", defaultValue = "true")
   protected boolean pomSkip;
 
+  /**
+   * The cache of the checksums computed by previous builds, {@code null} if not used.
+   */
+  private PersistentDigestCache digestCache;
+
   /** {@inheritDoc} */
   @Override
   public void execute() throws MojoFailureException
@@ -143,16 +270,26 @@ public class DependenciesCheckMojo extends AbstractMojo
         File summaryFile = FileUtils.resolveFile(new File(project.getBasedir().getAbsolutePath()),
                                                  csvSummaryFile);
         // 1. read summeryFile
-        Map<String, Map<String, String>> summaryFileContent = readSummaryFile(summaryFile);
+        ChecksumSummary summary = readSummaryFile(summaryFile);
 
         // 2. dependency check
-        checkDependencies(summaryFileContent);
+        VerificationSchedule schedule = loadVerificationSchedule();
+        digestCache = cache ? loadDigestCache() : null;
+        checkDependencies(summary, schedule);
+        saveVerificationSchedule(schedule);
       }
       catch (ExecutionException e)
       {
         getLog().error(e.getMessage());
         throw new MojoFailureException(e.getMessage());
       }
+      finally
+      {
+        if (digestCache != null)
+        {
+          saveDigestCache(digestCache);
+        }
+      }
     }
   }
 
@@ -167,51 +304,269 @@ public class DependenciesCheckMojo extends AbstractMojo
     return Arrays.asList(packagings).contains(projectPackaging);
   }
 
-  private void checkDependencies(Map<String, Map<String, String>> summaryFileContent)
+  /**
+   * Check the dependencies against the summary file content.
+   *
+   * <p>All the artifacts are first looked up in the summary, and their size compared to the stored one if any, so a
+   * missing entry or a modified file is reported before reading any file. The artifacts are then read in parallel,
+   * once for all the algorithms selected by the verification policy, and the verification stops at the first
+   * mismatch. If only a sample is verified, the artifacts not scheduled for this build are not read.
+   *
+   * @param summary the summary file content.
+   * @param schedule the schedule of the sampled verification, {@code null} to verify all the artifacts.
+   * @throws ExecutionException if an artifact is missing from the summary or does not match it.
+   */
+  private void checkDependencies(ChecksumSummary summary, VerificationSchedule schedule)
     throws ExecutionException
   {
+    VerificationPolicy policy;
+    try
+    {
+      policy = VerificationPolicy.parse(verificationPolicy);
+    }
+    catch (IllegalArgumentException e)
+    {
+      throw new ExecutionException(e.getMessage());
+    }
+
+    // 1. resolve the expected checksums of every artifact, indexed by coordinates
+    final Map<String, ChecksumSummary.Entry> entries = new HashMap<>();
+    final Map<String, List<String>> verifiedAlgorithms = new HashMap<>();
+    final Map<ChecksumFile, Artifact> artifacts = new IdentityHashMap<>();
+    Map<String, Artifact> artifactsByFileName = new HashMap<>();
+    List<ChecksumFile> files = new ArrayList<>();
+    Set<String> algorithms = new LinkedHashSet<>();
+    int total = 0;
     for ( Artifact artifact : getArtifactsToProcess() )
     {
-      Map<String, String> fileHashcodes = summaryFileContent.get(artifact.getFile().getName());
-      if (fileHashcodes == null)
+      String fileName = artifact.getFile().getName();
+      ChecksumSummary.Entry entry = summary.get(fileName);
+      if (entry == null)
       {
         throw new ExecutionException("Artifact " + artifact + " is not in summary file content!");
       }
 
-      for ( Map.Entry<String, String> fileHashcode : fileHashcodes.entrySet() )
+      // Reject files of the wrong size without reading them
+      checkSize(artifact.getFile(), entry.getSize());
+
+      Artifact other = artifactsByFileName.put(fileName, artifact);
+      if (other != null && !other.getId().equals(artifact.getId()))
+      {
+        getLog().warn("Artifacts " + other + " and " + artifact + " are both checked against the summary entry '"
+                      + fileName + "'.");
+      }
+
+      List<String> verified = policy.select(entry.getAlgorithms());
+      if (verified.isEmpty())
+      {
+        throw new ExecutionException("Artifact " + artifact + " has no checksum for the verification policy '"
+                                     + policy + "' in summary file content!");
+      }
+
+      total++;
+      if (schedule != null && !schedule.isScheduled(artifact.getId()))
+      {
+        continue;
+      }
+      entries.put(artifact.getId(), entry);
+      verifiedAlgorithms.put(artifact.getId(), verified);
+      ChecksumFile file = new ChecksumFile("", artifact.getFile(), artifact.getType(), artifact.getClassifier());
+      artifacts.put(file, artifact);
+      files.add(file);
+      algorithms.addAll(verified);
+    }
+    if (schedule != null && !schedule.isFullVerification())
+    {
+      getLog().info("Verifying the checksums of " + files.size() + " of " + total + " dependencies (group "
+                    + (schedule.getBucket() + 1) + " of " + schedule.getBuckets() + ").");
+    }
+    if (files.isEmpty())
+    {
+      return;
+    }
+
+    // 2. read each artifact once for all the algorithms, stopping at the first mismatch
+    List<FileDigester> digesters = new ArrayList<>();
+    for ( String algorithm : algorithms )
+    {
+      try
+      {
+        digesters.add(DigesterFactory.getInstance().getFileDigester(algorithm));
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+        throw new ExecutionException("Unsupported algorithm " + algorithm + ".");
+      }
+    }
+    ParallelDigester digester = new ParallelDigester(new MultiFileDigester(digesters), getThreadCount());
+    digester.setCache(getDigestCache());
+    digester.run(files, new ParallelDigester.Callback()
+    {
+      public void onHashes(ChecksumFile file, Map<String, String> hashes) throws ExecutionException
+      {
+        Artifact artifact = artifacts.get(file);
+        ChecksumSummary.Entry entry = entries.get(artifact.getId());
+        for ( String algorithm : verifiedAlgorithms.get(artifact.getId()) )
+        {
+          String calculatedHash = hashes.get(algorithm);
+          if (!entry.matches(algorithm, calculatedHash))
+          {
+            throw new ExecutionException("The dependency hash value '" + calculatedHash + "' of file '"
+                                         + file.getFile() + "' does not equal the hash value '"
+                                         + entry.getHashcode(algorithm) + "' stored in the summary file!");
+          }
+          getLog().debug(artifact + " (" + file.getFile() + ") - " + algorithm + " : " + calculatedHash + " = "
+                         + entry.getHashcode(algorithm));
+        }
+      }
+
+      public void onError(ChecksumFile file, Exception error) throws ExecutionException
       {
-        process(fileHashcode.getKey(), artifact, fileHashcode.getValue());
+        throw new ExecutionException("Unable to calculate the hashes of " + file.getFile().getName() + ": "
+                                     + error.getMessage());
       }
+    });
+  }
+
+  /**
+   * Get the cache of the checksums already computed.
+   *
+   * @return the session and persistent caches enabled, {@code null} if none.
+   */
+  private DigestCache getDigestCache()
+  {
+    List<DigestCache> caches = new ArrayList<>();
+    if (sessionCache && session != null)
+    {
+      caches.add(SessionDigestCache.get(session.getRepositorySession()));
+    }
+    if (digestCache != null)
+    {
+      caches.add(digestCache);
+    }
+    if (caches.isEmpty())
+    {
+      return null;
     }
+    return caches.size() == 1 ? caches.get(0) : new ChainedDigestCache(caches);
   }
 
-  private void process(String algorithm, Artifact artifact, String hash) throws ExecutionException
+  /**
+   * Load the cache of the checksums computed by previous builds.
+   *
+   * @return the cache, empty if it cannot be read.
+   */
+  private PersistentDigestCache loadDigestCache()
   {
-    File file = artifact.getFile();
     try
     {
-      // Calculate the hash for the file/algo
-      FileDigester digester = DigesterFactory.getInstance().getFileDigester(algorithm);
-      String calculatedHash = digester.calculate(file);
-      if (!calculatedHash.equals(hash))
-      {
-        throw new ExecutionException("The dependency hash value '" + calculatedHash + "' of file '" + file
-                                     + "' does not equal the hash value '" + hash
-                                     + "' stored in the summary file!");
-      }
-      getLog().debug(artifact + " (" + file + ") - " + algorithm + " : " + calculatedHash + " = " + hash);
+      return PersistentDigestCache.load(cacheFile);
+    }
+    catch (IOException e)
+    {
+      getLog().warn("Unable to read the checksums cache " + cacheFile.getPath() + ": " + e.getMessage());
+      return new PersistentDigestCache(cacheFile);
+    }
+  }
+
+  /**
+   * Save the cache of the checksums for the next builds.
+   *
+   * @param digestCache the cache.
+   */
+  private void saveDigestCache(PersistentDigestCache digestCache)
+  {
+    try
+    {
+      digestCache.save();
+    }
+    catch (IOException e)
+    {
+      getLog().warn("Unable to write the checksums cache " + cacheFile.getPath() + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Load the schedule of the sampled verification.
+   *
+   * @return the schedule, {@code null} if all the dependencies are verified on every build.
+   * @throws ExecutionException if the sample rate is invalid.
+   */
+  private VerificationSchedule loadVerificationSchedule() throws ExecutionException
+  {
+    if (sampleRate == 1)
+    {
+      return null;
+    }
+    VerificationSchedule schedule;
+    try
+    {
+      schedule = new VerificationSchedule(verificationStateFile, sampleRate, fullVerificationInterval);
+    }
+    catch (IllegalArgumentException e)
+    {
+      throw new ExecutionException(e.getMessage());
+    }
+    schedule.setFullVerification(fullVerification);
+    try
+    {
+      schedule.load();
     }
-    catch (NoSuchAlgorithmException e)
+    catch (IOException e)
     {
-      throw new ExecutionException("Unsupported algorithm " + algorithm + ".");
+      getLog().warn("Unable to read the verification state file " + verificationStateFile + ", verifying all the "
+                    + "dependencies: " + e.getMessage());
     }
-    catch (DigesterException e)
+    return schedule;
+  }
+
+  /**
+   * Record a successful verification in the schedule of the sampled verification.
+   *
+   * @param schedule the schedule, {@code null} if all the dependencies are verified on every build.
+   */
+  private void saveVerificationSchedule(VerificationSchedule schedule)
+  {
+    if (schedule == null)
+    {
+      return;
+    }
+    try
+    {
+      schedule.save();
+    }
+    catch (IOException e)
     {
-      throw new ExecutionException("Unable to calculate " + algorithm + " hash for " + file.getName() + ": "
-                                   + e.getMessage());
+      getLog().warn("Unable to write the verification state file " + verificationStateFile + ": " + e.getMessage());
     }
   }
 
+  /**
+   * Check the size of a file against the one stored in the summary file, if any.
+   *
+   * @param file the file.
+   * @param size the size stored in the summary file, {@code -1} if not stored.
+   * @throws ExecutionException if the size does not match.
+   */
+  private void checkSize(File file, long size) throws ExecutionException
+  {
+    if (size >= 0 && file.length() != size)
+    {
+      throw new ExecutionException("The dependency size " + file.length() + " of file '" + file
+                                   + "' does not equal the size " + size + " stored in the summary file!");
+    }
+  }
+
+  /**
+   * Get the effective number of threads used to compute the checksums.
+   *
+   * @return the configured number of threads, or the number of available processors if not set.
+   */
+  private int getThreadCount()
+  {
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
   private List<Artifact> getArtifactsToProcess()
   {
     List<Artifact> result = new LinkedList<>();
@@ -262,62 +617,27 @@ public class DependenciesCheckMojo extends AbstractMojo
    * Read the summary file
    *
    * @param outputFile the summary file
-   * @return the summary content (<filename, <algo, checksum>>)
+   * @return the summary content
    * @throws ExecutionException if an error happens while running the execution.
    */
-  private Map<String, Map<String, String>> readSummaryFile(File outputFile) throws ExecutionException
+  private ChecksumSummary readSummaryFile(File outputFile) throws ExecutionException
   {
-    List<String> algorithms = new ArrayList<>();
-    Map<String, Map<String, String>> filesHashcodes = new HashMap<>();
-      try ( BufferedReader reader = new BufferedReader( new FileReader( outputFile ) ) )
-      {
-          String line;
-          while ( ( line = reader.readLine() ) != null )
-          {
-              // Read the CVS file header
-              if ( isFileHeader( line ) )
-              {
-                  readFileHeader( line, algorithms );
-              }
-              else
-              {
-                  // Read the dependencies checksums
-                  readDependenciesChecksums( line, algorithms, filesHashcodes );
-              }
-          }
-      }
-      catch ( IOException e )
-      {
-          throw new ExecutionException( e.getMessage() );
-      }
-
-    return filesHashcodes;
-  }
-
-  private boolean isFileHeader(String line)
-  {
-    return line.startsWith(CsvSummaryFileTarget.CSV_COMMENT_MARKER + "File");
-  }
-
-  private void readFileHeader(String line, List<String> algorithms)
-  {
-    // #File,sha1,md5,...
-    String[] split = line.split(CsvSummaryFileTarget.CSV_COLUMN_SEPARATOR);
-    algorithms.addAll( Arrays.asList( split ).subList( 1, split.length ) );
-  }
+    ChecksumSummary summary;
+    try
+    {
+      String charset = encoding != null && !encoding.isEmpty() ? encoding : Constants.DEFAULT_ENCODING;
+      summary = new CsvSummaryReader(Charset.forName(charset)).read(outputFile);
+    }
+    catch (IOException | IllegalArgumentException e)
+    {
+      throw new ExecutionException(e.getMessage());
+    }
 
-  private void readDependenciesChecksums(String line,
-                                         List<String> algorithms,
-                                         Map<String, Map<String, String>> filesHashcodes)
-  {
-    String[] split = line.split(CsvSummaryFileTarget.CSV_COLUMN_SEPARATOR);
-    String fileName = split[0];
-    Map<String, String> fileHashcodes = new HashMap<>();
-    for ( int i = 1 ; i < split.length ; i++ )
+    for ( String fileName : summary.getDuplicates() )
     {
-      fileHashcodes.put(algorithms.get(i - 1), split[i]);
+      getLog().warn("The summary file has several different entries for '" + fileName + "', using the last one.");
     }
-    filesHashcodes.put(fileName, fileHashcodes);
+    return summary;
   }
 
 }
@@ -16,12 +16,16 @@
  */
 package net.nicoulaj.maven.plugins.checksum.mojo;
 
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.SidecarDigestCache;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -155,6 +159,33 @@ public class DependenciesMojo
     @Parameter( property = "transitive", defaultValue = "false" )
     protected boolean transitive;
 
+    /**
+     * Indicates whether the checksum files stored next to the artifacts in the local repository, such as {@code .sha1}
+     * or {@code .md5} files, should be used instead of reading the artifacts.
+     *
+     * <p>A checksum file is only used if it is well-formed and more recent than its artifact.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.useRepositoryChecksums", defaultValue = "false" )
+    protected boolean useRepositoryChecksums;
+
+    /**
+     * The fraction of the artifacts read anyway to verify their checksum files, between {@code 0} and {@code 1}, when
+     * {@code useRepositoryChecksums} is enabled.
+     *
+     * <p>A mismatch fails the build, or is logged as a warning if {@code failOnError} is disabled.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.repositoryChecksumsVerificationRate", defaultValue = "0" )
+    protected double repositoryChecksumsVerificationRate;
+
+    /**
+     * The cache reading the checksum files of the local repository, {@code null} if not used.
+     */
+    private SidecarDigestCache sidecarDigestCache;
+
     /**
      * Constructor.
      */
@@ -162,6 +193,54 @@ public class DependenciesMojo
         super(false, true, true);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void execute()
+        throws MojoFailureException
+    {
+        if ( !( repositoryChecksumsVerificationRate >= 0 && repositoryChecksumsVerificationRate <= 1 ) )
+        {
+            throw new MojoFailureException( "Invalid repositoryChecksumsVerificationRate "
+                                                + repositoryChecksumsVerificationRate + ", expected a value between 0 "
+                                                + "and 1." );
+        }
+        super.execute();
+        if ( sidecarDigestCache != null )
+        {
+            List<String> mismatches = sidecarDigestCache.getMismatches();
+            for ( String mismatch : mismatches )
+            {
+                getLog().warn( mismatch );
+            }
+            if ( failOnError && !mismatches.isEmpty() )
+            {
+                throw new MojoFailureException( mismatches.size() + " checksum files of the local repository do not "
+                                                    + "match their artifacts." );
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void addDigestCaches( List<DigestCache> caches )
+    {
+        sidecarDigestCache = null;
+        if ( useRepositoryChecksums )
+        {
+            try
+            {
+                sidecarDigestCache = new SidecarDigestCache(
+                    session.getRepositorySession().getLocalRepository().getBasedir(),
+                    repositoryChecksumsVerificationRate );
+                caches.add( sidecarDigestCache );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Unable to use the checksum files of the local repository: " + e.getMessage() );
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -0,0 +1,683 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.mojo;
+
+import org.apache.maven.model.FileSet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the files matched by file sets, walking the directories in parallel.
+ *
+ * <p>The inclusion and exclusion patterns have the same syntax as the ones of {@link
+ * org.apache.maven.shared.utils.io.DirectoryScanner}, including the {@code %regex[...]} and {@code %ant[...]} forms,
+ * with its default exclusions, and are parsed once for all the files. The file sets and their directories are walked
+ * concurrently on a {@link java.util.concurrent.ForkJoinPool}, directories that cannot hold included files or that
+ * are excluded with all their content are not walked, and symbolic links are followed. The files are returned in the
+ * order of the file sets, each one sorted by path, either all at once or {@link #stream(List) as they are
+ * found}.</p>
+ *
+ * <p>The size, last modification time, inode and file key read while walking are kept with the files, so they are not
+ * read again by the summaries, the digest caches and the detection of paths leading to the same file.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see FilesMojo#DEFAULT_INCLUDES
+ * @since 1.12
+ */
+public final class FileSetScanner
+{
+    /**
+     * The attributes read for each file and directory, as also read by {@link
+     * net.nicoulaj.maven.plugins.checksum.cache.FileIdentity#of(File)}.
+     */
+    private static final String UNIX_ATTRIBUTES =
+        "unix:size,lastModifiedTime,ino,isDirectory,isRegularFile,isSymbolicLink,fileKey";
+
+    /**
+     * The default maximum number of files found ahead of the ones taken from {@link #stream(List)}.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Whether the {@code unix} attribute view is supported, cleared on the first failure.
+     */
+    private static volatile boolean unixAttributes = true;
+
+    /**
+     * The prefixes of the patterns not handled as Ant patterns, as recognized by {@link
+     * org.apache.maven.shared.utils.io.MatchPattern}.
+     */
+    private static final String REGEX_PREFIX = "%regex[";
+
+    private static final String ANT_PREFIX = "%ant[";
+
+    private final Patterns includes;
+
+    private final Patterns excludes;
+
+    /**
+     * The exclusion patterns matching all the content of the directories they match.
+     */
+    private final Patterns allContentExcludes;
+
+    private FileSetScanner( String[] includes, String[] excludes )
+    {
+        this.includes = new Patterns( normalize( includes ) );
+        String[] normalizedExcludes = normalize( excludes );
+        this.excludes = new Patterns( normalizedExcludes );
+        List<String> allContentExcludes = new ArrayList<>();
+        for ( String exclude : normalizedExcludes )
+        {
+            if ( !exclude.startsWith( REGEX_PREFIX ) && !exclude.startsWith( ANT_PREFIX )
+                && ( "**".equals( exclude ) || exclude.endsWith( File.separator + "**" ) ) )
+            {
+                allContentExcludes.add( exclude );
+            }
+        }
+        this.allContentExcludes = new Patterns( allContentExcludes.toArray( new String[0] ) );
+    }
+
+    /**
+     * Find the files matched by some file sets.
+     *
+     * @param fileSets the file sets, with {@link FilesMojo#DEFAULT_INCLUDES} if they have no inclusion pattern.
+     * @return the files, in the order of the file sets.
+     * @throws java.lang.IllegalStateException if the directory of a file set does not exist or is not a directory.
+     */
+    public static List<ChecksumFile> scan( List<FileSet> fileSets )
+    {
+        List<DirectoryTask> tasks = new ArrayList<>( fileSets.size() );
+        for ( FileSet fileSet : fileSets )
+        {
+            DirectoryTask task = newTask( fileSet, true );
+            ForkJoinPool.commonPool().execute( task );
+            tasks.add( task );
+        }
+        final List<ChecksumFile> files = new ArrayList<>();
+        Sink sink = new Sink()
+        {
+            public void add( ChecksumFile file )
+            {
+                files.add( file );
+            }
+        };
+        try
+        {
+            for ( DirectoryTask task : tasks )
+            {
+                walk( task, sink );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            // The list sink never blocks.
+            throw new IllegalStateException( e );
+        }
+        return files;
+    }
+
+    /**
+     * Find the files matched by some file sets, handing them out as they are found.
+     *
+     * <p>The directories are walked on a background thread, which fills a queue of at most {@link
+     * #DEFAULT_QUEUE_CAPACITY} files and waits for them to be taken, so the first files can be processed while the
+     * next ones are searched and the memory used does not depend on the number of files. The files come in the same
+     * order as with {@link #scan(List)}.</p>
+     *
+     * @param fileSets the file sets, with {@link FilesMojo#DEFAULT_INCLUDES} if they have no inclusion pattern.
+     * @return the files, in the order of the file sets, to be closed once done with them.
+     * @throws java.lang.IllegalStateException if the directory of a file set does not exist or is not a directory.
+     */
+    public static FileIterator stream( List<FileSet> fileSets )
+    {
+        return stream( fileSets, DEFAULT_QUEUE_CAPACITY );
+    }
+
+    /**
+     * Find the files matched by some file sets, handing them out as they are found.
+     *
+     * @param fileSets the file sets, with {@link FilesMojo#DEFAULT_INCLUDES} if they have no inclusion pattern.
+     * @param capacity the maximum number of files found ahead of the ones taken.
+     * @return the files, in the order of the file sets, to be closed once done with them.
+     * @throws java.lang.IllegalStateException if the directory of a file set does not exist or is not a directory.
+     * @see #stream(List)
+     */
+    public static FileIterator stream( List<FileSet> fileSets, int capacity )
+    {
+        List<DirectoryTask> tasks = new ArrayList<>( fileSets.size() );
+        for ( FileSet fileSet : fileSets )
+        {
+            tasks.add( newTask( fileSet, false ) );
+        }
+        FileIterator iterator = new FileIterator( tasks, capacity );
+        iterator.walker.start();
+        return iterator;
+    }
+
+    /**
+     * Hand out the files found in a directory and its subdirectories, in order.
+     *
+     * @param task the task listing the directory, already started.
+     * @param sink the receiver of the files.
+     * @throws java.lang.InterruptedException if interrupted while handing out a file.
+     */
+    private static void walk( DirectoryTask task, Sink sink )
+        throws InterruptedException
+    {
+        List<Object> entries = task.join();
+        if ( !task.eager )
+        {
+            // List the subdirectories while the files before them are handed out.
+            for ( Object entry : entries )
+            {
+                if ( entry instanceof DirectoryTask )
+                {
+                    ( (DirectoryTask) entry ).fork();
+                }
+            }
+        }
+        for ( Object entry : entries )
+        {
+            if ( entry instanceof DirectoryTask )
+            {
+                walk( (DirectoryTask) entry, sink );
+            }
+            else
+            {
+                sink.add( (ChecksumFile) entry );
+            }
+        }
+    }
+
+    /**
+     * Prepare the walk of a file set.
+     *
+     * @param eager whether the subdirectories are listed as soon as found, rather than once their parent is walked.
+     */
+    private static DirectoryTask newTask( FileSet fileSet, boolean eager )
+    {
+        File directory = new File( fileSet.getDirectory() );
+        if ( !directory.exists() )
+        {
+            throw new IllegalStateException( "basedir " + directory + " does not exist" );
+        }
+        if ( !directory.isDirectory() )
+        {
+            throw new IllegalStateException( "basedir " + directory + " is not a directory" );
+        }
+
+        List<String> excludes = new ArrayList<>();
+        if ( fileSet.getExcludes() != null )
+        {
+            excludes.addAll( fileSet.getExcludes() );
+        }
+        Collections.addAll( excludes, Patterns.DEFAULT_EXCLUDES );
+        FileSetScanner scanner = new FileSetScanner(
+            fileSet.getIncludes() != null && !fileSet.getIncludes().isEmpty()
+                ? fileSet.getIncludes().toArray( new String[0] ) : FilesMojo.DEFAULT_INCLUDES,
+            excludes.toArray( new String[0] ) );
+
+        String realPath;
+        try
+        {
+            realPath = directory.toPath().toRealPath().toString();
+        }
+        catch ( IOException e )
+        {
+            realPath = null;
+        }
+        PathTable table = new PathTable( directory, realPath );
+        Attributes attributes = read( directory.toPath() );
+        return scanner.new DirectoryTask( table.getRoot(), directory.toPath(),
+                                          attributes != null && attributes.key != null
+                                              ? new Ancestor( attributes.key, null ) : null, eager );
+    }
+
+    /**
+     * Check whether a file is included.
+     *
+     * @param relativePath the path of the file relative to the base directory, with platform separators.
+     * @return {@code true} if it matches an inclusion pattern and no exclusion pattern.
+     */
+    private boolean isIncluded( String relativePath )
+    {
+        return includes.matches( relativePath ) && !excludes.matches( relativePath );
+    }
+
+    /**
+     * Check whether a directory needs to be walked.
+     *
+     * @param relativePath the path of the directory relative to the base directory, with platform separators.
+     * @return {@code false} if it cannot hold included files, or is excluded with all its content.
+     */
+    private boolean isWalked( String relativePath )
+    {
+        return !allContentExcludes.matches( relativePath ) && includes.matchesPatternStart( relativePath );
+    }
+
+    /**
+     * Normalize patterns as {@link org.apache.maven.shared.utils.io.DirectoryScanner} does, whatever their form: use
+     * the platform separators, and match all the content of the directories for patterns ending with a separator.
+     *
+     * @param patterns the patterns.
+     * @return the normalized patterns.
+     */
+    private static String[] normalize( String[] patterns )
+    {
+        String[] normalized = new String[patterns.length];
+        for ( int i = 0; i < patterns.length; i++ )
+        {
+            String pattern = patterns[i].trim().replace( '/', File.separatorChar ).replace( '\\', File.separatorChar );
+            if ( pattern.endsWith( File.separator ) )
+            {
+                pattern += "**";
+            }
+            normalized[i] = pattern;
+        }
+        return normalized;
+    }
+
+    /**
+     * Read the attributes of a file, following symbolic links.
+     *
+     * @param path the file.
+     * @return the attributes, {@code null} if they cannot be read, for example for a broken link.
+     */
+    private static Attributes read( Path path )
+    {
+        try
+        {
+            if ( unixAttributes )
+            {
+                try
+                {
+                    Map<String, Object> values = Files.readAttributes( path, UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS );
+                    if ( !(Boolean) values.get( "isSymbolicLink" ) )
+                    {
+                        return new Attributes( (Boolean) values.get( "isDirectory" ),
+                                               (Boolean) values.get( "isRegularFile" ), false,
+                                               (Long) values.get( "size" ),
+                                               ( (FileTime) values.get( "lastModifiedTime" ) ).toMillis(),
+                                               (Long) values.get( "ino" ), values.get( "fileKey" ) );
+                    }
+                    return read( Files.readAttributes( path, BasicFileAttributes.class ), true );
+                }
+                catch ( UnsupportedOperationException | IllegalArgumentException e )
+                {
+                    unixAttributes = false;
+                }
+            }
+            BasicFileAttributes attributes =
+                Files.readAttributes( path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS );
+            return attributes.isSymbolicLink() ? read( Files.readAttributes( path, BasicFileAttributes.class ), true )
+                                               : read( attributes, false );
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    private static Attributes read( BasicFileAttributes attributes, boolean link )
+    {
+        return new Attributes( attributes.isDirectory(), attributes.isRegularFile(), link, attributes.size(),
+                               attributes.lastModifiedTime().toMillis(), -1L, attributes.fileKey() );
+    }
+
+    /**
+     * Lists a directory, with a task for each subdirectory to walk.
+     */
+    private final class DirectoryTask
+        extends RecursiveTask<List<Object>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final PathTable.Directory directory;
+
+        private final Path path;
+
+        /**
+         * The keys of the directory and its parents, to detect loops of symbolic links.
+         */
+        private final Ancestor ancestors;
+
+        /**
+         * Whether the subdirectory tasks are forked as soon as the directory is listed.
+         */
+        private final boolean eager;
+
+        private DirectoryTask( PathTable.Directory directory, Path path, Ancestor ancestors, boolean eager )
+        {
+            this.directory = directory;
+            this.path = path;
+            this.ancestors = ancestors;
+            this.eager = eager;
+        }
+
+        /**
+         * List the directory.
+         *
+         * @return the files included and the tasks of the subdirectories to walk, sorted by name.
+         */
+        @Override
+        protected List<Object> compute()
+        {
+            List<String> names = new ArrayList<>();
+            try ( DirectoryStream<Path> stream = Files.newDirectoryStream( path ) )
+            {
+                for ( Path child : stream )
+                {
+                    names.add( child.getFileName().toString() );
+                }
+            }
+            catch ( IOException e )
+            {
+                // Unreadable directories are skipped, as with DirectoryScanner.
+                return Collections.emptyList();
+            }
+            Collections.sort( names );
+
+            List<Object> entries = new ArrayList<>( names.size() );
+            for ( String name : names )
+            {
+                Path child = path.resolve( name );
+                String relativePath = directory.getRelativePath() + name;
+                Attributes attributes = read( child );
+                if ( attributes == null )
+                {
+                    continue;
+                }
+                if ( attributes.directory )
+                {
+                    if ( isWalked( relativePath ) && !isLoop( attributes.key ) )
+                    {
+                        DirectoryTask task = new DirectoryTask( directory.getChild( name, attributes.link ), child,
+                                                                attributes.key != null
+                                                                    ? new Ancestor( attributes.key, ancestors )
+                                                                    : ancestors, eager );
+                        if ( eager )
+                        {
+                            task.fork();
+                        }
+                        entries.add( task );
+                    }
+                }
+                else if ( attributes.regularFile && isIncluded( relativePath ) )
+                {
+                    // The key of the target of a link identifies it, but its other attributes are read again.
+                    entries.add( attributes.link ? new ChecksumFile( directory, name, -1L, -1L, -1L, attributes.key )
+                                                 : new ChecksumFile( directory, name, attributes.size,
+                                                                     attributes.lastModified, attributes.inode,
+                                                                     attributes.key ) );
+                }
+            }
+            return entries;
+        }
+
+        private boolean isLoop( Object key )
+        {
+            for ( Ancestor ancestor = ancestors; key != null && ancestor != null; ancestor = ancestor.parent )
+            {
+                if ( key.equals( ancestor.key ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The files found by a walk in the background, in order.
+     *
+     * <p>Closing it stops the walk if not done yet.</p>
+     *
+     * @since 1.12
+     */
+    public static final class FileIterator
+        implements Iterator<ChecksumFile>, Closeable
+    {
+        /**
+         * The marker queued at the end of the walk.
+         */
+        private static final Object END = new Object();
+
+        /**
+         * The files found and not taken yet, then {@link #END} or the failure of the walk.
+         */
+        private final BlockingQueue<Object> queue;
+
+        private final Thread walker;
+
+        /**
+         * The entry taken from the queue and not handed out yet.
+         */
+        private Object next;
+
+        private FileIterator( final List<DirectoryTask> tasks, int capacity )
+        {
+            this.queue = new ArrayBlockingQueue<>( capacity );
+            final Sink sink = new Sink()
+            {
+                public void add( ChecksumFile file )
+                    throws InterruptedException
+                {
+                    queue.put( file );
+                }
+            };
+            this.walker = new Thread( "checksum-file-walker" )
+            {
+                @Override
+                public void run()
+                {
+                    Object last = END;
+                    try
+                    {
+                        for ( DirectoryTask task : tasks )
+                        {
+                            task.fork();
+                        }
+                        for ( DirectoryTask task : tasks )
+                        {
+                            walk( task, sink );
+                        }
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        // Closed before the end of the walk.
+                        return;
+                    }
+                    catch ( RuntimeException | Error e )
+                    {
+                        last = e;
+                    }
+                    try
+                    {
+                        queue.put( last );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        // Closed before the end of the walk.
+                    }
+                }
+            };
+            this.walker.setDaemon( true );
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>Waits for the next file to be found, or for the walk to end.</p>
+         */
+        @Override
+        public boolean hasNext()
+        {
+            if ( next == null )
+            {
+                try
+                {
+                    next = queue.take();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException( "Interrupted while searching the files." );
+                }
+            }
+            if ( next instanceof RuntimeException )
+            {
+                throw (RuntimeException) next;
+            }
+            if ( next instanceof Error )
+            {
+                throw (Error) next;
+            }
+            return next != END;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ChecksumFile next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            ChecksumFile file = (ChecksumFile) next;
+            next = null;
+            return file;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stop the walk if not done yet.
+         */
+        @Override
+        public void close()
+        {
+            walker.interrupt();
+        }
+    }
+
+    /**
+     * The receiver of the files found by a walk.
+     */
+    private interface Sink
+    {
+        void add( ChecksumFile file )
+            throws InterruptedException;
+    }
+
+    private static final class Ancestor
+    {
+        private final Object key;
+
+        private final Ancestor parent;
+
+        private Ancestor( Object key, Ancestor parent )
+        {
+            this.key = key;
+            this.parent = parent;
+        }
+    }
+
+    private static final class Attributes
+    {
+        private final boolean directory;
+
+        private final boolean regularFile;
+
+        private final boolean link;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final long inode;
+
+        private final Object key;
+
+        private Attributes( boolean directory, boolean regularFile, boolean link, long size, long lastModified,
+                            long inode, Object key )
+        {
+            this.directory = directory;
+            this.regularFile = regularFile;
+            this.link = link;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.inode = inode;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Inclusion or exclusion patterns, matched case sensitively by the {@code MatchPatterns} of
+     * {@code maven-shared-utils}, as by {@link org.apache.maven.shared.utils.io.DirectoryScanner}.
+     *
+     * <p>The scanning classes of {@code maven-shared-utils} are deprecated, but {@code java.nio.file} has no equivalent
+     * for the {@code %regex[...]} and {@code %ant[...]} forms, so they are still used, from this class only.</p>
+     */
+    @SuppressWarnings( "deprecation" )
+    private static final class Patterns
+    {
+        /**
+         * The default exclusions of {@link org.apache.maven.shared.utils.io.DirectoryScanner}.
+         */
+        static final String[] DEFAULT_EXCLUDES = org.apache.maven.shared.utils.io.DirectoryScanner.DEFAULTEXCLUDES;
+
+        private final org.apache.maven.shared.utils.io.MatchPatterns patterns;
+
+        Patterns( String[] patterns )
+        {
+            this.patterns = org.apache.maven.shared.utils.io.MatchPatterns.from( patterns );
+        }
+
+        boolean matches( String relativePath )
+        {
+            return patterns.matches( relativePath, true );
+        }
+
+        boolean matchesPatternStart( String relativePath )
+        {
+            return patterns.matchesPatternStart( relativePath, true );
+        }
+    }
+}
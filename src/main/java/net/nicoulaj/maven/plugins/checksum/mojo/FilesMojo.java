@@ -20,10 +20,8 @@ import org.apache.maven.model.FileSet;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.apache.maven.shared.utils.io.DirectoryScanner;
 
-import java.io.File;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -170,42 +168,29 @@ public class FilesMojo
     @Override
     protected List<ChecksumFile> getFilesToProcess()
     {
-        final List<ChecksumFile> filesToProcess = new ArrayList<>();
-        for ( final FileSet fileSet : fileSets )
-        {
-            final DirectoryScanner scanner = new DirectoryScanner();
-            final String fileSetDirectory = (new File( fileSet.getDirectory() ) ).getPath();
-
-            scanner.setBasedir( fileSetDirectory );
-            String[] includes;
-            if ( fileSet.getIncludes() != null && !fileSet.getIncludes().isEmpty() )
-            {
-                final List<String> fileSetIncludes = fileSet.getIncludes();
-                includes = fileSetIncludes.toArray( new String[0] );
-            }
-            else
-            {
-                includes = DEFAULT_INCLUDES;
-            }
-            scanner.setIncludes( includes );
-
-            if ( fileSet.getExcludes() != null && !fileSet.getExcludes().isEmpty() )
-            {
-                final List<String> fileSetExcludes = fileSet.getExcludes();
-                scanner.setExcludes( fileSetExcludes.toArray( new String[0] ) );
-            }
-
-            scanner.addDefaultExcludes();
-
-            scanner.scan();
+        return scanFileSets( fileSets );
+    }
 
-            for ( String filePath : scanner.getIncludedFiles() )
-            {
-                filesToProcess.add( new ChecksumFile( (new File( fileSetDirectory ) ).getPath(), new File( fileSetDirectory, filePath ), null, null ) );
-            }
-            }
+    /**
+     * {@inheritDoc}
+     *
+     * Search the files from which digests should be generated in the background, handing them out as they are found.
+     */
+    @Override
+    protected Iterator<ChecksumFile> getFileSource()
+    {
+        return FileSetScanner.stream( fileSets );
+    }
 
-        return filesToProcess;
+    /**
+     * Build the list of files matched by some file sets.
+     *
+     * @param fileSets the file sets, with {@link #DEFAULT_INCLUDES} if they have no inclusion pattern.
+     * @return the files, in the order of the file sets.
+     */
+    static List<ChecksumFile> scanFileSets( List<FileSet> fileSets )
+    {
+        return FileSetScanner.scan( fileSets );
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,207 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.mojo;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact representation of the paths of the files found under a base directory.
+ *
+ * <p>The directories are interned in a trie, each one holding its path relative to the base directory, so the files
+ * only hold their directory and their name. Compared to a {@link java.io.File} per file, this saves the repeated
+ * directory prefixes when scanning large trees, and the relative paths of the files do not need to be computed from
+ * their absolute paths.</p>
+ *
+ * <p>Instances are not thread safe.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see ChecksumFile#ChecksumFile(PathTable.Directory, String)
+ * @since 1.12
+ */
+public final class PathTable
+{
+    /**
+     * The base directory.
+     */
+    private final Directory root;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.mojo.PathTable}.
+     *
+     * @param baseDirectory the base directory of the files.
+     */
+    public PathTable( File baseDirectory )
+    {
+        this( baseDirectory, null );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.mojo.PathTable} whose directories know their
+     * real path, as long as they are not reached through a symbolic link.
+     *
+     * @param baseDirectory the base directory of the files.
+     * @param realPath      the real path of the base directory, {@code null} if unknown.
+     */
+    PathTable( File baseDirectory, String realPath )
+    {
+        this.root = new Directory( baseDirectory.getPath(), baseDirectory, "",
+                                   realPath == null || realPath.endsWith( File.separator ) ? realPath
+                                                                                           : realPath + File.separator );
+    }
+
+    /**
+     * Get the base directory.
+     *
+     * @return the directory at the root of the trie.
+     */
+    public Directory getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Add a file.
+     *
+     * @param relativePath the path of the file relative to the base directory, with {@code /} or the platform
+     *                     separator between its components.
+     * @return the file, sharing its directory with the other files added in it.
+     */
+    public ChecksumFile add( String relativePath )
+    {
+        Directory directory = root;
+        int start = 0;
+        for ( int i = 0; i < relativePath.length(); i++ )
+        {
+            char c = relativePath.charAt( i );
+            if ( c == '/' || c == File.separatorChar )
+            {
+                if ( i > start )
+                {
+                    directory = directory.getChild( relativePath.substring( start, i ) );
+                }
+                start = i + 1;
+            }
+        }
+        return new ChecksumFile( directory, relativePath.substring( start ) );
+    }
+
+    /**
+     * A directory of the trie.
+     */
+    public static final class Directory
+    {
+        /**
+         * The path of the base directory, shared by all the directories of the trie.
+         */
+        private final String basePath;
+
+        private final File file;
+
+        /**
+         * The path relative to the base directory, with a trailing separator, empty for the base directory.
+         */
+        private final String relativePath;
+
+        /**
+         * The real path, with a trailing separator, {@code null} if unknown.
+         */
+        private final String realPath;
+
+        /**
+         * The subdirectories, by name, {@code null} until the first one is added.
+         */
+        private Map<String, Directory> children;
+
+        private Directory( String basePath, File file, String relativePath, String realPath )
+        {
+            this.basePath = basePath;
+            this.file = file;
+            this.relativePath = relativePath;
+            this.realPath = realPath;
+        }
+
+        /**
+         * Get the path of the base directory of the trie.
+         *
+         * @return the path, as given by {@link java.io.File#getPath()}.
+         */
+        public String getBasePath()
+        {
+            return basePath;
+        }
+
+        /**
+         * Get the directory.
+         *
+         * @return the directory.
+         */
+        public File getFile()
+        {
+            return file;
+        }
+
+        /**
+         * Get the path of the directory relative to the base directory.
+         *
+         * @return the path, with a trailing platform separator, empty for the base directory.
+         */
+        public String getRelativePath()
+        {
+            return relativePath;
+        }
+
+        /**
+         * Get the real path of the directory, as given by {@link java.nio.file.Path#toRealPath(java.nio.file.LinkOption...)}.
+         *
+         * @return the path, with a trailing platform separator, {@code null} if unknown.
+         */
+        public String getRealPath()
+        {
+            return realPath;
+        }
+
+        private Directory getChild( String name )
+        {
+            return getChild( name, false );
+        }
+
+        /**
+         * Get a subdirectory, adding it if needed. Subdirectories of different directories can be added concurrently.
+         *
+         * @param name the name of the subdirectory.
+         * @param link whether the subdirectory is a symbolic link, so its real path is unknown.
+         * @return the subdirectory.
+         */
+        Directory getChild( String name, boolean link )
+        {
+            if ( children == null )
+            {
+                children = new HashMap<>();
+            }
+            Directory child = children.get( name );
+            if ( child == null )
+            {
+                child = new Directory( basePath, new File( file, name ), relativePath + name + File.separator,
+                                       link || realPath == null ? null : realPath + name + File.separator );
+                children.put( name, child );
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.mojo;
+
+import net.nicoulaj.maven.plugins.checksum.Constants;
+import net.nicoulaj.maven.plugins.checksum.cache.SessionDigestCache;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.VerificationPolicy;
+import net.nicoulaj.maven.plugins.checksum.execution.ExecutionException;
+import net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester;
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader;
+import net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader;
+import net.nicoulaj.maven.plugins.checksum.summary.SidecarSummaryReader;
+import net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.FileSet;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verify files against the checksums stored in summary files or in individual checksum files.
+ *
+ * <p>The summary files can be in any of the formats written by the other goals: CSV, XML or shasum, the format being
+ * chosen from the file extension. The files are read in parallel, once for all the algorithms verified, and all the
+ * files which do not match are reported at the end of the verification.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+@Mojo(
+    name = VerifyMojo.NAME,
+    defaultPhase = LifecyclePhase.VERIFY,
+    requiresProject = false,
+    inheritByDefault = false,
+    threadSafe = true )
+public class VerifyMojo
+    extends AbstractMojo
+{
+    /**
+     * The mojo name.
+     */
+    public static final String NAME = "verify";
+
+    /**
+     * The summary files to verify.
+     *
+     * <p>Files ending with {@code .csv} are read as CSV summaries, files ending with {@code .xml} as XML summaries,
+     * and the other ones as shasum summaries, such as the ones written by {@code sha256sum}.
+     *
+     * <p> Use the following syntax:
+     * <pre>&lt;summaryFiles&gt;
+     *   &lt;summaryFile&gt;target/checksums.csv&lt;/summaryFile&gt;
+     * &lt;/summaryFiles&gt;</pre>
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.summaryFiles" )
+    protected List<File> summaryFiles;
+
+    /**
+     * The directory the file names of the summary files are relative to.
+     *
+     * <p>The {@code files} goal writes the names of the files, or their paths relative to the directory of their file
+     * set with {@code includeRelativePath}, so set it to that directory when it is not the project base directory.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.baseDirectory", defaultValue = "${project.basedir}" )
+    protected File baseDirectory;
+
+    /**
+     * The algorithm of the checksums of the shasum summary files, such as {@code SHA3-256} or {@code CRC32}. Leave
+     * unset to guess it from the length of each checksum, among MD5, SHA-1, SHA-224, SHA-256, SHA-384 and SHA-512.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.shasumAlgorithm" )
+    protected String shasumAlgorithm;
+
+    /**
+     * The files to verify against their individual checksum files, named after them with the extension of each
+     * algorithm, such as {@code .sha256}. The checksum files themselves are ignored.
+     *
+     * <p> Use the same syntax as the {@code fileSets} of the {@code files} goal.
+     *
+     * @since 1.12
+     */
+    @Parameter
+    protected List<FileSet> sidecarFileSets;
+
+    /**
+     * The directory holding the individual checksum files. Leave unset to look for them next to each file.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.sidecarDirectory" )
+    protected File sidecarDirectory;
+
+    /**
+     * The algorithms of the individual checksum files looked for.
+     *
+     * <p>
+     * Use the following syntax:
+     * <pre>&lt;algorithms&gt;
+     *   &lt;algorithm&gt;MD5&lt;/algorithm&gt;
+     *   &lt;algorithm&gt;SHA-1&lt;/algorithm&gt;
+     * &lt;/algorithms&gt;</pre>
+     *
+     * @since 1.12
+     */
+    @Parameter
+    protected List<String> algorithms = Arrays.asList( Constants.DEFAULT_EXECUTION_ALGORITHMS );
+
+    /**
+     * The algorithms verified among the checksums available for each file.
+     *
+     * <p>Allowed values are {@code all}, {@code strongest}, {@code fastest} or a comma separated list of algorithms,
+     * as for the {@code check} goal.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.verificationPolicy", defaultValue = VerificationPolicy.ALL )
+    protected String verificationPolicy = VerificationPolicy.ALL;
+
+    /**
+     * The encoding of the summary and checksum files.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "encoding", defaultValue = "${project.build.sourceEncoding}" )
+    protected String encoding = Constants.DEFAULT_ENCODING;
+
+    /**
+     * The number of threads used to compute the checksums.
+     *
+     * <p>Use {@code 0} or a negative value for the number of processors available to the JVM, and {@code 1} to
+     * verify the files sequentially.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.threads", defaultValue = "0" )
+    protected int threads;
+
+    /**
+     * Indicates whether the build will fail if a file does not match its checksums.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.failOnError", defaultValue = "true" )
+    protected boolean failOnError = true;
+
+    /**
+     * The Maven session.
+     *
+     * @since 1.12
+     */
+    @Parameter( defaultValue = "${session}", readonly = true )
+    protected MavenSession session;
+
+    /**
+     * Indicates whether the checksums should be shared with the other executions of the plugin in the same build.
+     *
+     * <p>Disabled by default: a checksum shared by another execution was not computed from the bytes verified here,
+     * but looked up by the path, size and last modification time of the file, so enabling it trades the guarantee that
+     * the files are read for speed.</p>
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.sessionCache", defaultValue = "false" )
+    protected boolean sessionCache;
+
+    /**
+     * Flag used to suppress execution.
+     *
+     * @since 1.12
+     */
+    @Parameter( property = "checksum.skip", defaultValue = "false" )
+    protected boolean skip;
+
+    /** {@inheritDoc} */
+    @Override
+    public void execute()
+        throws MojoFailureException
+    {
+        if ( skip )
+        {
+            getLog().info( "Skipping checksum:verify execution because property checksum.skip is set." );
+            return;
+        }
+
+        Charset charset;
+        VerificationPolicy policy;
+        try
+        {
+            charset = Charset.forName( encoding );
+            policy = VerificationPolicy.parse( verificationPolicy );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+
+        Verification verification = new Verification( policy );
+        if ( summaryFiles != null )
+        {
+            for ( File summaryFile : summaryFiles )
+            {
+                for ( ChecksumSummary.Entry entry : readSummaryFile( summaryFile, charset ).getEntries() )
+                {
+                    File file = new File( entry.getName() );
+                    verification.add( file.isAbsolute() ? file : new File( baseDirectory, entry.getName() ), entry );
+                }
+            }
+        }
+        if ( sidecarFileSets != null && !sidecarFileSets.isEmpty() )
+        {
+            for ( ChecksumSummary.Entry entry : readChecksumFiles( charset ).getEntries() )
+            {
+                verification.add( new File( entry.getName() ), entry );
+            }
+        }
+
+        if ( verification.total == 0 )
+        {
+            getLog().warn( "No files to verify." );
+            return;
+        }
+        try
+        {
+            verification.run();
+        }
+        catch ( ExecutionException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+
+        for ( String failure : verification.failures )
+        {
+            getLog().error( failure );
+        }
+        if ( verification.failures.isEmpty() )
+        {
+            getLog().info( "Verified the checksums of " + verification.total + " files." );
+        }
+        else
+        {
+            String message = verification.failures.size() + " of " + verification.total
+                + " files failed verification.";
+            if ( failOnError )
+            {
+                throw new MojoFailureException( message );
+            }
+            getLog().warn( message );
+        }
+    }
+
+    /**
+     * Read a summary file, in the format given by its extension.
+     *
+     * @param summaryFile the summary file.
+     * @param charset     the encoding of the summary file.
+     * @return the summary.
+     * @throws MojoFailureException if the summary file cannot be read.
+     */
+    private ChecksumSummary readSummaryFile( File summaryFile, Charset charset )
+        throws MojoFailureException
+    {
+        String name = summaryFile.getName().toLowerCase( Locale.ROOT );
+        try
+        {
+            ChecksumSummary summary;
+            if ( name.endsWith( ".csv" ) )
+            {
+                summary = new CsvSummaryReader( charset ).read( summaryFile );
+            }
+            else if ( name.endsWith( ".xml" ) )
+            {
+                summary = new XmlSummaryReader( charset ).read( summaryFile );
+            }
+            else
+            {
+                summary = new ShasumSummaryReader( charset, shasumAlgorithm ).read( summaryFile );
+            }
+            for ( String duplicate : summary.getDuplicates() )
+            {
+                getLog().warn( "The summary file " + summaryFile.getPath() + " has several different entries for '"
+                                   + duplicate + "', the last one is used." );
+            }
+            return summary;
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Unable to read the summary file " + summaryFile.getPath() + ": "
+                                                + e.getMessage() );
+        }
+    }
+
+    /**
+     * Read the individual checksum files of the files of {@link #sidecarFileSets}.
+     *
+     * @param charset the encoding of the checksum files.
+     * @return the checksums, named after the paths of the files.
+     * @throws MojoFailureException if an algorithm is not supported or a checksum file cannot be read.
+     */
+    private ChecksumSummary readChecksumFiles( Charset charset )
+        throws MojoFailureException
+    {
+        try
+        {
+            SidecarSummaryReader reader = new SidecarSummaryReader( charset, algorithms, sidecarDirectory );
+            List<File> files = new ArrayList<>();
+            for ( ChecksumFile file : FilesMojo.scanFileSets( sidecarFileSets ) )
+            {
+                if ( !reader.isChecksumFile( file.getFile() ) )
+                {
+                    files.add( file.getFile() );
+                }
+            }
+            return reader.read( files );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new MojoFailureException( e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoFailureException( "Unable to read the checksum files: " + e.getMessage() );
+        }
+    }
+
+    /**
+     * Get the effective number of threads used to compute the checksums.
+     *
+     * @return the configured number of threads, or the number of available processors if not set.
+     */
+    private int getThreadCount()
+    {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The files to verify and the failures found.
+     */
+    private final class Verification
+    {
+        private final VerificationPolicy policy;
+
+        private final Map<ChecksumFile, ChecksumSummary.Entry> entries = new IdentityHashMap<>();
+
+        private final Map<ChecksumFile, List<String>> verifiedAlgorithms = new IdentityHashMap<>();
+
+        private final List<ChecksumFile> files = new ArrayList<>();
+
+        private final Set<String> algorithms = new LinkedHashSet<>();
+
+        private final List<String> failures = new ArrayList<>();
+
+        private int total;
+
+        private Verification( VerificationPolicy policy )
+        {
+            this.policy = policy;
+        }
+
+        /**
+         * Add a file to verify, failing it right away if it is missing, has no checksum for the verification policy
+         * or has not the size stored in the summary.
+         */
+        private void add( File file, ChecksumSummary.Entry entry )
+        {
+            total++;
+            List<String> verified = policy.select( entry.getAlgorithms() );
+            if ( verified.isEmpty() )
+            {
+                failures.add( "The file " + file.getPath() + " has no checksum for the verification policy '" + policy
+                                  + "'." );
+            }
+            else if ( !file.isFile() )
+            {
+                failures.add( "The file " + file.getPath() + " does not exist." );
+            }
+            else if ( entry.getSize() >= 0 && file.length() != entry.getSize() )
+            {
+                failures.add( "The size " + file.length() + " of the file " + file.getPath()
+                                  + " does not equal the size " + entry.getSize() + " stored in the summary." );
+            }
+            else
+            {
+                ChecksumFile checksumFile = new ChecksumFile( "", file, null, null );
+                entries.put( checksumFile, entry );
+                verifiedAlgorithms.put( checksumFile, verified );
+                files.add( checksumFile );
+                algorithms.addAll( verified );
+            }
+        }
+
+        /**
+         * Read all the files once for all the algorithms, and record the files which do not match.
+         */
+        private void run()
+            throws ExecutionException
+        {
+            if ( files.isEmpty() )
+            {
+                return;
+            }
+            List<FileDigester> digesters = new ArrayList<>();
+            for ( String algorithm : algorithms )
+            {
+                try
+                {
+                    digesters.add( DigesterFactory.getInstance().getFileDigester( algorithm ) );
+                }
+                catch ( NoSuchAlgorithmException e )
+                {
+                    throw new ExecutionException( "Unsupported algorithm " + algorithm + "." );
+                }
+            }
+            ParallelDigester digester = new ParallelDigester( new MultiFileDigester( digesters ), getThreadCount() );
+            if ( sessionCache && session != null )
+            {
+                digester.setCache( SessionDigestCache.get( session.getRepositorySession() ) );
+            }
+            digester.run( files, new ParallelDigester.Callback()
+            {
+                public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                {
+                    ChecksumSummary.Entry entry = entries.get( file );
+                    List<String> mismatches = new ArrayList<>();
+                    for ( String algorithm : verifiedAlgorithms.get( file ) )
+                    {
+                        String calculatedHash = hashes.get( algorithm );
+                        if ( !entry.matches( algorithm, calculatedHash ) )
+                        {
+                            mismatches.add( algorithm + " " + calculatedHash + " instead of "
+                                                + entry.getHashcode( algorithm ) );
+                        }
+                    }
+                    if ( !mismatches.isEmpty() )
+                    {
+                        failures.add( "The file " + file.getFile().getPath() + " does not match its checksums: "
+                                          + mismatches + "." );
+                    }
+                }
+
+                public void onError( ChecksumFile file, Exception error )
+                {
+                    failures.add( "Unable to calculate the checksums of " + file.getFile().getPath() + ": "
+                                      + error.getMessage() );
+                }
+            } );
+        }
+    }
+}
@@ -0,0 +1,624 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.summary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content of a summary file, indexed by file name.
+ *
+ * <p>The checksums are stored in a single byte array: hexadecimal checksums are decoded to their binary value, the
+ * other ones, such as the decimal values of {@code CRC32} and {@code Cksum}, are kept as text. Each row only costs a
+ * few array slots, so summaries of hundreds of thousands of files stay compact.</p>
+ *
+ * <p>Instances are immutable and built by the summary readers, such as
+ * {@link net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader}.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader
+ * @see net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader
+ * @see net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader
+ * @see net.nicoulaj.maven.plugins.checksum.summary.SidecarSummaryReader
+ * @since 1.12
+ */
+public final class ChecksumSummary
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The algorithms of each header of the file.
+     */
+    private final List<String[]> sections;
+
+    /**
+     * The index of the rows, by file name. If a file name appears several times, the last row is used.
+     */
+    private final Map<String, Integer> index;
+
+    private final String[] names;
+
+    private final long[] sizes;
+
+    private final long[] lastModified;
+
+    /**
+     * The header of each row.
+     */
+    private final int[] rowSections;
+
+    /**
+     * The index of the first cell of each row.
+     */
+    private final int[] rowCells;
+
+    /**
+     * The offsets of the cells in {@link #data}, with an extra slot for the end of the last cell.
+     */
+    private final int[] cellOffsets;
+
+    /**
+     * The cells holding text instead of a decoded hexadecimal checksum.
+     */
+    private final BitSet textCells;
+
+    private final byte[] data;
+
+    private final List<String> duplicates;
+
+    private ChecksumSummary( Builder builder )
+    {
+        this.sections = Collections.unmodifiableList( new ArrayList<>( builder.sections ) );
+        this.index = builder.index;
+        this.names = Arrays.copyOf( builder.names, builder.rows );
+        this.sizes = Arrays.copyOf( builder.sizes, builder.rows );
+        this.lastModified = Arrays.copyOf( builder.lastModified, builder.rows );
+        this.rowSections = Arrays.copyOf( builder.rowSections, builder.rows );
+        this.rowCells = Arrays.copyOf( builder.rowCells, builder.rows );
+        this.cellOffsets = Arrays.copyOf( builder.cellOffsets, builder.cells + 1 );
+        this.textCells = builder.textCells;
+        this.data = Arrays.copyOf( builder.data, builder.dataLength );
+        this.duplicates = Collections.unmodifiableList( builder.duplicates );
+    }
+
+    /**
+     * Get the number of files in the summary.
+     *
+     * @return the number of distinct file names.
+     */
+    public int size()
+    {
+        return index.size();
+    }
+
+    /**
+     * Get the entry of a file.
+     *
+     * @param name the file name, as written in the summary.
+     * @return the entry, {@code null} if the file is not in the summary.
+     */
+    public Entry get( String name )
+    {
+        Integer row = index.get( name );
+        return row != null ? new Entry( row ) : null;
+    }
+
+    /**
+     * Get the entries of all the files.
+     *
+     * @return the entries, in the order of the rows, the last row being used for the file names appearing several
+     * times.
+     */
+    public List<Entry> getEntries()
+    {
+        List<Entry> entries = new ArrayList<>( index.size() );
+        for ( int row = 0; row < names.length; row++ )
+        {
+            if ( index.get( names[row] ) == row )
+            {
+                entries.add( new Entry( row ) );
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Get the file names appearing several times in the summary with different values.
+     *
+     * @return the file names, in the order they were found.
+     */
+    public List<String> getDuplicates()
+    {
+        return duplicates;
+    }
+
+    /**
+     * Decode a hexadecimal checksum.
+     *
+     * @param hashcode the checksum.
+     * @return the binary value, {@code null} if the checksum is not made of an even number of hexadecimal digits.
+     */
+    static byte[] decodeHex( CharSequence hashcode )
+    {
+        int length = hashcode.length();
+        if ( length == 0 || ( length & 1 ) != 0 )
+        {
+            return null;
+        }
+        byte[] value = new byte[length / 2];
+        for ( int i = 0; i < length; i += 2 )
+        {
+            int high = Character.digit( hashcode.charAt( i ), 16 );
+            int low = Character.digit( hashcode.charAt( i + 1 ), 16 );
+            if ( high < 0 || low < 0 )
+            {
+                return null;
+            }
+            value[i / 2] = (byte) ( ( high << 4 ) | low );
+        }
+        return value;
+    }
+
+    private static boolean regionEquals( byte[] a, int aOffset, byte[] b, int bOffset, int length )
+    {
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( a[aOffset + i] != b[bOffset + i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The checksums of a file.
+     */
+    public final class Entry
+    {
+        private final int row;
+
+        private Entry( int row )
+        {
+            this.row = row;
+        }
+
+        /**
+         * Get the file name.
+         *
+         * @return the file name, as written in the summary.
+         */
+        public String getName()
+        {
+            return names[row];
+        }
+
+        /**
+         * Get the size of the file.
+         *
+         * @return the size in bytes, {@code -1} if not in the summary.
+         */
+        public long getSize()
+        {
+            return sizes[row];
+        }
+
+        /**
+         * Get the last modification time of the file.
+         *
+         * @return the time in milliseconds since the epoch, {@code -1} if not in the summary.
+         */
+        public long getLastModified()
+        {
+            return lastModified[row];
+        }
+
+        /**
+         * Get the algorithms for which the summary has a checksum of the file.
+         *
+         * @return the algorithms, in the order of the columns.
+         */
+        public List<String> getAlgorithms()
+        {
+            String[] algorithms = sections.get( rowSections[row] );
+            List<String> result = new ArrayList<>( algorithms.length );
+            for ( int i = 0; i < algorithms.length; i++ )
+            {
+                if ( !isEmpty( rowCells[row] + i ) )
+                {
+                    result.add( algorithms[i] );
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Get the checksum of the file for an algorithm.
+         *
+         * @param algorithm the algorithm.
+         * @return the checksum, hexadecimal ones in lower case, {@code null} if not in the summary.
+         */
+        public String getHashcode( String algorithm )
+        {
+            int cell = getCell( algorithm );
+            if ( cell < 0 )
+            {
+                return null;
+            }
+            int offset = cellOffsets[cell];
+            int length = cellOffsets[cell + 1] - offset;
+            char[] chars;
+            if ( textCells.get( cell ) )
+            {
+                chars = new char[length];
+                for ( int i = 0; i < length; i++ )
+                {
+                    chars[i] = (char) ( data[offset + i] & 0xFF );
+                }
+            }
+            else
+            {
+                chars = new char[length * 2];
+                for ( int i = 0; i < length; i++ )
+                {
+                    chars[2 * i] = HEX_DIGITS[( data[offset + i] >> 4 ) & 0xF];
+                    chars[2 * i + 1] = HEX_DIGITS[data[offset + i] & 0xF];
+                }
+            }
+            return new String( chars );
+        }
+
+        /**
+         * Check whether a checksum matches the one of the summary. Hexadecimal checksums are compared regardless of
+         * case.
+         *
+         * @param algorithm the algorithm.
+         * @param hashcode  the checksum.
+         * @return {@code true} if the summary has the same checksum for the algorithm.
+         */
+        public boolean matches( String algorithm, String hashcode )
+        {
+            int cell = getCell( algorithm );
+            if ( cell < 0 )
+            {
+                return false;
+            }
+            int offset = cellOffsets[cell];
+            int length = cellOffsets[cell + 1] - offset;
+            if ( textCells.get( cell ) )
+            {
+                if ( hashcode.length() != length )
+                {
+                    return false;
+                }
+                for ( int i = 0; i < length; i++ )
+                {
+                    if ( hashcode.charAt( i ) != ( data[offset + i] & 0xFF ) )
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            byte[] value = decodeHex( hashcode );
+            return value != null && value.length == length && regionEquals( value, 0, data, offset, length );
+        }
+
+        private int getCell( String algorithm )
+        {
+            String[] algorithms = sections.get( rowSections[row] );
+            for ( int i = 0; i < algorithms.length; i++ )
+            {
+                if ( algorithms[i].equals( algorithm ) )
+                {
+                    int cell = rowCells[row] + i;
+                    return isEmpty( cell ) ? -1 : cell;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isEmpty( int cell )
+        {
+            return cellOffsets[cell] == cellOffsets[cell + 1];
+        }
+    }
+
+    /**
+     * Builds a {@link net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary} row by row.
+     */
+    static final class Builder
+    {
+        private static final byte[] HEX_VALUES = new byte[128];
+
+        static
+        {
+            Arrays.fill( HEX_VALUES, (byte) -1 );
+            for ( int i = 0; i < 16; i++ )
+            {
+                HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+                HEX_VALUES[Character.toUpperCase( HEX_DIGITS[i] )] = (byte) i;
+            }
+        }
+
+        private final List<String[]> sections = new ArrayList<>();
+
+        /**
+         * The index of the sections, by algorithms, so that repeated headers share the same section.
+         */
+        private final Map<List<String>, Integer> sectionIndex = new HashMap<>();
+
+        private final Map<String, Integer> index;
+
+        private final List<String> duplicates = new ArrayList<>();
+
+        private final BitSet textCells = new BitSet();
+
+        private String[] names;
+
+        private long[] sizes;
+
+        private long[] lastModified;
+
+        private int[] rowSections;
+
+        private int[] rowCells;
+
+        private int[] cellOffsets;
+
+        private byte[] data;
+
+        private int section = -1;
+
+        private int rows;
+
+        private int cells;
+
+        private int dataLength;
+
+        /**
+         * Build a new builder.
+         *
+         * @param expectedRows   the expected number of rows.
+         * @param expectedLength the expected number of bytes of checksums.
+         */
+        Builder( int expectedRows, int expectedLength )
+        {
+            int capacity = Math.max( expectedRows, 16 );
+            index = new HashMap<>( (int) Math.min( capacity / 0.75f + 1, Integer.MAX_VALUE ) );
+            names = new String[capacity];
+            sizes = new long[capacity];
+            lastModified = new long[capacity];
+            rowSections = new int[capacity];
+            rowCells = new int[capacity];
+            cellOffsets = new int[capacity * 2 + 1];
+            data = new byte[Math.max( expectedLength, 64 )];
+        }
+
+        /**
+         * Start a new header, used by the following rows.
+         *
+         * @param algorithms the algorithms of the checksum columns.
+         */
+        void header( String[] algorithms )
+        {
+            List<String> key = Arrays.asList( algorithms.clone() );
+            Integer existing = sectionIndex.get( key );
+            if ( existing == null )
+            {
+                existing = sections.size();
+                sections.add( algorithms.clone() );
+                sectionIndex.put( key, existing );
+            }
+            section = existing;
+        }
+
+        /**
+         * Check whether a header was started.
+         *
+         * @return {@code true} if rows can be added.
+         */
+        boolean hasHeader()
+        {
+            return section >= 0;
+        }
+
+        /**
+         * Start a new row.
+         *
+         * @param name the file name.
+         */
+        void startRow( String name )
+        {
+            if ( rows == names.length )
+            {
+                int capacity = rows + ( rows >> 1 ) + 1;
+                names = Arrays.copyOf( names, capacity );
+                sizes = Arrays.copyOf( sizes, capacity );
+                lastModified = Arrays.copyOf( lastModified, capacity );
+                rowSections = Arrays.copyOf( rowSections, capacity );
+                rowCells = Arrays.copyOf( rowCells, capacity );
+            }
+            names[rows] = name;
+            sizes[rows] = -1;
+            lastModified[rows] = -1;
+            rowSections[rows] = section;
+            rowCells[rows] = cells;
+        }
+
+        /**
+         * Set the size of the file of the current row.
+         *
+         * @param size the size.
+         */
+        void size( long size )
+        {
+            sizes[rows] = size;
+        }
+
+        /**
+         * Set the last modification time of the file of the current row.
+         *
+         * @param time the time.
+         */
+        void lastModified( long time )
+        {
+            lastModified[rows] = time;
+        }
+
+        /**
+         * Get the number of checksum cells of the current row.
+         *
+         * @return the number of cells added to the current row.
+         */
+        int rowCells()
+        {
+            return cells - rowCells[rows];
+        }
+
+        /**
+         * Add the next checksum cell of the current row, decoding it if hexadecimal.
+         *
+         * @param buffer the buffer holding the cell, in an ASCII compatible encoding.
+         * @param start  the index of the first byte of the cell.
+         * @param end    the index after the last byte of the cell.
+         */
+        void cell( ByteBuffer buffer, int start, int end )
+        {
+            int length = end - start;
+            ensureCell( length );
+            int offset = dataLength;
+            boolean hex = length > 0 && ( length & 1 ) == 0;
+            for ( int i = start; hex && i < end; i += 2 )
+            {
+                int high = hexValue( buffer.get( i ) );
+                int low = hexValue( buffer.get( i + 1 ) );
+                if ( high < 0 || low < 0 )
+                {
+                    hex = false;
+                }
+                else
+                {
+                    data[offset++] = (byte) ( ( high << 4 ) | low );
+                }
+            }
+            if ( !hex )
+            {
+                offset = dataLength;
+                for ( int i = start; i < end; i++ )
+                {
+                    data[offset++] = buffer.get( i );
+                }
+                if ( length > 0 )
+                {
+                    textCells.set( cells );
+                }
+            }
+            dataLength = offset;
+            cellOffsets[++cells] = dataLength;
+        }
+
+        /**
+         * Add the next checksum cell of the current row, decoding it if hexadecimal.
+         *
+         * @param value the cell, empty if the summary has no checksum for the algorithm.
+         */
+        void cell( String value )
+        {
+            byte[] bytes = value.getBytes( StandardCharsets.ISO_8859_1 );
+            cell( ByteBuffer.wrap( bytes ), 0, bytes.length );
+        }
+
+        /**
+         * End the current row, the missing checksum cells being empty.
+         */
+        void endRow()
+        {
+            int expected = sections.get( rowSections[rows] ).length;
+            while ( rowCells() < expected )
+            {
+                ensureCell( 0 );
+                cellOffsets[cells + 1] = cellOffsets[cells];
+                cells++;
+            }
+
+            Integer previous = index.put( names[rows], rows );
+            if ( previous != null && !sameValues( previous, rows ) )
+            {
+                duplicates.add( names[rows] );
+            }
+            rows++;
+        }
+
+        /**
+         * Build the summary.
+         *
+         * @return the summary.
+         */
+        ChecksumSummary build()
+        {
+            return new ChecksumSummary( this );
+        }
+
+        private void ensureCell( int length )
+        {
+            if ( cells + 2 > cellOffsets.length )
+            {
+                cellOffsets = Arrays.copyOf( cellOffsets, cellOffsets.length + ( cellOffsets.length >> 1 ) + 2 );
+            }
+            if ( dataLength + length > data.length )
+            {
+                data = Arrays.copyOf( data, Math.max( dataLength + length, data.length + ( data.length >> 1 ) ) );
+            }
+        }
+
+        private boolean sameValues( int a, int b )
+        {
+            if ( sizes[a] != sizes[b] || lastModified[a] != lastModified[b]
+                || !Arrays.equals( sections.get( rowSections[a] ), sections.get( rowSections[b] ) ) )
+            {
+                return false;
+            }
+            int count = sections.get( rowSections[a] ).length;
+            for ( int i = 0; i < count; i++ )
+            {
+                int cellA = rowCells[a] + i;
+                int cellB = rowCells[b] + i;
+                int length = cellOffsets[cellA + 1] - cellOffsets[cellA];
+                if ( length != cellOffsets[cellB + 1] - cellOffsets[cellB]
+                    || textCells.get( cellA ) != textCells.get( cellB )
+                    || !regionEquals( data, cellOffsets[cellA], data, cellOffsets[cellB], length ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hexValue( byte b )
+        {
+            return b >= 0 ? HEX_VALUES[b] : -1;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.summary;
+
+import net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the CSV summary files written by {@link net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget}.
+ *
+ * <p>The file is memory-mapped, or read at once if small, and scanned byte by byte for the separators: only the file
+ * names are decoded to strings, and the checksums are decoded straight from the buffer into the index. This requires
+ * an encoding in which the separators and hexadecimal digits are single ASCII bytes, such as UTF-8 or ISO-8859-1;
+ * files in other encodings, such as UTF-16, are decoded and re-encoded to UTF-8 first.</p>
+ *
+ * <p>Lines starting with {@code #File} are headers, and apply to the following rows. The other lines starting with
+ * {@code #} and the blank lines are ignored. Empty cells mean the summary has no checksum for that algorithm.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary
+ * @since 1.12
+ */
+public class CsvSummaryReader
+{
+    /**
+     * The default size from which summary files are memory-mapped.
+     */
+    public static final long DEFAULT_MAPPING_THRESHOLD = 1024L * 1024;
+
+    private static final String HEADER = CsvSummaryFileTarget.CSV_COMMENT_MARKER + "File";
+
+    private static final byte SEPARATOR = (byte) CsvSummaryFileTarget.CSV_COLUMN_SEPARATOR.charAt( 0 );
+
+    private static final byte COMMENT = (byte) CsvSummaryFileTarget.CSV_COMMENT_MARKER.charAt( 0 );
+
+    private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    /**
+     * The characters which must be encoded as in ASCII for the file to be scanned as bytes.
+     */
+    private static final String ASCII_PROBE = "#,\r\n-.0123456789ABCDEFabcdef";
+
+    /**
+     * The column holding a checksum.
+     */
+    private static final int CHECKSUM = 0;
+
+    /**
+     * The column holding the size.
+     */
+    private static final int SIZE = 1;
+
+    /**
+     * The column holding the last modification time.
+     */
+    private static final int LAST_MODIFIED = 2;
+
+    /**
+     * The encoding of the summary files.
+     */
+    protected final Charset charset;
+
+    /**
+     * The size from which summary files are memory-mapped, a negative value disables memory mapping.
+     */
+    protected final long mappingThreshold;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader}.
+     *
+     * @param charset the encoding of the summary files.
+     */
+    public CsvSummaryReader( Charset charset )
+    {
+        this( charset, DEFAULT_MAPPING_THRESHOLD );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader}.
+     *
+     * @param charset          the encoding of the summary files.
+     * @param mappingThreshold the size from which summary files are memory-mapped, a negative value disables memory
+     *                         mapping.
+     */
+    public CsvSummaryReader( Charset charset, long mappingThreshold )
+    {
+        this.charset = charset;
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    /**
+     * Read a summary file.
+     *
+     * @param file the summary file.
+     * @return the content of the summary.
+     * @throws java.io.IOException if the file cannot be read or is malformed.
+     */
+    public ChecksumSummary read( File file )
+        throws IOException
+    {
+        ByteBuffer buffer;
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            long size = channel.size();
+            if ( size > Integer.MAX_VALUE )
+            {
+                throw new IOException( "The summary file " + file.getPath() + " is too big." );
+            }
+            if ( mappingThreshold >= 0 && size >= mappingThreshold && size > 0 )
+            {
+                buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            }
+            else
+            {
+                buffer = ByteBuffer.allocate( (int) size );
+                while ( buffer.hasRemaining() && channel.read( buffer ) >= 0 )
+                {
+                    // Read until the end of the file.
+                }
+                ( (Buffer) buffer ).flip();
+            }
+        }
+
+        Charset encoding = charset;
+        if ( !isAsciiCompatible( encoding ) )
+        {
+            buffer = StandardCharsets.UTF_8.encode( encoding.decode( buffer ) );
+            encoding = StandardCharsets.UTF_8;
+        }
+        return parse( buffer, encoding, file );
+    }
+
+    /**
+     * Check whether the separators and hexadecimal digits are single ASCII bytes in an encoding, and cannot be part
+     * of multi-byte characters.
+     *
+     * @param charset the encoding.
+     * @return {@code true} if the files can be scanned as bytes.
+     */
+    static boolean isAsciiCompatible( Charset charset )
+    {
+        return ( StandardCharsets.UTF_8.equals( charset ) || charset.newEncoder().maxBytesPerChar() == 1f )
+            && Arrays.equals( ASCII_PROBE.getBytes( StandardCharsets.US_ASCII ), ASCII_PROBE.getBytes( charset ) );
+    }
+
+    private static ChecksumSummary parse( ByteBuffer buffer, Charset charset, File file )
+        throws IOException
+    {
+        int limit = buffer.limit();
+        int position = buffer.position();
+        if ( StandardCharsets.UTF_8.equals( charset ) && startsWith( buffer, position, limit, UTF8_BOM ) )
+        {
+            position += UTF8_BOM.length;
+        }
+
+        ChecksumSummary.Builder builder = new ChecksumSummary.Builder( countLines( buffer, position, limit ),
+                                                                       ( limit - position ) / 2 );
+        byte[] header = HEADER.getBytes( StandardCharsets.US_ASCII );
+        int[] columns = new int[0];
+        int line = 0;
+        while ( position < limit )
+        {
+            line++;
+            int end = indexOf( buffer, (byte) '\n', position, limit );
+            int next = end + 1;
+            if ( end > position && buffer.get( end - 1 ) == '\r' )
+            {
+                end--;
+            }
+
+            if ( end == position )
+            {
+                // Blank line.
+            }
+            else if ( startsWith( buffer, position, end, header ) )
+            {
+                columns = readHeader( buffer, position + 1, end, builder );
+            }
+            else if ( buffer.get( position ) != COMMENT )
+            {
+                if ( !builder.hasHeader() )
+                {
+                    throw new IOException( "The summary file " + file.getPath() + " has no header line." );
+                }
+                readRow( buffer, position, end, charset, columns, builder, file, line );
+            }
+            position = next;
+        }
+        return builder.build();
+    }
+
+    private static int[] readHeader( ByteBuffer buffer, int start, int end, ChecksumSummary.Builder builder )
+    {
+        List<String> algorithms = new ArrayList<>();
+        List<Integer> kinds = new ArrayList<>();
+        int cell = indexOf( buffer, SEPARATOR, start, end );
+        while ( cell < end )
+        {
+            int cellEnd = indexOf( buffer, SEPARATOR, cell + 1, end );
+            String name = ascii( buffer, cell + 1, cellEnd ).trim();
+            if ( CsvSummaryFileTarget.CSV_SIZE_COLUMN.equals( name ) )
+            {
+                kinds.add( SIZE );
+            }
+            else if ( CsvSummaryFileTarget.CSV_LAST_MODIFIED_COLUMN.equals( name ) )
+            {
+                kinds.add( LAST_MODIFIED );
+            }
+            else
+            {
+                kinds.add( CHECKSUM );
+                algorithms.add( name );
+            }
+            cell = cellEnd;
+        }
+        builder.header( algorithms.toArray( new String[0] ) );
+
+        int[] columns = new int[kinds.size()];
+        for ( int i = 0; i < columns.length; i++ )
+        {
+            columns[i] = kinds.get( i );
+        }
+        return columns;
+    }
+
+    private static void readRow( ByteBuffer buffer, int start, int end, Charset charset, int[] columns,
+                                 ChecksumSummary.Builder builder, File file, int line )
+        throws IOException
+    {
+        int cell = indexOf( buffer, SEPARATOR, start, end );
+        builder.startRow( decode( buffer, start, cell, charset ) );
+        int column = 0;
+        while ( cell < end )
+        {
+            int cellEnd = indexOf( buffer, SEPARATOR, cell + 1, end );
+            if ( column == columns.length )
+            {
+                throw new IOException( "Too many columns at line " + line + " of the summary file " + file.getPath()
+                                           + "." );
+            }
+            switch ( columns[column++] )
+            {
+                case SIZE:
+                    builder.size( parseLong( buffer, cell + 1, cellEnd, file, line ) );
+                    break;
+                case LAST_MODIFIED:
+                    builder.lastModified( parseLong( buffer, cell + 1, cellEnd, file, line ) );
+                    break;
+                default:
+                    builder.cell( buffer, cell + 1, cellEnd );
+            }
+            cell = cellEnd;
+        }
+        builder.endRow();
+    }
+
+    private static long parseLong( ByteBuffer buffer, int start, int end, File file, int line )
+        throws IOException
+    {
+        if ( start == end )
+        {
+            return -1;
+        }
+        if ( end - start > 18 )
+        {
+            throw new IOException( "Invalid number at line " + line + " of the summary file " + file.getPath() + "." );
+        }
+        long value = 0;
+        for ( int i = start; i < end; i++ )
+        {
+            int digit = buffer.get( i ) - '0';
+            if ( digit < 0 || digit > 9 )
+            {
+                throw new IOException( "Invalid number at line " + line + " of the summary file " + file.getPath()
+                                           + "." );
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static String decode( ByteBuffer buffer, int start, int end, Charset charset )
+    {
+        for ( int i = start; i < end; i++ )
+        {
+            if ( buffer.get( i ) < 0 )
+            {
+                ByteBuffer slice = buffer.duplicate();
+                ( (Buffer) slice ).limit( end ).position( start );
+                return charset.decode( slice ).toString();
+            }
+        }
+        return ascii( buffer, start, end );
+    }
+
+    private static String ascii( ByteBuffer buffer, int start, int end )
+    {
+        char[] chars = new char[end - start];
+        for ( int i = start; i < end; i++ )
+        {
+            chars[i - start] = (char) buffer.get( i );
+        }
+        return new String( chars );
+    }
+
+    private static int countLines( ByteBuffer buffer, int start, int end )
+    {
+        int lines = 0;
+        for ( int i = start; i < end; i++ )
+        {
+            if ( buffer.get( i ) == '\n' )
+            {
+                lines++;
+            }
+        }
+        return lines + 1;
+    }
+
+    private static int indexOf( ByteBuffer buffer, byte b, int start, int end )
+    {
+        for ( int i = start; i < end; i++ )
+        {
+            if ( buffer.get( i ) == b )
+            {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean startsWith( ByteBuffer buffer, int start, int end, byte[] prefix )
+    {
+        if ( end - start < prefix.length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < prefix.length; i++ )
+        {
+            if ( buffer.get( start + i ) != prefix[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
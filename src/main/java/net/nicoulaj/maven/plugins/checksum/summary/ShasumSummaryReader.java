@@ -0,0 +1,185 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.summary;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+/**
+ * Reads the shasum summary files written by
+ * {@link net.nicoulaj.maven.plugins.checksum.execution.target.ShasumSummaryFileTarget}, and more generally the files
+ * written by the {@code shasum}, {@code sha*sum} and {@code md5sum} tools.
+ *
+ * <p>Each line holds a hexadecimal checksum, a space, a {@code *} in binary mode or a space in text mode, and the file
+ * name. Lines starting with a backslash have their file name escaped as by the GNU tools. Unless set, the algorithm of
+ * each line is guessed from the length of its checksum: MD5, SHA-1, SHA-224, SHA-256, SHA-384 or SHA-512.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary
+ * @since 1.12
+ */
+public class ShasumSummaryReader
+{
+    /**
+     * The encoding of the summary files.
+     */
+    protected final Charset charset;
+
+    /**
+     * The algorithm of the checksums, {@code null} to guess it from their length.
+     */
+    protected final String algorithm;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader} guessing the
+     * algorithms.
+     *
+     * @param charset the encoding of the summary files.
+     */
+    public ShasumSummaryReader( Charset charset )
+    {
+        this( charset, null );
+    }
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader}.
+     *
+     * @param charset   the encoding of the summary files.
+     * @param algorithm the algorithm of the checksums, {@code null} to guess it from their length.
+     */
+    public ShasumSummaryReader( Charset charset, String algorithm )
+    {
+        this.charset = charset;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Read a summary file.
+     *
+     * @param file the summary file.
+     * @return the content of the summary.
+     * @throws java.io.IOException if the file cannot be read or is malformed.
+     */
+    public ChecksumSummary read( File file )
+        throws IOException
+    {
+        ChecksumSummary.Builder builder =
+            new ChecksumSummary.Builder( (int) Math.min( file.length() / 64, Integer.MAX_VALUE ), 0 );
+        try ( BufferedReader reader = Files.newBufferedReader( file.toPath(), charset ) )
+        {
+            String current = null;
+            int number = 0;
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                number++;
+                if ( number == 1 && line.startsWith( "\uFEFF" ) )
+                {
+                    line = line.substring( 1 );
+                }
+                if ( line.trim().isEmpty() || line.startsWith( "#" ) )
+                {
+                    continue;
+                }
+
+                boolean escaped = line.startsWith( "\\" );
+                int start = escaped ? 1 : 0;
+                int separator = line.indexOf( ' ', start );
+                if ( separator < 0 || separator + 2 > line.length()
+                    || ( line.charAt( separator + 1 ) != ' ' && line.charAt( separator + 1 ) != '*' ) )
+                {
+                    throw new IOException( "Invalid line " + number + " of the summary file " + file.getPath() + "." );
+                }
+                String hashcode = line.substring( start, separator );
+                String name = line.substring( separator + 2 );
+                if ( escaped )
+                {
+                    name = unescape( name );
+                }
+
+                String lineAlgorithm = algorithm != null ? algorithm : guessAlgorithm( hashcode );
+                if ( lineAlgorithm == null )
+                {
+                    throw new IOException( "Unknown algorithm for the checksum at line " + number
+                                               + " of the summary file " + file.getPath() + "." );
+                }
+                if ( !lineAlgorithm.equals( current ) )
+                {
+                    builder.header( new String[]{ lineAlgorithm } );
+                    current = lineAlgorithm;
+                }
+                builder.startRow( name );
+                builder.cell( hashcode );
+                builder.endRow();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Guess the algorithm of a checksum from its length.
+     *
+     * @param hashcode the hexadecimal checksum.
+     * @return the algorithm, {@code null} if unknown.
+     */
+    static String guessAlgorithm( String hashcode )
+    {
+        if ( ChecksumSummary.decodeHex( hashcode ) == null )
+        {
+            return null;
+        }
+        switch ( hashcode.length() )
+        {
+            case 32:
+                return "MD5";
+            case 40:
+                return "SHA-1";
+            case 56:
+                return "SHA-224";
+            case 64:
+                return "SHA-256";
+            case 96:
+                return "SHA-384";
+            case 128:
+                return "SHA-512";
+            default:
+                return null;
+        }
+    }
+
+    private static String unescape( String name )
+    {
+        StringBuilder result = new StringBuilder( name.length() );
+        for ( int i = 0; i < name.length(); i++ )
+        {
+            char c = name.charAt( i );
+            if ( c == '\\' && i + 1 < name.length() )
+            {
+                char next = name.charAt( ++i );
+                result.append( next == 'n' ? '\n' : next == 'r' ? '\r' : next );
+            }
+            else
+            {
+                result.append( c );
+            }
+        }
+        return result.toString();
+    }
+}
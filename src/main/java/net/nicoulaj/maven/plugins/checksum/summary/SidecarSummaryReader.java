@@ -0,0 +1,141 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.summary;
+
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Reads the checksum files written next to each file, or in a common directory, by
+ * {@link net.nicoulaj.maven.plugins.checksum.execution.target.OneHashPerFileTarget}.
+ *
+ * <p>The checksum file of a file for an algorithm is named after the file, followed by the extension of the algorithm,
+ * such as {@code .sha256}. Its first word is the checksum, so the files written with the file name appended are read
+ * too. The entries of the summary are named after the paths of the files, and have no checksum for the algorithms
+ * without checksum file.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary
+ * @since 1.12
+ */
+public class SidecarSummaryReader
+{
+    /**
+     * The encoding of the checksum files.
+     */
+    protected final Charset charset;
+
+    /**
+     * The algorithms looked for.
+     */
+    protected final String[] algorithms;
+
+    /**
+     * The extensions of the checksum files, in the order of {@link #algorithms}.
+     */
+    protected final String[] extensions;
+
+    /**
+     * The directory holding the checksum files, {@code null} if they are next to each file.
+     */
+    protected final File directory;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.SidecarSummaryReader}.
+     *
+     * @param charset    the encoding of the checksum files.
+     * @param algorithms the algorithms looked for.
+     * @param directory  the directory holding the checksum files, {@code null} if they are next to each file.
+     * @throws java.security.NoSuchAlgorithmException if an algorithm is not supported.
+     */
+    public SidecarSummaryReader( Charset charset, List<String> algorithms, File directory )
+        throws NoSuchAlgorithmException
+    {
+        this.charset = charset;
+        this.algorithms = algorithms.toArray( new String[0] );
+        this.extensions = new String[this.algorithms.length];
+        for ( int i = 0; i < this.algorithms.length; i++ )
+        {
+            extensions[i] = DigesterFactory.getInstance().getFileDigester( this.algorithms[i] ).getFileExtension();
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Check whether a file is a checksum file of one of the algorithms looked for.
+     *
+     * @param file the file.
+     * @return {@code true} if its name ends with the extension of one of the algorithms.
+     */
+    public boolean isChecksumFile( File file )
+    {
+        for ( String extension : extensions )
+        {
+            if ( file.getName().endsWith( extension ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the checksum files of some files.
+     *
+     * @param files the files.
+     * @return the checksums of the files, named after their paths.
+     * @throws java.io.IOException if a checksum file cannot be read.
+     */
+    public ChecksumSummary read( List<File> files )
+        throws IOException
+    {
+        ChecksumSummary.Builder builder = new ChecksumSummary.Builder( files.size(), files.size() * 32 );
+        builder.header( algorithms );
+        for ( File file : files )
+        {
+            builder.startRow( file.getPath() );
+            File parent = directory != null ? directory : file.getAbsoluteFile().getParentFile();
+            for ( String extension : extensions )
+            {
+                File checksumFile = new File( parent, file.getName() + extension );
+                builder.cell( checksumFile.isFile() ? readChecksum( checksumFile ) : "" );
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    private String readChecksum( File checksumFile )
+        throws IOException
+    {
+        String content = new String( Files.readAllBytes( checksumFile.toPath() ), charset ).trim();
+        for ( int i = 0; i < content.length(); i++ )
+        {
+            if ( Character.isWhitespace( content.charAt( i ) ) )
+            {
+                return content.substring( 0, i );
+            }
+        }
+        return content;
+    }
+}
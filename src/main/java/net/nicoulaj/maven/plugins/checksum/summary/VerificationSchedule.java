@@ -0,0 +1,208 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.summary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Decides which files are verified by each build when only a sample of them is verified.
+ *
+ * <p>The files are split into {@code ceil(1 / sampleRate)} buckets by a hash of their key, and each build verifies the
+ * next bucket, so that all the files are verified once every {@link #getBuckets()} builds. The number of builds is
+ * kept in a state file, which is only updated after a successful verification, so that a failing bucket is verified
+ * again by the next build.</p>
+ *
+ * <p>All the files are verified by the first build, every {@code fullVerificationInterval} builds, and when requested
+ * with {@link #setFullVerification(boolean)}.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class VerificationSchedule
+{
+    /**
+     * The property of the state file holding the number of builds.
+     */
+    private static final String BUILD_PROPERTY = "build";
+
+    /**
+     * The file where the number of builds is kept.
+     */
+    protected final File stateFile;
+
+    /**
+     * The number of buckets.
+     */
+    protected final int buckets;
+
+    /**
+     * The number of builds between two full verifications, {@code 0} or less to disable them.
+     */
+    protected final int fullVerificationInterval;
+
+    /**
+     * The number of successful builds so far.
+     */
+    protected long build;
+
+    /**
+     * Whether a full verification was requested.
+     */
+    protected boolean fullVerification;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.VerificationSchedule}.
+     *
+     * @param stateFile                the file where the number of builds is kept.
+     * @param sampleRate               the fraction of the files verified by each build, between {@code 0}
+     *                                 (exclusive) and {@code 1}.
+     * @param fullVerificationInterval the number of builds between two full verifications, {@code 0} or less to
+     *                                 disable them.
+     * @throws java.lang.IllegalArgumentException if the sample rate is invalid.
+     */
+    public VerificationSchedule( File stateFile, double sampleRate, int fullVerificationInterval )
+    {
+        if ( !( sampleRate > 0 && sampleRate <= 1 ) )
+        {
+            throw new IllegalArgumentException( "Invalid sample rate " + sampleRate + ", expected a value greater "
+                                                    + "than 0 and lower than or equal to 1." );
+        }
+        this.stateFile = stateFile;
+        this.buckets = (int) Math.min( Math.ceil( 1 / sampleRate ), Integer.MAX_VALUE );
+        this.fullVerificationInterval = fullVerificationInterval;
+    }
+
+    /**
+     * Load the number of builds from the state file, if it exists.
+     *
+     * @throws java.io.IOException if the state file cannot be read.
+     */
+    public void load()
+        throws IOException
+    {
+        build = 0;
+        if ( !stateFile.isFile() )
+        {
+            return;
+        }
+        Properties state = new Properties();
+        try ( InputStream input = Files.newInputStream( stateFile.toPath() ) )
+        {
+            state.load( input );
+        }
+        try
+        {
+            build = Math.max( 0, Long.parseLong( state.getProperty( BUILD_PROPERTY, "0" ).trim() ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IOException( "Invalid verification state file " + stateFile.getPath() + ".", e );
+        }
+    }
+
+    /**
+     * Record a successful build in the state file.
+     *
+     * @throws java.io.IOException if the state file cannot be written.
+     */
+    public void save()
+        throws IOException
+    {
+        Properties state = new Properties();
+        state.setProperty( BUILD_PROPERTY, Long.toString( build + 1 ) );
+
+        Path target = stateFile.toPath();
+        Path parent = target.toAbsolutePath().getParent();
+        if ( parent != null )
+        {
+            Files.createDirectories( parent );
+        }
+        Path temporary = target.resolveSibling( target.getFileName() + ".tmp" );
+        try ( OutputStream output = Files.newOutputStream( temporary ) )
+        {
+            state.store( output, "checksum-maven-plugin verification state" );
+        }
+        try
+        {
+            Files.move( temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( temporary, target, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    /**
+     * Request a full verification, whatever the number of builds.
+     *
+     * @param fullVerification {@code true} to verify all the files.
+     */
+    public void setFullVerification( boolean fullVerification )
+    {
+        this.fullVerification = fullVerification;
+    }
+
+    /**
+     * Check whether all the files are verified by this build.
+     *
+     * @return {@code true} if all the files are verified.
+     */
+    public boolean isFullVerification()
+    {
+        return fullVerification || buckets == 1 || build == 0
+            || fullVerificationInterval > 0 && build % fullVerificationInterval == 0;
+    }
+
+    /**
+     * Get the number of buckets the files are split into.
+     *
+     * @return the number of builds needed to verify all the files.
+     */
+    public int getBuckets()
+    {
+        return buckets;
+    }
+
+    /**
+     * Get the bucket verified by this build.
+     *
+     * @return the index of the bucket.
+     */
+    public int getBucket()
+    {
+        return (int) ( build % buckets );
+    }
+
+    /**
+     * Check whether a file is verified by this build.
+     *
+     * @param key the key of the file, which must be the same across builds.
+     * @return {@code true} if the file is verified.
+     */
+    public boolean isScheduled( String key )
+    {
+        return isFullVerification() || ( key.hashCode() & Integer.MAX_VALUE ) % buckets == getBucket();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.summary;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the XML summary files written by {@link net.nicoulaj.maven.plugins.checksum.execution.target.XmlSummaryFileTarget}.
+ *
+ * <p>The file is streamed with StAX, so only the checksums of the current {@code <file>} element are held besides the
+ * summary being built. DTDs and external entities are not processed.</p>
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary
+ * @since 1.12
+ */
+public class XmlSummaryReader
+{
+    /**
+     * The encoding of the summary files, used unless the XML declaration says otherwise.
+     */
+    protected final Charset charset;
+
+    /**
+     * Build a new instance of {@link net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader}.
+     *
+     * @param charset the encoding of the summary files.
+     */
+    public XmlSummaryReader( Charset charset )
+    {
+        this.charset = charset;
+    }
+
+    /**
+     * Read a summary file.
+     *
+     * @param file the summary file.
+     * @return the content of the summary.
+     * @throws java.io.IOException if the file cannot be read or is malformed.
+     */
+    public ChecksumSummary read( File file )
+        throws IOException
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+
+        ChecksumSummary.Builder builder =
+            new ChecksumSummary.Builder( (int) Math.min( file.length() / 128, Integer.MAX_VALUE ), 0 );
+        try ( InputStream input = new BufferedInputStream( Files.newInputStream( file.toPath() ) ) )
+        {
+            XMLStreamReader reader = factory.createXMLStreamReader( input, charset.name() );
+            try
+            {
+                while ( reader.hasNext() )
+                {
+                    if ( reader.next() == XMLStreamConstants.START_ELEMENT && "file".equals( reader.getLocalName() ) )
+                    {
+                        readFile( reader, builder, file );
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( "The summary file " + file.getPath() + " is malformed: " + e.getMessage(), e );
+        }
+        return builder.build();
+    }
+
+    private static void readFile( XMLStreamReader reader, ChecksumSummary.Builder builder, File file )
+        throws XMLStreamException, IOException
+    {
+        String name = reader.getAttributeValue( null, "name" );
+        if ( name == null )
+        {
+            throw new IOException( "A file has no name at line " + reader.getLocation().getLineNumber()
+                                       + " of the summary file " + file.getPath() + "." );
+        }
+        long size = parseLong( reader, "size", file );
+        long lastModified = parseLong( reader, "lastModified", file );
+
+        List<String> algorithms = new ArrayList<>();
+        List<String> hashcodes = new ArrayList<>();
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT )
+        {
+            String algorithm = reader.getAttributeValue( null, "algorithm" );
+            String hashcode = reader.getElementText().trim();
+            if ( "hashcode".equals( reader.getLocalName() ) && algorithm != null )
+            {
+                algorithms.add( algorithm );
+                hashcodes.add( hashcode );
+            }
+        }
+
+        builder.header( algorithms.toArray( new String[0] ) );
+        builder.startRow( name );
+        builder.size( size );
+        builder.lastModified( lastModified );
+        for ( String hashcode : hashcodes )
+        {
+            builder.cell( hashcode );
+        }
+        builder.endRow();
+    }
+
+    private static long parseLong( XMLStreamReader reader, String attribute, File file )
+        throws IOException
+    {
+        String value = reader.getAttributeValue( null, attribute );
+        if ( value == null )
+        {
+            return -1;
+        }
+        try
+        {
+            return Long.parseLong( value.trim() );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IOException( "Invalid " + attribute + " at line " + reader.getLocation().getLineNumber()
+                                       + " of the summary file " + file.getPath() + "." );
+        }
+    }
+}
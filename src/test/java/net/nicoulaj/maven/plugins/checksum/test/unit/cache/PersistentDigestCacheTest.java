@@ -0,0 +1,164 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.cache;
+
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+import net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
+import net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache
+ * @since 1.12
+ */
+public class PersistentDigestCacheTest
+{
+    /**
+     * The directory holding the files used by the tests.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert cached checksums are only returned for the exact same file identity.
+     */
+    @Test
+    public void testGetMatchesIdentity()
+    {
+        PersistentDigestCache cache = new PersistentDigestCache( new File( folder.getRoot(), "cache" ) );
+        FileIdentity identity = new FileIdentity( "/a/b", 12L, 1000L, 42L );
+        cache.put( identity, "MD5", "abc" );
+        Assert.assertEquals( "abc", cache.get( new FileIdentity( "/a/b", 12L, 1000L, 42L ), "MD5" ) );
+        Assert.assertNull( cache.get( identity, "SHA-1" ) );
+        Assert.assertNull( cache.get( new FileIdentity( "/a/b", 13L, 1000L, 42L ), "MD5" ) );
+        Assert.assertNull( cache.get( new FileIdentity( "/a/b", 12L, 1001L, 42L ), "MD5" ) );
+        Assert.assertNull( cache.get( new FileIdentity( "/a/b", 12L, 1000L, 43L ), "MD5" ) );
+        Assert.assertNull( cache.get( new FileIdentity( "/a/c", 12L, 1000L, 42L ), "MD5" ) );
+    }
+
+    /**
+     * Assert files modified too recently are not cached.
+     */
+    @Test
+    public void testRecentlyModifiedFilesNotCached()
+    {
+        PersistentDigestCache cache = new PersistentDigestCache( new File( folder.getRoot(), "cache" ) );
+        FileIdentity identity = new FileIdentity( "/a/b", 12L, System.currentTimeMillis(), 42L );
+        cache.put( identity, "MD5", "abc" );
+        Assert.assertNull( cache.get( identity, "MD5" ) );
+    }
+
+    /**
+     * Assert the cache is persisted and loaded back.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testSaveAndLoad()
+        throws IOException
+    {
+        File file = new File( folder.getRoot(), "target/cache" );
+        PersistentDigestCache cache = PersistentDigestCache.load( file );
+        FileIdentity identity = new FileIdentity( "/a/path\twith tab", 12L, 1000L, -1L );
+        cache.put( identity, "SHA-512/256", "0123" );
+        cache.put( identity, "Cksum", "4294967295" );
+        cache.save();
+
+        PersistentDigestCache loaded = PersistentDigestCache.load( file );
+        Assert.assertEquals( "0123", loaded.get( identity, "SHA-512/256" ) );
+        Assert.assertEquals( "4294967295", loaded.get( identity, "Cksum" ) );
+    }
+
+    /**
+     * Assert a cache file written in another format is ignored.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testLoadUnknownFormat()
+        throws IOException
+    {
+        File file = folder.newFile( "cache" );
+        Files.write( file.toPath(), Collections.singletonList( "MD5\t12\t1000\t-1\tabc\t/a/b" ),
+                     StandardCharsets.UTF_8 );
+        Assert.assertNull( PersistentDigestCache.load( file ).get( new FileIdentity( "/a/b", 12L, 1000L, -1L ), "MD5" ) );
+    }
+
+    /**
+     * Assert only the checksums missing from the cache are computed, and then cached.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testOnlyMissingChecksumsComputed()
+        throws Exception
+    {
+        File file = folder.newFile( "file" );
+        Files.write( file.toPath(), "content".getBytes( StandardCharsets.UTF_8 ) );
+        Assert.assertTrue( file.setLastModified( System.currentTimeMillis() - 60000L ) );
+        FileIdentity identity = FileIdentity.of( file );
+
+        PersistentDigestCache cache = new PersistentDigestCache( new File( folder.getRoot(), "cache" ) );
+        cache.put( identity, "MD5", "cached" );
+
+        List<FileDigester> digesters = new ArrayList<>();
+        digesters.add( DigesterFactory.getInstance().getFileDigester( "MD5" ) );
+        digesters.add( DigesterFactory.getInstance().getFileDigester( "SHA-1" ) );
+        ParallelDigester digester = new ParallelDigester( new MultiFileDigester( digesters ), 1 );
+        digester.setCache( cache );
+
+        final List<Map<String, String>> results = new ArrayList<>();
+        digester.run( Collections.singletonList( new ChecksumFile( "", file, null, null ) ),
+                      new ParallelDigester.Callback()
+                      {
+                          public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                          {
+                              results.add( hashes );
+                          }
+
+                          public void onError( ChecksumFile file, Exception error )
+                          {
+                              Assert.fail( error.getMessage() );
+                          }
+                      } );
+
+        Assert.assertEquals( 1, results.size() );
+        Assert.assertEquals( "cached", results.get( 0 ).get( "MD5" ) );
+        String sha1 = DigesterFactory.getInstance().getFileDigester( "SHA-1" ).calculate( file );
+        Assert.assertEquals( sha1, results.get( 0 ).get( "SHA-1" ) );
+        Assert.assertEquals( sha1, cache.get( identity, "SHA-1" ) );
+    }
+}
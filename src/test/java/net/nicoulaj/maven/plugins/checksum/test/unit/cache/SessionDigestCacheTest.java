@@ -0,0 +1,87 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.cache;
+
+import net.nicoulaj.maven.plugins.checksum.cache.ChainedDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+import net.nicoulaj.maven.plugins.checksum.cache.SessionDigestCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.cache.SessionDigestCache} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.cache.SessionDigestCache
+ * @since 1.12
+ */
+public class SessionDigestCacheTest
+{
+    /**
+     * Assert all the executions of a session share the same cache, and other sessions get another one.
+     */
+    @Test
+    public void testSharedBySession()
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        SessionDigestCache cache = SessionDigestCache.get( session );
+        Assert.assertSame( cache, SessionDigestCache.get( session ) );
+        Assert.assertNotSame( cache, SessionDigestCache.get( new DefaultRepositorySystemSession() ) );
+    }
+
+    /**
+     * Assert cached checksums are only returned for the exact same file identity, and recently modified files are not
+     * cached.
+     */
+    @Test
+    public void testGetMatchesIdentity()
+    {
+        SessionDigestCache cache = SessionDigestCache.get( new DefaultRepositorySystemSession() );
+        cache.put( new FileIdentity( "/a/b", 12L, 1000L, 42L ), "SHA-1", "abc" );
+        Assert.assertEquals( "abc", cache.get( new FileIdentity( "/a/b", 12L, 1000L, 42L ), "SHA-1" ) );
+        Assert.assertNull( cache.get( new FileIdentity( "/a/b", 12L, 1000L, 42L ), "MD5" ) );
+        Assert.assertNull( cache.get( new FileIdentity( "/a/b", 12L, 2000L, 42L ), "SHA-1" ) );
+
+        FileIdentity recent = new FileIdentity( "/a/c", 12L, System.currentTimeMillis(), 42L );
+        cache.put( recent, "SHA-1", "abc" );
+        Assert.assertNull( cache.get( recent, "SHA-1" ) );
+    }
+
+    /**
+     * Assert chained caches are looked up in turn, and checksums found in a cache are copied to the previous ones.
+     */
+    @Test
+    public void testChained()
+    {
+        DigestCache first = SessionDigestCache.get( new DefaultRepositorySystemSession() );
+        DigestCache second = SessionDigestCache.get( new DefaultRepositorySystemSession() );
+        DigestCache chained = new ChainedDigestCache( Arrays.asList( first, second ) );
+        FileIdentity identity = new FileIdentity( "/a/b", 12L, 1000L, 42L );
+
+        second.put( identity, "MD5", "abc" );
+        Assert.assertEquals( "abc", chained.get( identity, "MD5" ) );
+        Assert.assertEquals( "abc", first.get( identity, "MD5" ) );
+
+        chained.put( identity, "SHA-1", "def" );
+        Assert.assertEquals( "def", first.get( identity, "SHA-1" ) );
+        Assert.assertEquals( "def", second.get( identity, "SHA-1" ) );
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.cache;
+
+import net.nicoulaj.maven.plugins.checksum.cache.ChainedDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+import net.nicoulaj.maven.plugins.checksum.cache.PersistentDigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.SidecarDigestCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.cache.SidecarDigestCache} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.cache.SidecarDigestCache
+ * @since 1.12
+ */
+public class SidecarDigestCacheTest
+{
+    private static final String SHA1 = "a9993e364706816aba3e25717850c26c9cd0d89d";
+
+    /**
+     * The directory used as local repository.
+     */
+    @Rule
+    public TemporaryFolder repository = new TemporaryFolder();
+
+    private File artifact;
+
+    /**
+     * Create an artifact in the local repository.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Before
+    public void createArtifact()
+        throws IOException
+    {
+        artifact = new File( repository.newFolder( "group", "artifact", "1.0" ), "artifact-1.0.jar" );
+        Files.write( artifact.toPath(), "abc".getBytes( StandardCharsets.US_ASCII ) );
+        Assert.assertTrue( artifact.setLastModified( System.currentTimeMillis() - 60000L ) );
+    }
+
+    /**
+     * Assert well-formed checksum files are used, possibly followed by the file name.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testGet()
+        throws IOException
+    {
+        writeSidecar( ".sha1", SHA1.toUpperCase() + "  artifact-1.0.jar\n" );
+        SidecarDigestCache cache = new SidecarDigestCache( repository.getRoot(), 0 );
+        Assert.assertEquals( SHA1, cache.get( FileIdentity.of( artifact ), "SHA-1" ) );
+        Assert.assertNull( cache.get( FileIdentity.of( artifact ), "MD5" ) );
+        Assert.assertNull( cache.get( FileIdentity.of( artifact ), "CRC32" ) );
+    }
+
+    /**
+     * Assert checksums read from checksum files are not copied to the caches looked up before, where they would be
+     * taken later as computed from the artifacts.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testNotCopiedToChainedCaches()
+        throws IOException
+    {
+        writeSidecar( ".sha1", SHA1 );
+        PersistentDigestCache computed = new PersistentDigestCache( new File( repository.getRoot(), "cache" ) );
+        ChainedDigestCache cache = new ChainedDigestCache(
+            Arrays.<DigestCache>asList( computed, new SidecarDigestCache( repository.getRoot(), 0 ) ) );
+        FileIdentity identity = FileIdentity.of( artifact );
+        Assert.assertEquals( SHA1, cache.get( identity, "SHA-1" ) );
+        Assert.assertNull( computed.get( identity, "SHA-1" ) );
+    }
+
+    /**
+     * Assert malformed checksum files are ignored.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testMalformedIgnored()
+        throws IOException
+    {
+        writeSidecar( ".sha1", "<html>Not found</html>" );
+        writeSidecar( ".md5", SHA1 );
+        SidecarDigestCache cache = new SidecarDigestCache( repository.getRoot(), 0 );
+        Assert.assertNull( cache.get( FileIdentity.of( artifact ), "SHA-1" ) );
+        Assert.assertNull( cache.get( FileIdentity.of( artifact ), "MD5" ) );
+    }
+
+    /**
+     * Assert checksum files older than their artifact are ignored.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testOlderIgnored()
+        throws IOException
+    {
+        File sidecar = writeSidecar( ".sha1", SHA1 );
+        Assert.assertTrue( sidecar.setLastModified( artifact.lastModified() - 10000L ) );
+        Assert.assertNull( new SidecarDigestCache( repository.getRoot(), 0 ).get( FileIdentity.of( artifact ), "SHA-1" ) );
+    }
+
+    /**
+     * Assert files outside of the local repository are ignored.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testOutsideRepositoryIgnored()
+        throws IOException
+    {
+        writeSidecar( ".sha1", SHA1 );
+        SidecarDigestCache cache = new SidecarDigestCache( new File( repository.getRoot(), "group/other" ), 0 );
+        Assert.assertNull( cache.get( FileIdentity.of( artifact ), "SHA-1" ) );
+    }
+
+    /**
+     * Assert verified files are reported missing, and mismatches with the checksum files are collected.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testVerification()
+        throws IOException
+    {
+        writeSidecar( ".sha1", SHA1 );
+        SidecarDigestCache cache = new SidecarDigestCache( repository.getRoot(), 1 );
+        FileIdentity identity = FileIdentity.of( artifact );
+        Assert.assertNull( cache.get( identity, "SHA-1" ) );
+
+        cache.put( identity, "SHA-1", SHA1 );
+        Assert.assertTrue( cache.getMismatches().isEmpty() );
+
+        cache.put( identity, "SHA-1", "0000000000000000000000000000000000000000" );
+        Assert.assertEquals( 1, cache.getMismatches().size() );
+    }
+
+    /**
+     * Assert the files verified are picked once, so that the lookups of a file agree, and in the expected proportion.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testVerificationRate()
+        throws IOException
+    {
+        writeSidecar( ".sha1", SHA1 );
+        SidecarDigestCache cache = new SidecarDigestCache( repository.getRoot(), 0.25 );
+        int verified = 0;
+        for ( int i = 0; i < 1000; i++ )
+        {
+            File file = new File( artifact.getParentFile(), "artifact-1.0-" + i + ".jar" );
+            Assert.assertTrue( artifact.renameTo( file ) );
+            Assert.assertTrue( new File( artifact.getPath() + ".sha1" ).renameTo( new File( file.getPath() + ".sha1" ) ) );
+            artifact = file;
+
+            FileIdentity identity = FileIdentity.of( file );
+            String digest = cache.get( identity, "SHA-1" );
+            for ( int j = 0; j < 3; j++ )
+            {
+                Assert.assertEquals( digest, cache.get( identity, "SHA-1" ) );
+            }
+            if ( digest == null )
+            {
+                verified++;
+            }
+        }
+        Assert.assertTrue( "verified " + verified + " of 1000 files", verified > 150 && verified < 350 );
+    }
+
+    /**
+     * Assert verification rates out of {@code [0, 1]} are rejected.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void testInvalidVerificationRate()
+        throws IOException
+    {
+        new SidecarDigestCache( repository.getRoot(), 1.5 );
+    }
+
+    private File writeSidecar( String extension, String content )
+        throws IOException
+    {
+        File sidecar = new File( artifact.getPath() + extension );
+        Files.write( sidecar.toPath(), content.getBytes( StandardCharsets.US_ASCII ) );
+        return sidecar;
+    }
+}
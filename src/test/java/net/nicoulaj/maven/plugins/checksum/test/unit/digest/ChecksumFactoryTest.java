@@ -17,11 +17,19 @@
 package net.nicoulaj.maven.plugins.checksum.test.unit.digest;
 
 import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Miscellaneous tests for the {@link net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory} class.
@@ -54,4 +62,67 @@ public class ChecksumFactoryTest
         exception.expect( NoSuchAlgorithmException.class );
         DigesterFactory.getInstance().getFileDigester( "SHA-666" );
     }
+
+    /**
+     * Assert a {@link java.security.NoSuchAlgorithmException} is still thrown when an unknown algorithm is looked up
+     * again.
+     *
+     * @throws java.security.NoSuchAlgorithmException
+     *          should never happen.
+     * @since 1.12
+     */
+    @Test
+    public void testNoSuchAlgorithmExceptionThrownOnRepeatedInvalidAlgorithm()
+        throws NoSuchAlgorithmException
+    {
+        try
+        {
+            DigesterFactory.getInstance().getFileDigester( "SHA-777" );
+            Assert.fail( "SHA-777 should not be supported." );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // Expected, the algorithm is now known to be unsupported.
+        }
+        exception.expect( NoSuchAlgorithmException.class );
+        DigesterFactory.getInstance().getFileDigester( "SHA-777" );
+    }
+
+    /**
+     * Assert concurrent lookups of the same algorithm all get the same
+     * {@link net.nicoulaj.maven.plugins.checksum.digest.FileDigester} instance.
+     *
+     * @throws java.lang.Exception should never happen.
+     * @since 1.12
+     */
+    @Test
+    public void testConcurrentLookupsGetSameDigester()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        try
+        {
+            List<Future<FileDigester>> results = new ArrayList<>();
+            for ( int i = 0; i < 64; i++ )
+            {
+                results.add( executor.submit( new Callable<FileDigester>()
+                {
+                    public FileDigester call()
+                        throws NoSuchAlgorithmException
+                    {
+                        return DigesterFactory.getInstance().getFileDigester( "SHA3-384" );
+                    }
+                } ) );
+            }
+            FileDigester expected = DigesterFactory.getInstance().getFileDigester( "SHA3-384" );
+            for ( Future<FileDigester> result : results )
+            {
+                Assert.assertSame( expected, result.get() );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
 }
@@ -18,10 +18,16 @@ package net.nicoulaj.maven.plugins.checksum.test.unit.digest;
 
 
 import net.nicoulaj.maven.plugins.checksum.digest.CksumFileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.StreamingDigest;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 /**
  * Special testcase for cksum {@link net.nicoulaj.maven.plugins.checksum.digest.CksumFileDigester} of the empty file
@@ -47,4 +53,70 @@ public class CksumFileDigesterTest  {
         Assert.assertEquals("4294967295", cksumEmpty);
 
     }
+
+    /**
+     * Check the standard {@code cksum} check value.
+     */
+    @Test
+    public void testCheckValue() {
+        StreamingDigest digest = new CksumFileDigester().newDigest();
+        digest.update("123456789".getBytes(StandardCharsets.US_ASCII), 0, 9);
+        Assert.assertEquals("930766865", digest.getValue());
+    }
+
+    /**
+     * Check the block-based implementation matches a bit-by-bit implementation of the algorithm, for any length and
+     * alignment of the data, fed through arrays or heap, direct and little-endian buffers.
+     */
+    @Test
+    public void testBlocksMatchReference() {
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length + 3];
+            random.nextBytes(data);
+            int offset = length % 4;
+            String expected = reference(data, offset, length);
+
+            StreamingDigest array = new CksumFileDigester().newDigest();
+            int split = length / 3;
+            array.update(data, offset, split);
+            array.update(data, offset + split, length - split);
+            Assert.assertEquals("array, length " + length, expected, array.getValue());
+
+            StreamingDigest heap = new CksumFileDigester().newDigest();
+            heap.update(ByteBuffer.wrap(data, offset, length));
+            Assert.assertEquals("heap buffer, length " + length, expected, heap.getValue());
+
+            ByteBuffer directBuffer = ByteBuffer.allocateDirect(length);
+            directBuffer.put(data, offset, length);
+            ((Buffer) directBuffer).flip();
+            StreamingDigest direct = new CksumFileDigester().newDigest();
+            direct.update(directBuffer);
+            Assert.assertEquals("direct buffer, length " + length, expected, direct.getValue());
+            Assert.assertFalse(directBuffer.hasRemaining());
+
+            StreamingDigest littleEndian = new CksumFileDigester().newDigest();
+            littleEndian.update(ByteBuffer.wrap(data, offset, length).order(ByteOrder.LITTLE_ENDIAN));
+            Assert.assertEquals("little-endian buffer, length " + length, expected, littleEndian.getValue());
+        }
+    }
+
+    private static String reference(byte[] data, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = reference(crc, data[i]);
+        }
+        for (long l = length; l != 0; l >>= 8) {
+            crc = reference(crc, (byte) l);
+        }
+        return Long.toString(~crc & 0xFFFFFFFFL);
+    }
+
+    private static int reference(int crc, byte b) {
+        crc ^= (b & 0xFF) << 24;
+        for (int bit = 0; bit < 8; bit++) {
+            crc = crc < 0 ? crc << 1 ^ 0x04C11DB7 : crc << 1;
+        }
+        return crc;
+    }
 }
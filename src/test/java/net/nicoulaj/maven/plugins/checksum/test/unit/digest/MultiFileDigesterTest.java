@@ -0,0 +1,229 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.digest;
+
+import net.nicoulaj.maven.plugins.checksum.digest.BinaryDigest;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterException;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.FileStreamer;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
+import net.nicoulaj.maven.plugins.checksum.test.unit.Constants;
+import org.apache.maven.shared.utils.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester
+ * @since 1.12
+ */
+public class MultiFileDigesterTest
+{
+    /**
+     * Check the checksums calculated in one pass for all supported algorithms are valid against pre-calculated
+     * checksums.
+     *
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     * @throws java.io.IOException if there was a problem reading the files containing the pre-calculated checksums.
+     */
+    @Test
+    public void testCalculate()
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        checkCalculate( FileStreamer.DEFAULT );
+    }
+
+    /**
+     * Check the checksums are the same when all files are memory-mapped.
+     *
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     * @throws java.io.IOException if there was a problem reading the files containing the pre-calculated checksums.
+     */
+    @Test
+    public void testCalculateMapped()
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        checkCalculate( new FileStreamer( 0 ) );
+    }
+
+    /**
+     * Check the checksums are the same when memory mapping is disabled.
+     *
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     * @throws java.io.IOException if there was a problem reading the files containing the pre-calculated checksums.
+     */
+    @Test
+    public void testCalculateNotMapped()
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        checkCalculate( new FileStreamer( -1 ) );
+    }
+
+    /**
+     * Check the digests pooled for the current thread are reset before being reused, even when a previous computation
+     * was left incomplete.
+     *
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     * @throws java.io.IOException if there was a problem reading the files containing the pre-calculated checksums.
+     */
+    @Test
+    public void testPooledDigestsAreReset()
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        for ( String algorithm : net.nicoulaj.maven.plugins.checksum.Constants.SUPPORTED_ALGORITHMS )
+        {
+            DigesterFactory.getInstance().getFileDigester( algorithm ).getDigest().update( new byte[] { 1, 2, 3 }, 0, 3 );
+        }
+        checkCalculate( FileStreamer.DEFAULT );
+    }
+
+    /**
+     * Check the binary checksums are formatted as the pre-calculated checksums, and parsed back to the same value.
+     *
+     * @throws net.nicoulaj.maven.plugins.checksum.digest.DigesterException should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     * @throws java.io.IOException if there was a problem reading the files containing the pre-calculated checksums.
+     */
+    @Test
+    public void testBinaryDigests()
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        List<FileDigester> digesters = new ArrayList<>();
+        for ( String algorithm : net.nicoulaj.maven.plugins.checksum.Constants.SUPPORTED_ALGORITHMS )
+        {
+            digesters.add( DigesterFactory.getInstance().getFileDigester( algorithm ) );
+        }
+        MultiFileDigester multiDigester = new MultiFileDigester( digesters );
+
+        for ( File testFile : FileUtils.getFiles( new File( Constants.SAMPLE_FILES_PATH ), null, null ) )
+        {
+            List<BinaryDigest> digests = multiDigester.digest( testFile );
+            Assert.assertEquals( digesters.size(), digests.size() );
+            for ( int i = 0; i < digests.size(); i++ )
+            {
+                BinaryDigest digest = digests.get( i );
+                Assert.assertEquals( digesters.get( i ).getAlgorithm(), digest.getAlgorithm() );
+                String referenceFile = Constants.SAMPLE_FILES_HASHCODES_PATH + File.separator + testFile.getName()
+                    + digesters.get( i ).getFileExtension();
+                Assert.assertEquals( FileUtils.fileRead( referenceFile ), digest.toString() );
+                Assert.assertEquals( digest, BinaryDigest.parse( digest.getAlgorithm(), digest.toString() ) );
+            }
+        }
+        Assert.assertNull( BinaryDigest.parse( "MD5", "not a checksum" ) );
+        Assert.assertNull( BinaryDigest.parse( "CRC32", "-1" ) );
+    }
+
+    /**
+     * Check the checksums are the same when the buffers and digests are shared by several threads, and when only some
+     * of the algorithms are computed.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testCalculateShared()
+        throws Exception
+    {
+        final MultiFileDigester multiDigester = newDigester( FileStreamer.DEFAULT ).shared( 2 );
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+        List<Thread> threads = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        checkCalculate( multiDigester );
+                    }
+                    catch ( Throwable e )
+                    {
+                        errors.add( e );
+                    }
+                }
+            };
+            thread.start();
+            threads.add( thread );
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        Assert.assertEquals( Collections.<Throwable>emptyList(), errors );
+
+        for ( File testFile : FileUtils.getFiles( new File( Constants.SAMPLE_FILES_PATH ), null, null ) )
+        {
+            Map<String, String> hashcodes = multiDigester.calculate( testFile, Collections.singleton( "SHA-1" ) );
+            Assert.assertEquals( Collections.singleton( "SHA-1" ), hashcodes.keySet() );
+            Assert.assertEquals( FileUtils.fileRead( Constants.SAMPLE_FILES_HASHCODES_PATH + File.separator
+                                                         + testFile.getName() + ".sha1" ), hashcodes.get( "SHA-1" ) );
+        }
+    }
+
+    private static MultiFileDigester newDigester( FileStreamer streamer )
+        throws NoSuchAlgorithmException
+    {
+        List<FileDigester> digesters = new ArrayList<>();
+        for ( String algorithm : net.nicoulaj.maven.plugins.checksum.Constants.SUPPORTED_ALGORITHMS )
+        {
+            digesters.add( DigesterFactory.getInstance().getFileDigester( algorithm ) );
+        }
+        return new MultiFileDigester( digesters, streamer );
+    }
+
+    private void checkCalculate( FileStreamer streamer )
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        checkCalculate( newDigester( streamer ) );
+    }
+
+    private void checkCalculate( MultiFileDigester multiDigester )
+        throws DigesterException, NoSuchAlgorithmException, IOException
+    {
+        List<FileDigester> digesters = multiDigester.getDigesters();
+        List<File> testFiles = FileUtils.getFiles( new File( Constants.SAMPLE_FILES_PATH ), null, null );
+        for ( File testFile : testFiles )
+        {
+            Map<String, String> hashcodes = multiDigester.calculate( testFile );
+            Assert.assertEquals( digesters.size(), hashcodes.size() );
+            for ( FileDigester digester : digesters )
+            {
+                String referenceFile = Constants.SAMPLE_FILES_HASHCODES_PATH + File.separator + testFile.getName()
+                    + digester.getFileExtension();
+                Assert.assertEquals(
+                    "The calculated " + digester.getAlgorithm() + " hashcode for " + testFile.getName() + " is incorrect.",
+                    FileUtils.fileRead( referenceFile ), hashcodes.get( digester.getAlgorithm() ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.digest;
+
+import net.nicoulaj.maven.plugins.checksum.Constants;
+import net.nicoulaj.maven.plugins.checksum.digest.VerificationPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.digest.VerificationPolicy} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.digest.VerificationPolicy
+ * @since 1.12
+ */
+public class VerificationPolicyTest
+{
+    private static final List<String> COLUMNS = Arrays.asList( "CRC32", "MD5", "SHA-1", "SHA-512" );
+
+    /**
+     * Assert all the algorithms are verified by default.
+     */
+    @Test
+    public void testAll()
+    {
+        Assert.assertEquals( COLUMNS, VerificationPolicy.parse( "ALL" ).select( COLUMNS ) );
+    }
+
+    /**
+     * Assert only the strongest algorithm is verified.
+     */
+    @Test
+    public void testStrongest()
+    {
+        VerificationPolicy policy = VerificationPolicy.parse( "strongest" );
+        Assert.assertEquals( Collections.singletonList( "SHA-512" ), policy.select( COLUMNS ) );
+        Assert.assertEquals( Collections.singletonList( "SHA-1" ), policy.select( Arrays.asList( "MD5", "SHA-1" ) ) );
+    }
+
+    /**
+     * Assert only the fastest algorithm is verified, the non cryptographic ones being used only if there is no other.
+     */
+    @Test
+    public void testFastest()
+    {
+        VerificationPolicy policy = VerificationPolicy.parse( "fastest" );
+        Assert.assertEquals( Collections.singletonList( "MD5" ), policy.select( COLUMNS ) );
+        Assert.assertEquals( Collections.singletonList( "Cksum" ),
+                             policy.select( Arrays.asList( "CRC32", "Cksum" ) ) );
+    }
+
+    /**
+     * Assert the strongest and fastest policies always select one of the available algorithms, known or not.
+     */
+    @Test
+    public void testSelectsAvailableAlgorithm()
+    {
+        List<String> algorithms = Arrays.asList( Constants.SUPPORTED_ALGORITHMS );
+        for ( String name : Arrays.asList( "strongest", "fastest" ) )
+        {
+            VerificationPolicy policy = VerificationPolicy.parse( name );
+            for ( String algorithm : algorithms )
+            {
+                Assert.assertEquals( Collections.singletonList( algorithm ),
+                                     policy.select( Collections.singletonList( algorithm ) ) );
+            }
+            Assert.assertEquals( 1, policy.select( algorithms ).size() );
+            Assert.assertEquals( Collections.singletonList( "SHA-1" ),
+                                 policy.select( Arrays.asList( "Unknown", "SHA-1" ) ) );
+        }
+    }
+
+    /**
+     * Assert an explicit list selects the listed algorithms that are available.
+     */
+    @Test
+    public void testExplicitList()
+    {
+        VerificationPolicy policy = VerificationPolicy.parse( " SHA-512 , SHA-256 " );
+        Assert.assertEquals( Collections.singletonList( "SHA-512" ), policy.select( COLUMNS ) );
+        Assert.assertTrue( policy.select( Arrays.asList( "MD5" ) ).isEmpty() );
+        Assert.assertEquals( "SHA-512,SHA-256", policy.toString() );
+    }
+
+    /**
+     * Assert an empty policy is rejected.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void testEmpty()
+    {
+        VerificationPolicy.parse( " , " );
+    }
+}
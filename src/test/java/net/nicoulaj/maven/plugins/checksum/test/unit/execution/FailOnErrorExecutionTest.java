@@ -0,0 +1,129 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.execution;
+
+import net.nicoulaj.maven.plugins.checksum.Constants;
+import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.execution.ExecutionException;
+import net.nicoulaj.maven.plugins.checksum.execution.FailOnErrorExecution;
+import net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.execution.FailOnErrorExecution} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.execution.FailOnErrorExecution
+ * @since 1.12
+ */
+public class FailOnErrorExecutionTest
+{
+    /**
+     * The directory holding the files used by the tests.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the targets are closed when a file cannot be read, and the error reading it is the one reported.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testTargetsClosedOnError()
+        throws Exception
+    {
+        File temporaryDirectory = new File( folder.getRoot(), "tmp" );
+        FailOnErrorExecution execution = newExecution( temporaryDirectory, new File( folder.getRoot(), "a.csv" ) );
+        addFiles( execution );
+        execution.addFile( new ChecksumFile( folder.getRoot().getPath(), new File( folder.getRoot(), "missing" ),
+                                             null, null ) );
+        try
+        {
+            execution.run();
+            Assert.fail( "The missing file should fail the execution." );
+        }
+        catch ( ExecutionException e )
+        {
+            Assert.assertTrue( e.getMessage(), e.getMessage().contains( "missing" ) );
+        }
+        Assert.assertArrayEquals( new String[0], temporaryDirectory.list() );
+    }
+
+    /**
+     * Assert all the targets are closed when one of them fails, and the first error is reported.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testAllTargetsClosed()
+        throws Exception
+    {
+        File temporaryDirectory = new File( folder.getRoot(), "tmp" );
+        File notDirectory = folder.newFile( "file" );
+        File summaryFile = new File( folder.getRoot(), "b.csv" );
+        FailOnErrorExecution execution =
+            newExecution( temporaryDirectory, new File( notDirectory, "a.csv" ), summaryFile );
+        addFiles( execution );
+        try
+        {
+            execution.run();
+            Assert.fail( "The summary under a file should fail the execution." );
+        }
+        catch ( ExecutionException e )
+        {
+            Assert.assertEquals( "Could not create summary file parent directory", e.getMessage() );
+        }
+        Assert.assertEquals( 11, Files.readAllLines( summaryFile.toPath(), StandardCharsets.UTF_8 ).size() );
+        Assert.assertArrayEquals( new String[0], temporaryDirectory.list() );
+    }
+
+    private void addFiles( FailOnErrorExecution execution )
+        throws Exception
+    {
+        for ( int i = 0; i < 10; i++ )
+        {
+            File file = folder.newFile( "file" + i );
+            Files.write( file.toPath(), ( "content" + i ).getBytes( StandardCharsets.UTF_8 ) );
+            execution.addFile( new ChecksumFile( folder.getRoot().getPath(), file, null, null ) );
+        }
+    }
+
+    private static FailOnErrorExecution newExecution( File temporaryDirectory, File... summaryFiles )
+    {
+        FailOnErrorExecution execution = new FailOnErrorExecution();
+        execution.setAlgorithms( Collections.singletonList( "SHA-1" ) );
+        for ( File summaryFile : summaryFiles )
+        {
+            CsvSummaryFileTarget target = new CsvSummaryFileTarget(
+                summaryFile, Constants.DEFAULT_ENCODING, Collections.<ArtifactListener>emptyList() );
+            target.setMemoryLimit( 1 );
+            target.setTemporaryDirectory( temporaryDirectory );
+            execution.addTarget( target );
+        }
+        return execution;
+    }
+}
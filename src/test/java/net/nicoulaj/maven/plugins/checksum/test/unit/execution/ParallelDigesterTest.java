@@ -0,0 +1,380 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.execution;
+
+import net.nicoulaj.maven.plugins.checksum.cache.DigestCache;
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterException;
+import net.nicoulaj.maven.plugins.checksum.digest.DigesterFactory;
+import net.nicoulaj.maven.plugins.checksum.digest.FileDigester;
+import net.nicoulaj.maven.plugins.checksum.digest.MultiFileDigester;
+import net.nicoulaj.maven.plugins.checksum.execution.ExecutionException;
+import net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester;
+import net.nicoulaj.maven.plugins.checksum.execution.VirtualThreads;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import net.nicoulaj.maven.plugins.checksum.mojo.FileSetScanner;
+import net.nicoulaj.maven.plugins.checksum.test.unit.Constants;
+import org.apache.maven.model.FileSet;
+import org.apache.maven.shared.utils.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.execution.ParallelDigester
+ * @since 1.12
+ */
+public class ParallelDigesterTest
+{
+    /**
+     * The directory holding the files used by the tests.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the results are handed back in the order of the files, with the same checksums as a sequential run, and
+     * that errors are reported for the right files.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testResultsInFilesOrder()
+        throws Exception
+    {
+        List<ChecksumFile> files = getFiles();
+        List<String> sequential = run( files, 1, false );
+        Assert.assertEquals( files.size(), sequential.size() );
+        Assert.assertEquals( sequential, run( files, 8, false ) );
+    }
+
+    /**
+     * Assert the results are the same on virtual threads, when supported by the JVM.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testResultsInFilesOrderOnVirtualThreads()
+        throws Exception
+    {
+        Assume.assumeTrue( VirtualThreads.isAvailable() );
+        List<ChecksumFile> files = getFiles();
+        Assert.assertEquals( run( files, 1, false ), run( files, 16, true ) );
+    }
+
+    /**
+     * Assert virtual threads are reported as available only if an executor can actually be created.
+     */
+    @Test
+    public void testVirtualThreadsAvailability()
+    {
+        try
+        {
+            VirtualThreads.newExecutor().shutdown();
+            Assert.assertTrue( VirtualThreads.isAvailable() );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            Assert.assertFalse( VirtualThreads.isAvailable() );
+        }
+    }
+
+    /**
+     * Assert the computation stops on the first error thrown by the callback.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testStopsOnCallbackError()
+        throws Exception
+    {
+        final List<ChecksumFile> files = getFiles();
+        final List<ChecksumFile> handled = new ArrayList<>();
+        try
+        {
+            new ParallelDigester( getDigester(), 4 ).run( files, new ParallelDigester.Callback()
+            {
+                public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                    throws ExecutionException
+                {
+                    handle( file );
+                }
+
+                public void onError( ChecksumFile file, Exception error )
+                    throws ExecutionException
+                {
+                    handle( file );
+                }
+
+                private void handle( ChecksumFile file )
+                    throws ExecutionException
+                {
+                    handled.add( file );
+                    if ( handled.size() == 3 )
+                    {
+                        throw new ExecutionException( "stop" );
+                    }
+                }
+            } );
+            Assert.fail( "The callback error should be propagated." );
+        }
+        catch ( ExecutionException e )
+        {
+            Assert.assertEquals( "stop", e.getMessage() );
+        }
+        Assert.assertEquals( files.subList( 0, 3 ), handled );
+    }
+
+    /**
+     * Assert no computation is still writing to the cache once a run stopped by the callback returns.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testStopsComputationsOnCallbackError()
+        throws Exception
+    {
+        final AtomicInteger cached = new AtomicInteger();
+        ParallelDigester digester = new ParallelDigester( getDigester(), 4 );
+        digester.setCache( new DigestCache()
+        {
+            public String get( FileIdentity file, String algorithm )
+            {
+                return null;
+            }
+
+            public void put( FileIdentity file, String algorithm, String digest )
+            {
+                // A slow cache, which does not give up when interrupted.
+                long end = System.nanoTime() + 50000000L;
+                while ( System.nanoTime() < end )
+                {
+                    Thread.yield();
+                }
+                cached.incrementAndGet();
+            }
+        } );
+        List<ChecksumFile> files = new ArrayList<>();
+        for ( int i = 0; i < 64; i++ )
+        {
+            File file = folder.newFile( "file-" + i );
+            Files.write( file.toPath(), new byte[1024] );
+            files.add( new ChecksumFile( "", file, null, null ) );
+        }
+        try
+        {
+            digester.run( files, new ParallelDigester.Callback()
+            {
+                public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                    throws ExecutionException
+                {
+                    throw new ExecutionException( "stop" );
+                }
+
+                public void onError( ChecksumFile file, Exception error )
+                    throws ExecutionException
+                {
+                    throw new ExecutionException( "stop" );
+                }
+            } );
+            Assert.fail( "The callback error should be propagated." );
+        }
+        catch ( ExecutionException e )
+        {
+            Assert.assertEquals( "stop", e.getMessage() );
+        }
+        int count = cached.get();
+        Thread.sleep( 200L );
+        Assert.assertEquals( count, cached.get() );
+    }
+
+    /**
+     * Assert paths leading to the same file are read once, and that all of them are still handed back.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testSameFileReadOnce()
+        throws Exception
+    {
+        File file = folder.newFile( "file" );
+        Files.write( file.toPath(), "content".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( folder.newFile( "copy" ).toPath(), "content".getBytes( StandardCharsets.UTF_8 ) );
+        try
+        {
+            Files.createLink( new File( folder.getRoot(), "hardlink" ).toPath(), file.toPath() );
+            Files.createSymbolicLink( new File( folder.getRoot(), "symlink" ).toPath(), file.toPath() );
+        }
+        catch ( UnsupportedOperationException | IOException e )
+        {
+            Assume.assumeNoException( e );
+        }
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory( folder.getRoot().getPath() );
+        List<ChecksumFile> files = FileSetScanner.scan( Collections.singletonList( fileSet ) );
+        Assert.assertEquals( 4, files.size() );
+
+        for ( int threads : new int[]{ 1, 4 } )
+        {
+            final AtomicInteger computed = new AtomicInteger();
+            ParallelDigester digester = new ParallelDigester( getDigester(), threads );
+            digester.setCache( new DigestCache()
+            {
+                public String get( FileIdentity file, String algorithm )
+                {
+                    return null;
+                }
+
+                public void put( FileIdentity file, String algorithm, String digest )
+                {
+                    computed.incrementAndGet();
+                }
+            } );
+            final List<String> names = new ArrayList<>();
+            final Set<Map<String, String>> hashcodes = new HashSet<>();
+            digester.run( files, new ParallelDigester.Callback()
+            {
+                public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                {
+                    names.add( file.getFile().getName() );
+                    hashcodes.add( hashes );
+                }
+
+                public void onError( ChecksumFile file, Exception error )
+                {
+                    Assert.fail( error.getMessage() );
+                }
+            } );
+            Assert.assertEquals( Arrays.asList( "copy", "file", "hardlink", "symlink" ), names );
+            Assert.assertEquals( 1, hashcodes.size() );
+            // Two algorithms for the file and its copy, the links are not read.
+            Assert.assertEquals( 4, computed.get() );
+        }
+    }
+
+    /**
+     * Assert a path listed several times without having been scanned, as an artifact can be, is read once.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testSamePathReadOnce()
+        throws Exception
+    {
+        File file = folder.newFile( "file" );
+        Files.write( file.toPath(), "content".getBytes( StandardCharsets.UTF_8 ) );
+        List<ChecksumFile> files = Arrays.asList( new ChecksumFile( "", file, null, null ),
+                                                  new ChecksumFile( "", new File( file.getPath() ), null, null ) );
+
+        for ( int threads : new int[]{ 1, 4 } )
+        {
+            final AtomicInteger computed = new AtomicInteger();
+            ParallelDigester digester = new ParallelDigester( getDigester(), threads );
+            digester.setCache( new DigestCache()
+            {
+                public String get( FileIdentity file, String algorithm )
+                {
+                    return null;
+                }
+
+                public void put( FileIdentity file, String algorithm, String digest )
+                {
+                    computed.incrementAndGet();
+                }
+            } );
+            final AtomicInteger handed = new AtomicInteger();
+            digester.run( files, new ParallelDigester.Callback()
+            {
+                public void onHashes( ChecksumFile file, Map<String, String> hashes )
+                {
+                    handed.incrementAndGet();
+                }
+
+                public void onError( ChecksumFile file, Exception error )
+                {
+                    Assert.fail( error.getMessage() );
+                }
+            } );
+            Assert.assertEquals( 2, handed.get() );
+            // Two algorithms, read once.
+            Assert.assertEquals( 2, computed.get() );
+        }
+    }
+
+    private static List<ChecksumFile> getFiles()
+        throws IOException
+    {
+        List<ChecksumFile> files = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            for ( File file : FileUtils.getFiles( new File( Constants.SAMPLE_FILES_PATH ), null, null ) )
+            {
+                files.add( new ChecksumFile( "", file, null, null ) );
+            }
+            files.add( new ChecksumFile( "", new File( Constants.SAMPLE_FILES_PATH, "missing-" + i ), null, null ) );
+        }
+        return files;
+    }
+
+    private static MultiFileDigester getDigester()
+        throws NoSuchAlgorithmException
+    {
+        List<FileDigester> digesters = new ArrayList<>();
+        digesters.add( DigesterFactory.getInstance().getFileDigester( "SHA-256" ) );
+        digesters.add( DigesterFactory.getInstance().getFileDigester( "Cksum" ) );
+        return new MultiFileDigester( digesters );
+    }
+
+    private static List<String> run( List<ChecksumFile> files, int threads, boolean virtualThreads )
+        throws ExecutionException, NoSuchAlgorithmException
+    {
+        final List<String> results = Collections.synchronizedList( new ArrayList<String>() );
+        new ParallelDigester( getDigester(), threads, virtualThreads ).run( files, new ParallelDigester.Callback()
+        {
+            public void onHashes( ChecksumFile file, Map<String, String> hashes )
+            {
+                results.add( file.getFile().getName() + " " + hashes );
+            }
+
+            public void onError( ChecksumFile file, Exception error )
+            {
+                Assert.assertTrue( error instanceof DigesterException );
+                results.add( file.getFile().getName() + " error" );
+            }
+        } );
+        return results;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.execution.target;
+
+import net.nicoulaj.maven.plugins.checksum.Constants;
+import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget;
+import net.nicoulaj.maven.plugins.checksum.execution.target.SharedSummary;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.execution.target.CsvSummaryFileTarget} {@link
+ * net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget}.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class CsvSummaryFileTargetTest
+{
+    /**
+     * The directory holding the summarized files and the summary.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the summary only holds the checksums by default.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testChecksumsOnly()
+        throws Exception
+    {
+        File summary = folder.newFile( "summary.csv" );
+        write( new CsvSummaryFileTarget( summary, Constants.DEFAULT_ENCODING,
+                                         Collections.<ArtifactListener>emptyList() ) );
+        Assert.assertEquals( Arrays.asList( "#File,MD5,SHA-1", "file.txt,md5,sha1" ), read( summary ) );
+    }
+
+    /**
+     * Assert the size and last modification time columns are written after the file name.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testSizeAndLastModified()
+        throws Exception
+    {
+        File summary = folder.newFile( "summary.csv" );
+        File file = write( new CsvSummaryFileTarget( summary, Constants.DEFAULT_ENCODING,
+                                                     Collections.<ArtifactListener>emptyList(), true, true ) );
+        Assert.assertEquals( Arrays.asList( "#File,Size,LastModified,MD5,SHA-1",
+                                            "file.txt,3," + file.lastModified() + ",md5,sha1" ), read( summary ) );
+    }
+
+    /**
+     * Assert the summary is the same when the checksums are spilled to temporary files and merged in several passes,
+     * and that the temporary files are deleted.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testSpilled()
+        throws Exception
+    {
+        File directory = folder.newFolder( "files" );
+        List<ChecksumFile> files = new ArrayList<>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            files.add( new ChecksumFile( directory.getPath(), new File( directory, "dir" + ( i % 7 ) + "/file" + i ),
+                                         null, null ) );
+        }
+        Collections.shuffle( files, new Random( 0 ) );
+
+        File expected = folder.newFile( "expected.csv" );
+        File actual = folder.newFile( "actual.csv" );
+        CsvSummaryFileTarget spilled =
+            new CsvSummaryFileTarget( actual, Constants.DEFAULT_ENCODING, Collections.<ArtifactListener>emptyList() );
+        spilled.setMemoryLimit( 1 );
+        File temporaryDirectory = new File( folder.getRoot(), "tmp" );
+        spilled.setTemporaryDirectory( temporaryDirectory );
+        for ( CsvSummaryFileTarget target : Arrays.asList(
+            new CsvSummaryFileTarget( expected, Constants.DEFAULT_ENCODING, Collections.<ArtifactListener>emptyList() ),
+            spilled ) )
+        {
+            target.init();
+            for ( ChecksumFile file : files )
+            {
+                target.write( "md5-" + file.getFile().getName(), file, "MD5" );
+                target.write( "sha1-" + file.getFile().getName(), file, "SHA-1" );
+            }
+            target.close( "" );
+        }
+
+        List<String> lines = read( expected );
+        Assert.assertEquals( 501, lines.size() );
+        Assert.assertEquals( "dir0" + File.separator + "file0,md5-file0,sha1-file0", lines.get( 1 ) );
+        Assert.assertEquals( lines, read( actual ) );
+        Assert.assertArrayEquals( new String[0], temporaryDirectory.list() );
+    }
+
+    /**
+     * Assert targets sharing their results write the same summaries as separate targets, including when the results
+     * are spilled to temporary files.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testShared()
+        throws Exception
+    {
+        File directory = folder.newFolder( "files" );
+        List<ChecksumFile> files = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            File file = new File( directory, "dir" + ( i % 5 ) + "/file" + i );
+            Assert.assertTrue( file.getParentFile().mkdirs() || file.getParentFile().isDirectory() );
+            Files.write( file.toPath(), new byte[i] );
+            files.add( new ChecksumFile( directory.getPath(), file, null, null ) );
+        }
+        Collections.shuffle( files, new Random( 0 ) );
+
+        for ( long memoryLimit : new long[]{ Long.MAX_VALUE, 1 } )
+        {
+            SharedSummary shared = new SharedSummary();
+            List<CsvSummaryFileTarget> targets = new ArrayList<>();
+            List<File> summaries = new ArrayList<>();
+            for ( int i = 0; i < 4; i++ )
+            {
+                File summary = new File( folder.getRoot(), "summary-" + memoryLimit + "-" + i + ".csv" );
+                boolean withSize = i % 2 == 1;
+                CsvSummaryFileTarget target = new CsvSummaryFileTarget(
+                    summary, Constants.DEFAULT_ENCODING, Collections.<ArtifactListener>emptyList(), withSize, false );
+                target.setMemoryLimit( memoryLimit );
+                if ( i < 2 )
+                {
+                    target.setSharedSummary( shared );
+                }
+                targets.add( target );
+                summaries.add( summary );
+            }
+
+            for ( CsvSummaryFileTarget target : targets )
+            {
+                target.init();
+            }
+            for ( ChecksumFile file : files )
+            {
+                for ( String algorithm : Arrays.asList( "MD5", "SHA-1" ) )
+                {
+                    for ( CsvSummaryFileTarget target : targets )
+                    {
+                        target.write( algorithm + "-" + file.getFile().getName(), file, algorithm );
+                    }
+                }
+            }
+            for ( CsvSummaryFileTarget target : targets )
+            {
+                target.close( "" );
+            }
+
+            Assert.assertEquals( 201, read( summaries.get( 2 ) ).size() );
+            Assert.assertEquals( read( summaries.get( 2 ) ), read( summaries.get( 0 ) ) );
+            Assert.assertEquals( read( summaries.get( 3 ) ), read( summaries.get( 1 ) ) );
+            Assert.assertEquals( "dir0" + File.separator + "file0,0,MD5-file0,SHA-1-file0",
+                                 read( summaries.get( 1 ) ).get( 1 ) );
+        }
+    }
+
+    private File write( CsvSummaryFileTarget target )
+        throws Exception
+    {
+        File file = folder.newFile( "file.txt" );
+        Files.write( file.toPath(), "abc".getBytes( StandardCharsets.US_ASCII ) );
+        ChecksumFile checksumFile = new ChecksumFile( "", file, null, null );
+        target.init();
+        target.write( "sha1", checksumFile, "SHA-1" );
+        target.write( "md5", checksumFile, "MD5" );
+        target.close( null );
+        return file;
+    }
+
+    private static List<String> read( File summary )
+        throws Exception
+    {
+        return Files.readAllLines( summary.toPath(), StandardCharsets.UTF_8 );
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.execution.target;
+
+import net.nicoulaj.maven.plugins.checksum.Constants;
+import net.nicoulaj.maven.plugins.checksum.artifacts.ArtifactListener;
+import net.nicoulaj.maven.plugins.checksum.execution.target.XmlSummaryFileTarget;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.execution.target.XmlSummaryFileTarget} {@link
+ * net.nicoulaj.maven.plugins.checksum.execution.target.ExecutionTarget}.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @since 1.12
+ */
+public class XmlSummaryFileTargetTest
+{
+    private static final String LS = System.lineSeparator();
+
+    /**
+     * The directory holding the summarized files and the summary.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the summary is indented, with the hashcodes in the order they were written.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testFormat()
+        throws Exception
+    {
+        File summary = folder.newFile( "summary.xml" );
+        File file = folder.newFile( "file.txt" );
+        Files.write( file.toPath(), "abc".getBytes( StandardCharsets.US_ASCII ) );
+        XmlSummaryFileTarget target = new XmlSummaryFileTarget( summary, Constants.DEFAULT_ENCODING,
+                                                                Collections.<ArtifactListener>emptyList(), true,
+                                                                false );
+        target.init();
+        ChecksumFile checksumFile = new ChecksumFile( "", file, null, null );
+        target.write( "900150983cd24fb0d6963f7d28e17f72", checksumFile, "MD5" );
+        target.write( "a9993e364706816aba3e25717850c26c9cd0d89d", checksumFile, "SHA-1" );
+        target.close( null );
+
+        Assert.assertEquals( "<files>" + LS
+                                 + "  <file name=\"file.txt\" size=\"3\">" + LS
+                                 + "    <hashcode algorithm=\"MD5\">900150983cd24fb0d6963f7d28e17f72</hashcode>" + LS
+                                 + "    <hashcode algorithm=\"SHA-1\">a9993e364706816aba3e25717850c26c9cd0d89d</hashcode>"
+                                 + LS + "  </file>" + LS
+                                 + "</files>",
+                             new String( Files.readAllBytes( summary.toPath() ), StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Assert the names are escaped, so the summary can be read back.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testEscapedNames()
+        throws Exception
+    {
+        File summary = folder.newFile( "summary.xml" );
+        File file = folder.newFile( "a&b'\"c.txt" );
+        XmlSummaryFileTarget target = new XmlSummaryFileTarget( summary, Constants.DEFAULT_ENCODING,
+                                                                Collections.<ArtifactListener>emptyList() );
+        target.init();
+        target.write( "d41d8cd98f00b204e9800998ecf8427e", new ChecksumFile( "", file, null, null ), "MD5" );
+        target.close( null );
+
+        ChecksumSummary read = new XmlSummaryReader( StandardCharsets.UTF_8 ).read( summary );
+        Assert.assertEquals( 1, read.size() );
+        Assert.assertEquals( "d41d8cd98f00b204e9800998ecf8427e", read.get( file.getName() ).getHashcode( "MD5" ) );
+    }
+
+    /**
+     * Assert a summary without files is an empty element.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testEmpty()
+        throws Exception
+    {
+        File summary = folder.newFile( "summary.xml" );
+        XmlSummaryFileTarget target = new XmlSummaryFileTarget( summary, Constants.DEFAULT_ENCODING,
+                                                                Collections.<ArtifactListener>emptyList() );
+        target.init();
+        target.close( null );
+
+        Assert.assertEquals( "<files/>", new String( Files.readAllBytes( summary.toPath() ), StandardCharsets.UTF_8 ) );
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.mojo;
+
+import net.nicoulaj.maven.plugins.checksum.cache.FileIdentity;
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import net.nicoulaj.maven.plugins.checksum.mojo.FileSetScanner;
+import org.apache.maven.model.FileSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.mojo.FileSetScanner} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.mojo.FileSetScanner
+ * @since 1.12
+ */
+public class FileSetScannerTest
+{
+    private static final String[] FILES = {
+        "a.txt", "b.xml", "c.txt~", ".gitignore", "dir/a.txt", "dir/b.xml", "dir/sub/c.txt", "dir/sub/deep/d.txt",
+        "other/e.txt", "other/dir/f.xml", ".git/config", "dir/.svn/entries", "g?.txt", "h[1].txt" };
+
+    private static final List<List<String>> INCLUDES = Arrays.asList(
+        Collections.<String>emptyList(),
+        Collections.singletonList( "*.txt" ),
+        Collections.singletonList( "**/*.txt" ),
+        Arrays.asList( "dir/**", "*.xml" ),
+        Collections.singletonList( "dir/" ),
+        Collections.singletonList( "**/sub/**/*.txt" ),
+        Collections.singletonList( "?.txt" ),
+        Collections.singletonList( "dir\\*\\*.txt" ),
+        Collections.singletonList( "h[1].txt" ),
+        Collections.singletonList( "%regex[.*txt]" ),
+        Collections.singletonList( "%regex[dir/[^/]*txt]" ),
+        Collections.singletonList( "%ant[**/*.txt]" ),
+        Arrays.asList( "%ant[dir/**]", "%regex[.*\\.xml]" ) );
+
+    private static final List<List<String>> EXCLUDES = Arrays.asList(
+        Collections.<String>emptyList(),
+        Collections.singletonList( "**/sub/**" ),
+        Arrays.asList( "dir/*.txt", "**/*.xml" ),
+        Collections.singletonList( "other/" ),
+        Collections.singletonList( "%regex[.*sub.*]" ),
+        Collections.singletonList( "%ant[**/sub/**]" ) );
+
+    /**
+     * The directory holding the scanned files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Create the scanned files.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Before
+    public void createFiles()
+        throws Exception
+    {
+        for ( String path : FILES )
+        {
+            File file = new File( folder.getRoot(), path );
+            Assert.assertTrue( file.getParentFile().isDirectory() || file.getParentFile().mkdirs() );
+            Files.write( file.toPath(), path.getBytes( StandardCharsets.UTF_8 ) );
+        }
+    }
+
+    /**
+     * Assert the files found are the ones found by a {@link org.apache.maven.shared.utils.io.DirectoryScanner} with
+     * its default exclusions.
+     */
+    @Test
+    public void testSameFilesAsDirectoryScanner()
+    {
+        for ( List<String> includes : INCLUDES )
+        {
+            for ( List<String> excludes : EXCLUDES )
+            {
+                FileSet fileSet = new FileSet();
+                fileSet.setDirectory( folder.getRoot().getPath() );
+                fileSet.setIncludes( new ArrayList<>( includes ) );
+                fileSet.setExcludes( new ArrayList<>( excludes ) );
+
+                List<String> expected = scanWithDirectoryScanner( includes, excludes );
+
+                List<String> actual = new ArrayList<>();
+                for ( ChecksumFile file : FileSetScanner.scan( Collections.singletonList( fileSet ) ) )
+                {
+                    Assert.assertEquals( folder.getRoot().getPath(), file.getBasePath() );
+                    actual.add( file.getRelativePath( file, "" ) );
+                }
+                Collections.sort( actual );
+                Assert.assertEquals( "includes " + includes + ", excludes " + excludes, expected, actual );
+            }
+        }
+    }
+
+    /**
+     * Find the files included by a {@link org.apache.maven.shared.utils.io.DirectoryScanner}, the reference this
+     * scanner is compared to, even though it is deprecated.
+     */
+    @SuppressWarnings( "deprecation" )
+    private List<String> scanWithDirectoryScanner( List<String> includes, List<String> excludes )
+    {
+        org.apache.maven.shared.utils.io.DirectoryScanner scanner =
+            new org.apache.maven.shared.utils.io.DirectoryScanner();
+        scanner.setBasedir( folder.getRoot() );
+        scanner.setIncludes( includes.isEmpty() ? new String[]{ "**/**" } : includes.toArray( new String[0] ) );
+        scanner.setExcludes( excludes.toArray( new String[0] ) );
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        List<String> files = new ArrayList<>( Arrays.asList( scanner.getIncludedFiles() ) );
+        Collections.sort( files );
+        return files;
+    }
+
+    /**
+     * Assert the attributes read while scanning are the ones read from the files.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test
+    public void testAttributes()
+        throws Exception
+    {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory( folder.getRoot().getPath() );
+        List<ChecksumFile> files = FileSetScanner.scan( Arrays.asList( fileSet, fileSet ) );
+        Assert.assertEquals( 22, files.size() );
+        for ( ChecksumFile file : files )
+        {
+            Assert.assertEquals( file.getFile().length(), file.getSize() );
+            Assert.assertEquals( file.getFile().lastModified(), file.getLastModified() );
+            Assert.assertEquals( FileIdentity.of( file.getFile() ), file.getIdentity() );
+        }
+    }
+
+    /**
+     * Assert the files handed out as they are found are the ones scanned, in the same order, even when the walk has
+     * to wait for them to be taken.
+     */
+    @Test
+    public void testStream()
+    {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory( folder.getRoot().getPath() );
+        List<FileSet> fileSets = Arrays.asList( fileSet, fileSet );
+        List<String> expected = new ArrayList<>();
+        for ( ChecksumFile file : FileSetScanner.scan( fileSets ) )
+        {
+            expected.add( file.getFile().getPath() );
+        }
+
+        List<String> actual = new ArrayList<>();
+        try ( FileSetScanner.FileIterator files = FileSetScanner.stream( fileSets, 1 ) )
+        {
+            while ( files.hasNext() )
+            {
+                actual.add( files.next().getFile().getPath() );
+            }
+            Assert.assertFalse( files.hasNext() );
+        }
+        Assert.assertEquals( expected, actual );
+    }
+
+    /**
+     * Assert a stream closed before its end stops the walk.
+     *
+     * @throws java.lang.Exception should never happen.
+     */
+    @Test( timeout = 10000L )
+    public void testStreamClosed()
+        throws Exception
+    {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory( folder.getRoot().getPath() );
+        FileSetScanner.FileIterator files = FileSetScanner.stream( Collections.singletonList( fileSet ), 1 );
+        Assert.assertTrue( files.hasNext() );
+        files.next();
+        files.close();
+    }
+
+    /**
+     * Assert a missing directory is reported before streaming.
+     */
+    @Test( expected = IllegalStateException.class )
+    public void testStreamMissingDirectory()
+    {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory( new File( folder.getRoot(), "missing" ).getPath() );
+        FileSetScanner.stream( Collections.singletonList( fileSet ) );
+    }
+
+    /**
+     * Assert a missing directory is reported.
+     */
+    @Test( expected = IllegalStateException.class )
+    public void testMissingDirectory()
+    {
+        FileSet fileSet = new FileSet();
+        fileSet.setDirectory( new File( folder.getRoot(), "missing" ).getPath() );
+        FileSetScanner.scan( Collections.singletonList( fileSet ) );
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.mojo;
+
+import net.nicoulaj.maven.plugins.checksum.mojo.ChecksumFile;
+import net.nicoulaj.maven.plugins.checksum.mojo.PathTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.mojo.PathTable} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.mojo.PathTable
+ * @since 1.12
+ */
+public class PathTableTest
+{
+    private static final String SEPARATOR = File.separator;
+
+    private static final String[] PATHS = {
+        "a.txt",
+        "dir" + SEPARATOR + "b.txt",
+        "dir" + SEPARATOR + "sub" + SEPARATOR + "c.txt",
+        "other" + SEPARATOR + "dir" + SEPARATOR + "d.txt" };
+
+    private static final String[] SUB_PATHS = { null, "", "dir", "dir" + SEPARATOR, "dir" + SEPARATOR + "sub" };
+
+    /**
+     * Assert the files of a table have the same paths as the files built from their absolute path.
+     */
+    @Test
+    public void testSamePathsAsFiles()
+    {
+        File baseDirectory = new File( "target" + SEPARATOR + "base" );
+        PathTable table = new PathTable( baseDirectory );
+        for ( String path : PATHS )
+        {
+            ChecksumFile file = table.add( path );
+            ChecksumFile expected = new ChecksumFile( baseDirectory.getPath(), new File( baseDirectory, path ), null,
+                                                      null );
+            Assert.assertEquals( expected.getBasePath(), file.getBasePath() );
+            Assert.assertEquals( expected.getFile(), file.getFile() );
+            for ( String subPath : SUB_PATHS )
+            {
+                Assert.assertEquals( path + " relative to " + subPath, expected.getRelativePath( expected, subPath ),
+                                     file.getRelativePath( file, subPath ) );
+            }
+        }
+    }
+
+    /**
+     * Assert the directories are shared by the files they contain.
+     */
+    @Test
+    public void testDirectoriesShared()
+    {
+        PathTable table = new PathTable( new File( "base" ) );
+        ChecksumFile first = table.add( "dir/sub/a.txt" );
+        ChecksumFile second = table.add( "dir" + SEPARATOR + "sub" + SEPARATOR + "b.txt" );
+        Assert.assertSame( first.getDirectory(), second.getDirectory() );
+        Assert.assertEquals( "dir" + SEPARATOR + "sub" + SEPARATOR, second.getDirectory().getRelativePath() );
+        Assert.assertSame( table.getRoot(), table.add( "a.txt" ).getDirectory() );
+    }
+}
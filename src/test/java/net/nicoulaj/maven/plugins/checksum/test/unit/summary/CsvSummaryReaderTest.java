@@ -0,0 +1,205 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.summary;
+
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.CsvSummaryReader
+ * @since 1.12
+ */
+public class CsvSummaryReaderTest
+{
+    private static final String MD5 = "83d91f209ddcb104776fa41c448c7ee2";
+
+    private static final String SHA1 = "cdd00374f1fee76b11e2a9d127405aa3f6be5b6a";
+
+    /**
+     * The directory holding the summary files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the summaries written by the plugin are read, mapped or not.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testRead()
+        throws IOException
+    {
+        String content = "#File,CRC32,MD5,SHA-1\na.jar,930766865," + MD5 + "," + SHA1 + "\nb.jar,12,,\n";
+        for ( long mappingThreshold : new long[]{ -1, 0 } )
+        {
+            ChecksumSummary summary =
+                new CsvSummaryReader( StandardCharsets.UTF_8, mappingThreshold ).read( write( content, "UTF-8" ) );
+            Assert.assertEquals( 2, summary.size() );
+
+            ChecksumSummary.Entry entry = summary.get( "a.jar" );
+            Assert.assertEquals( Arrays.asList( "CRC32", "MD5", "SHA-1" ), entry.getAlgorithms() );
+            Assert.assertEquals( "930766865", entry.getHashcode( "CRC32" ) );
+            Assert.assertEquals( MD5, entry.getHashcode( "MD5" ) );
+            Assert.assertTrue( entry.matches( "SHA-1", SHA1 ) );
+            Assert.assertTrue( entry.matches( "SHA-1", SHA1.toUpperCase() ) );
+            Assert.assertFalse( entry.matches( "SHA-1", MD5 ) );
+            Assert.assertFalse( entry.matches( "CRC32", "930766866" ) );
+            Assert.assertEquals( -1, entry.getSize() );
+
+            entry = summary.get( "b.jar" );
+            Assert.assertEquals( Collections.singletonList( "CRC32" ), entry.getAlgorithms() );
+            Assert.assertTrue( entry.matches( "CRC32", "12" ) );
+            Assert.assertNull( entry.getHashcode( "MD5" ) );
+            Assert.assertFalse( entry.matches( "MD5", "" ) );
+
+            Assert.assertNull( summary.get( "c.jar" ) );
+        }
+    }
+
+    /**
+     * Assert the size and last modification time columns are read.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testSizeAndLastModified()
+        throws IOException
+    {
+        ChecksumSummary.Entry entry = read( "#File,Size,LastModified,MD5\r\na.jar,382708,1600000000000," + MD5 + "\r\n",
+                                            "UTF-8" ).get( "a.jar" );
+        Assert.assertEquals( 382708, entry.getSize() );
+        Assert.assertEquals( 1600000000000L, entry.getLastModified() );
+        Assert.assertEquals( Collections.singletonList( "MD5" ), entry.getAlgorithms() );
+    }
+
+    /**
+     * Assert the file names are decoded with the given encoding, including encodings which are not ASCII compatible.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testEncoding()
+        throws IOException
+    {
+        String content = "﻿#File,MD5\nété-日本.jar," + MD5 + "\n";
+        for ( String encoding : new String[]{ "UTF-8", "UTF-16", "UTF-16LE" } )
+        {
+            ChecksumSummary summary = read( content, encoding );
+            Assert.assertEquals( encoding, MD5, summary.get( "été-日本.jar" ).getHashcode( "MD5" ) );
+        }
+        ChecksumSummary summary = read( "#File,MD5\nété.jar," + MD5 + "\n", "ISO-8859-1" );
+        Assert.assertEquals( MD5, summary.get( "été.jar" ).getHashcode( "MD5" ) );
+    }
+
+    /**
+     * Assert comments and blank lines are ignored, and later headers apply to the following rows.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testSeveralHeaders()
+        throws IOException
+    {
+        ChecksumSummary summary = read( "# Generated\n#File,MD5\na.jar," + MD5 + "\n\n#File,SHA-1\nb.jar," + SHA1,
+                                        "UTF-8" );
+        Assert.assertEquals( Collections.singletonList( "MD5" ), summary.get( "a.jar" ).getAlgorithms() );
+        Assert.assertEquals( SHA1, summary.get( "b.jar" ).getHashcode( "SHA-1" ) );
+        Assert.assertNull( summary.get( "# Generated" ) );
+    }
+
+    /**
+     * Assert the file names appearing several times with different values are reported, the last row being used.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testDuplicates()
+        throws IOException
+    {
+        ChecksumSummary summary =
+            read( "#File,MD5\na.jar," + MD5 + "\na.jar," + MD5 + "\nb.jar,00\nb.jar," + MD5 + "\n", "UTF-8" );
+        Assert.assertEquals( 2, summary.size() );
+        Assert.assertEquals( Collections.singletonList( "b.jar" ), summary.getDuplicates() );
+        Assert.assertEquals( MD5, summary.get( "b.jar" ).getHashcode( "MD5" ) );
+    }
+
+    /**
+     * Assert a summary without header is rejected.
+     *
+     * @throws java.io.IOException expected.
+     */
+    @Test( expected = IOException.class )
+    public void testMissingHeader()
+        throws IOException
+    {
+        read( "a.jar," + MD5 + "\n", "UTF-8" );
+    }
+
+    /**
+     * Assert a row with more columns than the header is rejected.
+     *
+     * @throws java.io.IOException expected.
+     */
+    @Test( expected = IOException.class )
+    public void testTooManyColumns()
+        throws IOException
+    {
+        read( "#File,MD5\na.jar," + MD5 + "," + SHA1 + "\n", "UTF-8" );
+    }
+
+    /**
+     * Assert an invalid size is rejected.
+     *
+     * @throws java.io.IOException expected.
+     */
+    @Test( expected = IOException.class )
+    public void testInvalidSize()
+        throws IOException
+    {
+        read( "#File,Size,MD5\na.jar,12k," + MD5 + "\n", "UTF-8" );
+    }
+
+    private ChecksumSummary read( String content, String encoding )
+        throws IOException
+    {
+        return new CsvSummaryReader( Charset.forName( encoding ) ).read( write( content, encoding ) );
+    }
+
+    private File write( String content, String encoding )
+        throws IOException
+    {
+        File file = folder.newFile();
+        Files.write( file.toPath(), content.getBytes( Charset.forName( encoding ) ) );
+        return file;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.summary;
+
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.ShasumSummaryReader
+ * @since 1.12
+ */
+public class ShasumSummaryReaderTest
+{
+    private static final String MD5 = "83d91f209ddcb104776fa41c448c7ee2";
+
+    private static final String SHA1 = "cdd00374f1fee76b11e2a9d127405aa3f6be5b6a";
+
+    private static final String SHA256 = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    /**
+     * The directory holding the summary files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert binary and text mode lines are read, and the algorithms guessed from the checksum lengths.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testRead()
+        throws IOException
+    {
+        ChecksumSummary summary = read( SHA1 + " *dir/a.jar\n" + SHA256 + "  b c.jar\n" + MD5 + " *d.jar\r\n"
+                                            + SHA1.toUpperCase() + " *e.jar\n\n", null );
+        Assert.assertEquals( 4, summary.size() );
+        Assert.assertEquals( Collections.singletonList( "SHA-1" ), summary.get( "dir/a.jar" ).getAlgorithms() );
+        Assert.assertTrue( summary.get( "dir/a.jar" ).matches( "SHA-1", SHA1 ) );
+        Assert.assertTrue( summary.get( "b c.jar" ).matches( "SHA-256", SHA256 ) );
+        Assert.assertTrue( summary.get( "d.jar" ).matches( "MD5", MD5 ) );
+        Assert.assertEquals( SHA1, summary.get( "e.jar" ).getHashcode( "SHA-1" ) );
+    }
+
+    /**
+     * Assert the file names escaped by the GNU tools are read.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testEscapedName()
+        throws IOException
+    {
+        ChecksumSummary summary = read( "\\" + MD5 + "  a\\\\b\\nc.jar\n", null );
+        Assert.assertTrue( summary.get( "a\\b\nc.jar" ).matches( "MD5", MD5 ) );
+    }
+
+    /**
+     * Assert the algorithm is not guessed when given.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testAlgorithm()
+        throws IOException
+    {
+        ChecksumSummary summary = read( SHA256 + " *a.jar\n", "SHA3-256" );
+        Assert.assertEquals( Collections.singletonList( "SHA3-256" ), summary.get( "a.jar" ).getAlgorithms() );
+    }
+
+    /**
+     * Assert checksums of unknown length are reported.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test( expected = IOException.class )
+    public void testUnknownAlgorithm()
+        throws IOException
+    {
+        read( "930766865 *a.jar\n", null );
+    }
+
+    /**
+     * Assert malformed lines are reported.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test( expected = IOException.class )
+    public void testMalformed()
+        throws IOException
+    {
+        read( MD5 + "\n", null );
+    }
+
+    private ChecksumSummary read( String content, String algorithm )
+        throws IOException
+    {
+        File file = folder.newFile();
+        Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+        return new ShasumSummaryReader( StandardCharsets.UTF_8, algorithm ).read( file );
+    }
+}
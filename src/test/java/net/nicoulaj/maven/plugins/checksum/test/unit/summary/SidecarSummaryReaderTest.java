@@ -0,0 +1,112 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.summary;
+
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.SidecarSummaryReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.summary.SidecarSummaryReader} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.SidecarSummaryReader
+ * @since 1.12
+ */
+public class SidecarSummaryReaderTest
+{
+    private static final String MD5 = "83d91f209ddcb104776fa41c448c7ee2";
+
+    private static final String SHA1 = "cdd00374f1fee76b11e2a9d127405aa3f6be5b6a";
+
+    /**
+     * The directory holding the files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the checksum files next to each file are read, with or without the file name appended.
+     *
+     * @throws java.io.IOException                    should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     */
+    @Test
+    public void testRead()
+        throws IOException, NoSuchAlgorithmException
+    {
+        File a = folder.newFile( "a.jar" );
+        File b = folder.newFile( "b.jar" );
+        write( folder.getRoot(), "a.jar.md5", MD5 );
+        write( folder.getRoot(), "a.jar.sha1", SHA1 + "  a.jar\n" );
+        write( folder.getRoot(), "b.jar.sha1", SHA1.toUpperCase() );
+
+        SidecarSummaryReader reader =
+            new SidecarSummaryReader( StandardCharsets.UTF_8, Arrays.asList( "MD5", "SHA-1" ), null );
+        ChecksumSummary summary = reader.read( Arrays.asList( a, b ) );
+        Assert.assertEquals( 2, summary.size() );
+
+        ChecksumSummary.Entry entry = summary.get( a.getPath() );
+        Assert.assertEquals( Arrays.asList( "MD5", "SHA-1" ), entry.getAlgorithms() );
+        Assert.assertTrue( entry.matches( "MD5", MD5 ) );
+        Assert.assertTrue( entry.matches( "SHA-1", SHA1 ) );
+
+        entry = summary.get( b.getPath() );
+        Assert.assertEquals( Collections.singletonList( "SHA-1" ), entry.getAlgorithms() );
+        Assert.assertTrue( entry.matches( "SHA-1", SHA1 ) );
+
+        Assert.assertTrue( reader.isChecksumFile( new File( "a.jar.sha1" ) ) );
+        Assert.assertFalse( reader.isChecksumFile( a ) );
+    }
+
+    /**
+     * Assert the checksum files are looked for in the given directory.
+     *
+     * @throws java.io.IOException                    should never happen.
+     * @throws java.security.NoSuchAlgorithmException should never happen.
+     */
+    @Test
+    public void testDirectory()
+        throws IOException, NoSuchAlgorithmException
+    {
+        File a = folder.newFile( "a.jar" );
+        File directory = folder.newFolder( "checksums" );
+        write( directory, "a.jar.md5", MD5 );
+
+        ChecksumSummary summary =
+            new SidecarSummaryReader( StandardCharsets.UTF_8, Collections.singletonList( "MD5" ), directory )
+                .read( Collections.singletonList( a ) );
+        Assert.assertTrue( summary.get( a.getPath() ).matches( "MD5", MD5 ) );
+    }
+
+    private static void write( File directory, String name, String content )
+        throws IOException
+    {
+        Files.write( new File( directory, name ).toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
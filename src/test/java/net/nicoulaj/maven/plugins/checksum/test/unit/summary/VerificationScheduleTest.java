@@ -0,0 +1,132 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.summary;
+
+import net.nicoulaj.maven.plugins.checksum.summary.VerificationSchedule;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.summary.VerificationSchedule} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.VerificationSchedule
+ * @since 1.12
+ */
+public class VerificationScheduleTest
+{
+    /**
+     * The directory holding the state file.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the first build verifies all the files, and the next ones verify each file exactly once per rotation.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testRotation()
+        throws IOException
+    {
+        File stateFile = new File( folder.getRoot(), "target/state" );
+        Assert.assertTrue( nextBuild( stateFile, 0.25, 0 ).isFullVerification() );
+
+        Set<String> verified = new HashSet<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            VerificationSchedule schedule = nextBuild( stateFile, 0.25, 0 );
+            Assert.assertFalse( schedule.isFullVerification() );
+            Assert.assertEquals( 4, schedule.getBuckets() );
+            for ( int file = 0; file < 100; file++ )
+            {
+                if ( schedule.isScheduled( "file-" + file ) )
+                {
+                    Assert.assertTrue( verified.add( "file-" + file ) );
+                }
+            }
+        }
+        Assert.assertEquals( 100, verified.size() );
+    }
+
+    /**
+     * Assert all the files are verified periodically and on request.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testFullVerification()
+        throws IOException
+    {
+        File stateFile = new File( folder.getRoot(), "state" );
+        Assert.assertTrue( nextBuild( stateFile, 0.1, 3 ).isFullVerification() );
+        Assert.assertFalse( nextBuild( stateFile, 0.1, 3 ).isFullVerification() );
+        Assert.assertFalse( nextBuild( stateFile, 0.1, 3 ).isFullVerification() );
+        Assert.assertTrue( nextBuild( stateFile, 0.1, 3 ).isFullVerification() );
+
+        VerificationSchedule schedule = new VerificationSchedule( stateFile, 0.1, 0 );
+        schedule.load();
+        Assert.assertFalse( schedule.isFullVerification() );
+        schedule.setFullVerification( true );
+        Assert.assertTrue( schedule.isScheduled( "file" ) );
+    }
+
+    /**
+     * Assert the state is only updated when saved, so a failed build verifies the same files again.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testStateOnlyUpdatedOnSave()
+        throws IOException
+    {
+        File stateFile = new File( folder.getRoot(), "state" );
+        nextBuild( stateFile, 0.5, 0 );
+
+        VerificationSchedule first = new VerificationSchedule( stateFile, 0.5, 0 );
+        first.load();
+        VerificationSchedule second = new VerificationSchedule( stateFile, 0.5, 0 );
+        second.load();
+        Assert.assertEquals( first.getBucket(), second.getBucket() );
+    }
+
+    /**
+     * Assert invalid sample rates are rejected.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void testInvalidSampleRate()
+    {
+        new VerificationSchedule( new File( "state" ), 0, 0 );
+    }
+
+    private static VerificationSchedule nextBuild( File stateFile, double sampleRate, int fullVerificationInterval )
+        throws IOException
+    {
+        VerificationSchedule schedule = new VerificationSchedule( stateFile, sampleRate, fullVerificationInterval );
+        schedule.load();
+        schedule.save();
+        return schedule;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * checksum-maven-plugin - http://checksum-maven-plugin.nicoulaj.net
+ * Copyright © 2010-2021 checksum-maven-plugin contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.nicoulaj.maven.plugins.checksum.test.unit.summary;
+
+import net.nicoulaj.maven.plugins.checksum.summary.ChecksumSummary;
+import net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests for the {@link net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader} class.
+ *
+ * @author <a href="mailto:julien.nicoulaud@gmail.com">Julien Nicoulaud</a>
+ * @see net.nicoulaj.maven.plugins.checksum.summary.XmlSummaryReader
+ * @since 1.12
+ */
+public class XmlSummaryReaderTest
+{
+    private static final String MD5 = "83d91f209ddcb104776fa41c448c7ee2";
+
+    private static final String SHA1 = "cdd00374f1fee76b11e2a9d127405aa3f6be5b6a";
+
+    /**
+     * The directory holding the summary files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Assert the summaries written by the plugin are read, each file having its own algorithms.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testRead()
+        throws IOException
+    {
+        ChecksumSummary summary = read( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<files>\n"
+                                            + "  <file name=\"a.jar\" size=\"382708\" lastModified=\"1600000000000\">\n"
+                                            + "    <hashcode algorithm=\"MD5\">" + MD5 + "</hashcode>\n"
+                                            + "    <hashcode algorithm=\"SHA-1\">" + SHA1 + "</hashcode>\n"
+                                            + "  </file>\n"
+                                            + "  <file name=\"b &amp; c.jar\">\n"
+                                            + "    <hashcode algorithm=\"CRC32\">930766865</hashcode>\n"
+                                            + "  </file>\n</files>\n" );
+        Assert.assertEquals( 2, summary.size() );
+        Assert.assertEquals( "a.jar", summary.getEntries().get( 0 ).getName() );
+
+        ChecksumSummary.Entry entry = summary.get( "a.jar" );
+        Assert.assertEquals( Arrays.asList( "MD5", "SHA-1" ), entry.getAlgorithms() );
+        Assert.assertTrue( entry.matches( "SHA-1", SHA1 ) );
+        Assert.assertEquals( MD5, entry.getHashcode( "MD5" ) );
+        Assert.assertEquals( 382708, entry.getSize() );
+        Assert.assertEquals( 1600000000000L, entry.getLastModified() );
+
+        entry = summary.get( "b & c.jar" );
+        Assert.assertEquals( Collections.singletonList( "CRC32" ), entry.getAlgorithms() );
+        Assert.assertTrue( entry.matches( "CRC32", "930766865" ) );
+        Assert.assertEquals( -1, entry.getSize() );
+    }
+
+    /**
+     * Assert external entities are not resolved.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test
+    public void testExternalEntity()
+        throws IOException
+    {
+        File secret = folder.newFile( "secret" );
+        Files.write( secret.toPath(), MD5.getBytes( StandardCharsets.UTF_8 ) );
+        try
+        {
+            ChecksumSummary summary = read( "<?xml version=\"1.0\"?>\n"
+                                                + "<!DOCTYPE files [<!ENTITY secret SYSTEM \"" + secret.toURI() + "\">]>\n"
+                                                + "<files><file name=\"a.jar\">"
+                                                + "<hashcode algorithm=\"MD5\">&secret;</hashcode></file></files>" );
+            Assert.assertNull( summary.get( "a.jar" ).getHashcode( "MD5" ) );
+        }
+        catch ( IOException e )
+        {
+            // Rejecting the entity is fine too.
+        }
+    }
+
+    /**
+     * Assert malformed summaries are reported.
+     *
+     * @throws java.io.IOException should never happen.
+     */
+    @Test( expected = IOException.class )
+    public void testMalformed()
+        throws IOException
+    {
+        read( "<files><file name=\"a.jar\" size=\"big\"></file></files>" );
+    }
+
+    private ChecksumSummary read( String content )
+        throws IOException
+    {
+        File file = folder.newFile();
+        Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+        return new XmlSummaryReader( StandardCharsets.UTF_8 ).read( file );
+    }
+}